@@ -0,0 +1,66 @@
+package com.project.ecommerceapp.benchmark;
+
+import com.project.ecommerceapp.dto.ImageDto;
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Image;
+import com.project.ecommerceapp.model.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Deterministic catalog fixtures shared by the benchmarks, sized like real products (two images each).
+*/
+final class BenchmarkData {
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+    private static final String[] CATEGORIES = {"Phones", "Laptops", "Tablets", "Audio", "Cameras"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Product> products(int count) {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            Category category = new Category(CATEGORIES[i]);
+            category.setId((long) i + 1);
+            categories.add(category);
+        }
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("Product " + i, BRANDS[i % BRANDS.length], BigDecimal.valueOf(10 + i % 990, 2),
+                    i % 50, "Description of product " + i + " with a few more words to look like real copy",
+                    categories.get(i % categories.size()));
+            product.setId((long) i + 1);
+            List<Image> images = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                Image image = new Image();
+                image.setId((long) i * 2 + j + 1);
+                image.setFileName("product-" + i + "-" + j + ".jpg");
+                image.setFileType("image/jpeg");
+                image.setContentHash(String.format("%064x", image.getId()));
+                image.setProduct(product);
+                images.add(image);
+            }
+            product.setImages(images);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static List<ProductDto> productDtos(int count) {
+        List<ProductDto> dtos = new ArrayList<>(count);
+        for (Product product : products(count)) {
+            ProductDto dto = new ProductDto(product.getId(), product.getName(), product.getBrand(), product.getPrice(),
+                    product.getInventory(), product.getDescription(), product.getCategory().getName());
+            List<ImageDto> images = new ArrayList<>();
+            for (Image image : product.getImages()) {
+                images.add(ImageDto.of(image.getId(), image.getFileName(), image.getContentHash()));
+            }
+            dto.setImages(images);
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+}
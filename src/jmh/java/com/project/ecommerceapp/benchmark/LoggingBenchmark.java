@@ -0,0 +1,80 @@
+package com.project.ecommerceapp.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Cost of one log statement as written in the controllers and services (log4j-over-slf4j with string concatenation),
+    against a guarded call and a parameterized SLF4J call. Events are encoded with the production LogstashEncoder into a
+    discarding stream, so the numbers include formatting and JSON encoding but no I/O.
+    - level INFO : the statement is enabled.
+    - level WARN : the statement is disabled, only the argument building is left.
+*/
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingBenchmark {
+
+    @Param({"INFO", "WARN"})
+    public String level;
+
+    private Logger log4jLogger;
+    private org.slf4j.Logger slf4jLogger;
+    private LoggerContext context;
+    private long productId = 42;
+    private String brand = "Acme";
+
+    @Setup
+    public void setUp() {
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.addAppender(appender);
+        root.setLevel(Level.toLevel(level));
+
+        log4jLogger = Logger.getLogger(LoggingBenchmark.class);
+        slf4jLogger = LoggerFactory.getLogger(LoggingBenchmark.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.reset();
+    }
+
+    @Benchmark
+    public void concatenated() {
+        log4jLogger.info("Fetching products by brand: " + brand + " and id: " + productId);
+    }
+
+    @Benchmark
+    public void guardedConcatenated() {
+        if (log4jLogger.isInfoEnabled()) {
+            log4jLogger.info("Fetching products by brand: " + brand + " and id: " + productId);
+        }
+    }
+
+    @Benchmark
+    public void parameterized() {
+        slf4jLogger.info("Fetching products by brand: {} and id: {}", brand, productId);
+    }
+}
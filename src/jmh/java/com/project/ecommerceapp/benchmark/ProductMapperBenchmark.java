@@ -0,0 +1,36 @@
+package com.project.ecommerceapp.benchmark;
+
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.mapper.ProductMapper;
+import com.project.ecommerceapp.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Cost of mapping Product entities (with category and images) to ProductDto through the MapStruct ProductMapper.
+*/
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductMapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        products = BenchmarkData.products(size);
+    }
+
+    @Benchmark
+    public List<ProductDto> mapList() {
+        return ProductMapper.INSTANCE.productListToProductDto(products);
+    }
+}
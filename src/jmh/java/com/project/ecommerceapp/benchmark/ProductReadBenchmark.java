@@ -0,0 +1,108 @@
+package com.project.ecommerceapp.benchmark;
+
+import com.project.ecommerceapp.EcommerceAppApplication;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.service.product.ProductImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    End-to-end read latency over HTTP: Tomcat, controller, service, cache, JPA on an in-memory H2 database and JSON.
+    The request path needs far more warmup than the micro benchmarks before the JIT has settled.
+    The application runs with the test profile and a catalog of PRODUCTS rows loaded through the bulk import.
+    - cached false : the product caches are cleared before every call, so every call reaches the database.
+*/
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductReadBenchmark {
+    private static final int PRODUCTS = 10_000;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private CacheManager cacheManager;
+    private HttpClient client;
+    private String baseUrl;
+    private long firstId;
+
+    @State(Scope.Benchmark)
+    public static class Page {
+        @Param({"1", "100"})
+        public int limit;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(EcommerceAppApplication.class)
+                .profiles("test")
+                // command line arguments, so that they win over application.properties
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        cacheManager = context.getBean(CacheManager.class);
+
+        StringBuilder csv = new StringBuilder("name,brand,price,inventory,description,category\n");
+        for (int i = 0; i < PRODUCTS; i++) {
+            csv.append("Product ").append(i).append(",Brand ").append(i % 50).append(',').append(10 + i % 990)
+                    .append(',').append(i % 20).append(",Description of product ").append(i)
+                    .append(",Category ").append(i % 25).append('\n');
+        }
+        context.getBean(ProductImportService.class).importCsv(new StringReader(csv.toString()));
+        firstId = context.getBean(ProductRepository.class).findDtoPage(0L, Limit.of(1)).get(0).getId();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/product";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getProductById() throws Exception {
+        clearCachesUnlessCached();
+        long id = firstId + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        return get(baseUrl + "/id/" + id);
+    }
+
+    @Benchmark
+    public String getProductPage(Page page) throws Exception {
+        clearCachesUnlessCached();
+        long after = firstId + ThreadLocalRandom.current().nextInt(PRODUCTS - page.limit) - 1;
+        return get(baseUrl + "/?after=" + after + "&limit=" + page.limit);
+    }
+
+    private void clearCachesUnlessCached() {
+        if (!cached) {
+            cacheManager.getCache("productById").clear();
+            cacheManager.getCache("allProducts").clear();
+        }
+    }
+
+    private String get(String url) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + url + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.ecommerceapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.dto.CursorPage;
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.response.ApiResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Cost of serializing the ApiResponse envelope around a page of ProductDto with the ObjectMapper Spring MVC uses.
+*/
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductDto> products = BenchmarkData.productDtos(size);
+        response = new ApiResponse("Data:", new CursorPage<>(products, (long) size, size));
+    }
+
+    @Benchmark
+    public byte[] writeApiResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,255 @@
+package com.project.ecommerceapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.ecommerceapp.EcommerceAppApplication;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.service.product.ProductImportService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.io.File;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+
+/*
+    Closed-loop HTTP load test comparing request handling on platform threads and on virtual threads.
+    Every mode starts its own application with the test profile on an in-memory H2 database and imports the same
+    catalog. H2 answers in microseconds, so every JDBC statement sleeps for loadtest.db-latency-ms while holding
+    its connection, standing in for the round trip to SQL Server. Clients call the uncached brand listing so
+    that every request reaches the database.
+    System properties:
+    - loadtest.modes        : Modes to run in order, platform and/or virtual (virtual needs a Java 21 runtime).
+    - loadtest.clients      : Concurrent clients, each sends its next request as soon as the previous one returns.
+    - loadtest.warmup       : Seconds of load before measuring.
+    - loadtest.duration     : Seconds measured.
+    - loadtest.db-latency-ms: Sleep added to every statement execution.
+    - loadtest.pool-size    : Connection pool size, the same for both modes.
+    - loadtest.result       : JSON file the results are written to.
+*/
+public class ReadLoadTest {
+    private static final int PRODUCTS = 10_000;
+    private static final int BRANDS = 50;
+    private static final int PAGE_SIZE = 20;
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.asList(System.getProperty("loadtest.modes", "platform,virtual").split(","));
+        int clients = Integer.getInteger("loadtest.clients", 400);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        int duration = Integer.getInteger("loadtest.duration", 30);
+        int dbLatencyMs = Integer.getInteger("loadtest.db-latency-ms", 5);
+        int poolSize = Integer.getInteger("loadtest.pool-size", 50);
+        String resultFile = System.getProperty("loadtest.result", "target/loadtest-result.json");
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String mode : modes) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("mode", mode);
+            result.put("clients", clients);
+            result.put("dbLatencyMs", dbLatencyMs);
+            result.put("poolSize", poolSize);
+            if (mode.equals("virtual") && Runtime.version().feature() < 21) {
+                System.out.println("Skipping virtual mode, needs Java 21, running on " + Runtime.version());
+                result.put("skipped", "needs Java 21");
+                results.add(result);
+                continue;
+            }
+            result.putAll(run(mode.equals("virtual"), clients, warmup, duration, dbLatencyMs, poolSize));
+            results.add(result);
+            System.out.println(result);
+        }
+
+        File file = new File(resultFile);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, results);
+        System.out.println("Results written to " + file.getAbsolutePath());
+    }
+
+    private static Map<String, Object> run(boolean virtualThreads, int clients, int warmup, int duration,
+                                           int dbLatencyMs, int poolSize) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EcommerceAppApplication.class)
+                .profiles("test")
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof HikariDataSource pool ? withLatency(pool, dbLatencyMs) : bean;
+                    }
+                }))
+                // command line arguments, so that they win over application.properties
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + (virtualThreads ? "virtual" : "platform") + ";MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        try {
+            long firstId = importCatalog(context, PRODUCTS);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/product/brand";
+
+            Load load = new Load(baseUrl, firstId, clients);
+            load.run(Duration.ofSeconds(warmup));
+            return load.run(Duration.ofSeconds(duration)).summary();
+        } finally {
+            context.close();
+        }
+    }
+
+    // Imports products spread over BRANDS brands and 25 categories, returns the id of the first one
+    static long importCatalog(ConfigurableApplicationContext context, int products) throws Exception {
+        StringBuilder csv = new StringBuilder("name,brand,price,inventory,description,category\n");
+        for (int i = 0; i < products; i++) {
+            csv.append("Product ").append(i).append(",Brand ").append(i % BRANDS).append(',').append(10 + i % 990)
+                    .append(',').append(i % 20).append(",Description of product ").append(i)
+                    .append(",Category ").append(i % 25).append('\n');
+        }
+        context.getBean(ProductImportService.class).importCsv(new StringReader(csv.toString()));
+        return firstProductId(context);
+    }
+
+    static long firstProductId(ConfigurableApplicationContext context) {
+        return context.getBean(ProductRepository.class).findDtoPage(0L, Limit.of(1)).get(0).getId();
+    }
+
+    // Adds a fixed delay to every statement execution while the connection is held
+    static DataSource withLatency(HikariDataSource pool, int latencyMs) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(pool, method, args);
+                    return result instanceof Connection connection
+                            ? proxy(Connection.class, connection, latencyMs)
+                            : result;
+                });
+    }
+
+    private static Object proxy(Class<?> type, Object target, int latencyMs) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                Thread.sleep(latencyMs);
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, statement, latencyMs);
+            }
+            if (result instanceof Statement statement && !(result instanceof PreparedStatement)) {
+                return proxy(Statement.class, statement, latencyMs);
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static class Load {
+        private final String baseUrl;
+        private final long firstId;
+        private final int clients;
+        private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        private final LongAdder errors = new LongAdder();
+        private long[] latencies = new long[0];
+        private Duration elapsed;
+
+        Load(String baseUrl, long firstId, int clients) {
+            this.baseUrl = baseUrl;
+            this.firstId = firstId;
+            this.clients = clients;
+        }
+
+        Load run(Duration duration) throws InterruptedException {
+            errors.reset();
+            long[][] perClient = new long[clients][];
+            int[] counts = new int[clients];
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                perClient[c] = new long[1024];
+                Thread thread = new Thread(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long latency = call();
+                        if (counts[client] == perClient[client].length) {
+                            perClient[client] = Arrays.copyOf(perClient[client], counts[client] * 2);
+                        }
+                        perClient[client][counts[client]++] = latency;
+                    }
+                }, "load-client-" + c);
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            elapsed = Duration.ofNanos(System.nanoTime() - start);
+            latencies = new long[Arrays.stream(counts).sum()];
+            int offset = 0;
+            for (int c = 0; c < clients; c++) {
+                System.arraycopy(perClient[c], 0, latencies, offset, counts[c]);
+                offset += counts[c];
+            }
+            Arrays.sort(latencies);
+            return this;
+        }
+
+        private long call() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long after = firstId + random.nextInt(PRODUCTS - PAGE_SIZE * BRANDS * 2);
+            String url = baseUrl + "?brand=Brand%20" + random.nextInt(BRANDS) + "&after=" + after + "&limit=" + PAGE_SIZE;
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    errors.increment();
+                }
+            } catch (Exception e) {
+                errors.increment();
+            }
+            return System.nanoTime() - start;
+        }
+
+        Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", latencies.length);
+            summary.put("errors", errors.sum());
+            summary.put("throughputPerSecond", Math.round(latencies.length / (elapsed.toNanos() / 1e9)));
+            summary.put("p50Ms", percentileMillis(0.50));
+            summary.put("p99Ms", percentileMillis(0.99));
+            summary.put("maxMs", percentileMillis(1.0));
+            return summary;
+        }
+
+        private double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1);
+            return Math.round(latencies[Math.max(0, index)] / 10_000.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.project.ecommerceapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.ecommerceapp.EcommerceAppApplication;
+import com.project.ecommerceapp.capture.CapturedRequest;
+import com.project.ecommerceapp.service.product.ProductImportService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/*
+    Replays requests recorded by the WorkloadCaptureFilter against the application started with the test profile on
+    an in-memory H2 database, keeping the recorded arrival times divided by the speed-up, and reports throughput and
+    latency percentiles per endpoint next to the latencies recorded in production.
+    - Only the methods in replay.methods are replayed, request bodies are not captured. The others are counted as skipped.
+    - The database holds a generated catalog, or the CSV in replay.catalog in the bulk import format. Product ids in
+      /id/{id} paths and in after= cursors are mapped onto it, other filter values are sent as recorded and only
+      match what the catalog holds.
+    - A request is sent when it is due and fewer than replay.concurrency requests are in flight. When the application
+      cannot keep up requests start late, the largest delay is reported as maxLagMs.
+    System properties:
+    - replay.captures       : Capture files, gzipped or not, or directories of them, comma separated. Replayed in time order.
+    - replay.speedup        : 1 replays in recorded time, 10 ten times faster, 0 as fast as the concurrency allows.
+    - replay.concurrency    : Requests in flight at most.
+    - replay.methods        : Methods replayed, comma separated.
+    - replay.limit          : Recorded requests replayed at most, 0 for all of them.
+    - replay.products       : Size of the generated catalog.
+    - replay.catalog        : CSV file imported instead of the generated catalog.
+    - replay.db-latency-ms  : Sleep added to every statement execution, as in ReadLoadTest.
+    - replay.pool-size      : Connection pool size.
+    - replay.result         : JSON file the results are written to.
+*/
+public class WorkloadReplay {
+    private static final Pattern PRODUCT_ID = Pattern.compile("/id/(\\d+)");
+    private static final Pattern AFTER = Pattern.compile("(^|&)after=(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        String captures = System.getProperty("replay.captures", "");
+        double speedup = Double.parseDouble(System.getProperty("replay.speedup", "1"));
+        int concurrency = Integer.getInteger("replay.concurrency", 64);
+        Set<String> methods = Set.of(System.getProperty("replay.methods", "GET,HEAD").toUpperCase().split(","));
+        int limit = Integer.getInteger("replay.limit", 0);
+        int products = Integer.getInteger("replay.products", 10_000);
+        String catalog = System.getProperty("replay.catalog", "");
+        int dbLatencyMs = Integer.getInteger("replay.db-latency-ms", 0);
+        int poolSize = Integer.getInteger("replay.pool-size", 20);
+        String resultFile = System.getProperty("replay.result", "target/replay-result.json");
+        if (captures.isBlank()) {
+            System.err.println("Set -Dreplay.captures to the capture files or directories to replay");
+            System.exit(2);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<CapturedRequest> recorded = read(objectMapper, captures);
+        List<CapturedRequest> replayed = recorded.stream()
+                .filter(request -> methods.contains(request.method()))
+                .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                .toList();
+        System.out.printf("%d recorded requests, replaying %d%n", recorded.size(), replayed.size());
+        if (replayed.isEmpty()) {
+            return;
+        }
+
+        ConfigurableApplicationContext context = start(dbLatencyMs, poolSize);
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            long firstId;
+            if (catalog.isBlank()) {
+                firstId = ReadLoadTest.importCatalog(context, products);
+            } else {
+                try (FileReader csv = new FileReader(catalog, StandardCharsets.UTF_8)) {
+                    products = (int) context.getBean(ProductImportService.class).importCsv(csv).getImported();
+                }
+                if (products == 0) {
+                    throw new IllegalStateException("No product imported from " + catalog);
+                }
+                firstId = ReadLoadTest.firstProductId(context);
+            }
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            result.put("recorded", recorded.size());
+            result.put("skipped", recorded.size() - replayed.size());
+            result.put("speedup", speedup);
+            result.put("concurrency", concurrency);
+            result.put("dbLatencyMs", dbLatencyMs);
+            result.putAll(new Replay(baseUrl, firstId, products, speedup, concurrency).run(replayed));
+        } finally {
+            context.close();
+        }
+
+        File file = new File(resultFile);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+        print(result);
+        System.out.println("Results written to " + file.getAbsolutePath());
+    }
+
+    private static ConfigurableApplicationContext start(int dbLatencyMs, int poolSize) {
+        return new SpringApplicationBuilder(EcommerceAppApplication.class)
+                .profiles("test")
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof HikariDataSource pool && dbLatencyMs > 0
+                                ? ReadLoadTest.withLatency(pool, dbLatencyMs)
+                                : bean;
+                    }
+                }))
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:replay;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--app.capture.enabled=false",
+                        "--logging.level.root=WARN");
+    }
+
+    private static List<CapturedRequest> read(ObjectMapper objectMapper, String captures) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String path : captures.split(",")) {
+            File file = new File(path.trim());
+            File[] children = file.listFiles(File::isFile);
+            if (children != null) {
+                Arrays.sort(children);
+                files.addAll(Arrays.asList(children));
+            } else {
+                files.add(file);
+            }
+        }
+        List<CapturedRequest> requests = new ArrayList<>();
+        for (File file : files) {
+            try (InputStream in = open(file);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        requests.add(objectMapper.readValue(line, CapturedRequest.class));
+                    }
+                }
+            }
+        }
+        requests.sort(Comparator.comparingLong(CapturedRequest::at));
+        return requests;
+    }
+
+    private static InputStream open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        return file.getName().endsWith(".gz") ? new GZIPInputStream(in) : in;
+    }
+
+    private static void print(Map<String, Object> result) {
+        System.out.printf("%-60s %8s %10s %8s %8s %8s %10s %10s%n",
+                "endpoint", "requests", "per second", "p50 ms", "p95 ms", "p99 ms", "rec p50", "rec p99");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> endpoints = (List<Map<String, Object>>) result.get("endpoints");
+        for (Map<String, Object> endpoint : endpoints) {
+            System.out.printf("%-60s %8s %10s %8s %8s %8s %10s %10s%n", endpoint.get("endpoint"), endpoint.get("requests"),
+                    endpoint.get("throughputPerSecond"), endpoint.get("p50Ms"), endpoint.get("p95Ms"),
+                    endpoint.get("p99Ms"), endpoint.get("recordedP50Ms"), endpoint.get("recordedP99Ms"));
+        }
+        System.out.printf("total %s requests in %s s, %s per second, max lag %s ms%n", result.get("replayed"),
+                result.get("elapsedSeconds"), result.get("throughputPerSecond"), result.get("maxLagMs"));
+    }
+
+    private static class Replay {
+        private final String baseUrl;
+        private final long firstId;
+        private final int products;
+        private final double speedup;
+        private final int concurrency;
+        private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+        Replay(String baseUrl, long firstId, int products, double speedup, int concurrency) {
+            this.baseUrl = baseUrl;
+            this.firstId = firstId;
+            this.products = products;
+            this.speedup = speedup;
+            this.concurrency = concurrency;
+        }
+
+        Map<String, Object> run(List<CapturedRequest> requests) throws InterruptedException {
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency,
+                    runnable -> new Thread(runnable, "replay-" + threadCount.incrementAndGet()));
+            Semaphore inFlight = new Semaphore(concurrency);
+            long recordedStart = requests.get(0).at();
+            long start = System.nanoTime();
+            long maxLag = 0;
+            for (CapturedRequest request : requests) {
+                long due = speedup > 0
+                        ? start + (long) (TimeUnit.MILLISECONDS.toNanos(request.at() - recordedStart) / speedup)
+                        : System.nanoTime();
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                maxLag = Math.max(maxLag, System.nanoTime() - due);
+                workers.execute(() -> {
+                    try {
+                        send(request);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.HOURS);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("replayed", requests.size());
+            summary.put("elapsedSeconds", Math.round(elapsed.toMillis() / 10.0) / 100.0);
+            summary.put("throughputPerSecond", Math.round(requests.size() / (elapsed.toNanos() / 1e9)));
+            summary.put("maxLagMs", TimeUnit.NANOSECONDS.toMillis(maxLag));
+            summary.put("endpoints", endpoints.entrySet().stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<String, Endpoint> entry) -> entry.getValue().count()).reversed())
+                    .map(entry -> entry.getValue().summary(entry.getKey(), elapsed))
+                    .collect(Collectors.toList()));
+            return summary;
+        }
+
+        private void send(CapturedRequest request) {
+            String query = request.query() != null ? "?" + remapAfter(request.query()) : "";
+            URI uri = URI.create(baseUrl + remapProductId(request.path()) + query);
+            long started = System.nanoTime();
+            int status;
+            try {
+                status = client.send(HttpRequest.newBuilder(uri).method(request.method(), HttpRequest.BodyPublishers.noBody()).build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            endpoints.computeIfAbsent(request.method() + " " + request.endpoint(), key -> new Endpoint())
+                    .record(System.nanoTime() - started, TimeUnit.MICROSECONDS.toNanos(request.micros()), status);
+        }
+
+        // recorded ids are spread over the catalog, the same recorded id always maps to the same product
+        private String remapProductId(String path) {
+            Matcher matcher = PRODUCT_ID.matcher(path);
+            return matcher.find()
+                    ? path.substring(0, matcher.start(1)) + mapId(matcher.group(1)) + path.substring(matcher.end(1))
+                    : path;
+        }
+
+        private String remapAfter(String query) {
+            Matcher matcher = AFTER.matcher(query);
+            return matcher.find()
+                    ? query.substring(0, matcher.start(2)) + mapId(matcher.group(2)) + query.substring(matcher.end(2))
+                    : query;
+        }
+
+        private long mapId(String recordedId) {
+            return firstId + Math.floorMod(Long.parseLong(recordedId), products);
+        }
+    }
+
+    private static class Endpoint {
+        private long[] latencies = new long[256];
+        private long[] recorded = new long[256];
+        private int count;
+        private final Map<String, Integer> statuses = new TreeMap<>();
+
+        synchronized void record(long latencyNanos, long recordedNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+                recorded = Arrays.copyOf(recorded, count * 2);
+            }
+            latencies[count] = latencyNanos;
+            recorded[count] = recordedNanos;
+            count++;
+            statuses.merge(status < 0 ? "error" : status / 100 + "xx", 1, Integer::sum);
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized Map<String, Object> summary(String endpoint, Duration elapsed) {
+            long[] replayed = Arrays.copyOf(latencies, count);
+            long[] production = Arrays.copyOf(recorded, count);
+            Arrays.sort(replayed);
+            Arrays.sort(production);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("endpoint", endpoint);
+            summary.put("requests", count);
+            summary.put("statuses", new TreeMap<>(statuses));
+            summary.put("throughputPerSecond", Math.round(count / (elapsed.toNanos() / 1e9) * 10) / 10.0);
+            summary.put("p50Ms", percentileMillis(replayed, 0.50));
+            summary.put("p95Ms", percentileMillis(replayed, 0.95));
+            summary.put("p99Ms", percentileMillis(replayed, 0.99));
+            summary.put("maxMs", percentileMillis(replayed, 1.0));
+            summary.put("recordedP50Ms", percentileMillis(production, 0.50));
+            summary.put("recordedP99Ms", percentileMillis(production, 0.99));
+            return summary;
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            return Math.round(sorted[Math.max(0, index)] / 10_000.0) / 100.0;
+        }
+    }
+}
@@ -3,8 +3,14 @@ package com.project.ecommerceapp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// caching wraps the transaction: hits open no transaction, background refreshes run the whole transactional method
+// and evictions happen after the commit
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableScheduling
 public class EcommerceAppApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,84 @@
+package com.project.ecommerceapp.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Concurrency limit that follows the latency of the requests it admits (AIMD).
+    - Every sample under the latency threshold raises the limit by 1/limit, so about one per limit requests, but only
+      while the limit is actually used: an idle server learns nothing about its capacity.
+    - A sample over the threshold multiplies the limit by the backoff ratio. Samples of requests admitted before the
+      last decrease are ignored, they were admitted under the old limit and would shrink it once per request.
+    - A caller may only use its share of the limit, so the lower priorities are turned away first as load climbs.
+*/
+public class AdaptiveConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double limit;
+    private long lastDecreaseAt = System.nanoTime();
+
+    /*
+        - initialLimit     : Limit until the first samples arrive.
+        - latencyThreshold : Latency from which a sample is taken as a sign of overload.
+        - backoffRatio     : Factor applied to the limit on overload, between 0 and 1.
+    */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /*
+        - Admits a request when the requests in flight stay within its share of the limit.
+        - share : Fraction of the limit the request's priority may use, 1 for the highest.
+        - Returns false without waiting when the request is not admitted, release is only called after true.
+    */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (getLimit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /*
+        - Releases an admitted request.
+        - startedAt : System.nanoTime() when it was admitted.
+        - sample    : Whether its latency says something about the database, false for slow by nature requests.
+    */
+    public void release(long startedAt, boolean sample) {
+        int current = inFlight.getAndDecrement();
+        if (!sample) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (now - startedAt > latencyThresholdNanos) {
+                if (startedAt - lastDecreaseAt > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseAt = now;
+                }
+            } else if (current * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,142 @@
+package com.project.ecommerceapp.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.datasource.BoundedDataSource;
+import com.project.ecommerceapp.response.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Admission control in front of the API controllers, so that a slow database sheds part of the load instead of
+    parking every request thread on the connection pool.
+    - Requests are turned away with 429 when their client spent its token bucket, and with 503 when the adaptive
+      concurrency limit for their priority is reached, both with a Retry-After header and without waiting.
+    - Reads may use the whole limit, writes and uploads only their share of it. Writes and uploads are also turned
+      away while the estimated wait for a pooled connection is over the deadline, reads often come from the caches.
+    - The limit follows the latency of reads, the latency of writes and uploads depends on their size.
+*/
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final AdaptiveConcurrencyLimit limit;
+    private final ClientRateLimiter rateLimiter;
+    private final BoundedDataSource dataSource;
+    private final Duration poolWaitDeadline;
+    private final Duration retryAfter;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, Map<Reason, LongAdder>> shed = new EnumMap<>(Priority.class);
+    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionFilter.class);
+
+    /*
+        - rateLimiter      : Token buckets per client, null for no rate limit.
+        - dataSource       : Pool to estimate the connection wait from, null to not shed on it.
+        - poolWaitDeadline : Estimated connection wait from which writes and uploads are turned away.
+        - writeShare       : Fraction of the limit writes may use.
+        - uploadShare      : Fraction of the limit uploads and bulk requests may use.
+        - retryAfter       : Retry-After sent with a 503.
+    */
+    public AdmissionFilter(AdaptiveConcurrencyLimit limit, ClientRateLimiter rateLimiter, BoundedDataSource dataSource,
+                           Duration poolWaitDeadline, double writeShare, double uploadShare, Duration retryAfter,
+                           ObjectMapper objectMapper) {
+        this.limit = limit;
+        this.rateLimiter = rateLimiter;
+        this.dataSource = dataSource;
+        this.poolWaitDeadline = poolWaitDeadline;
+        this.retryAfter = retryAfter;
+        this.objectMapper = objectMapper;
+        shares.put(Priority.READ, 1.0);
+        shares.put(Priority.WRITE, writeShare);
+        shares.put(Priority.UPLOAD, uploadShare);
+        for (Priority priority : Priority.values()) {
+            Map<Reason, LongAdder> counters = new EnumMap<>(Reason.class);
+            for (Reason reason : Reason.values()) {
+                counters.put(reason, new LongAdder());
+            }
+            shed.put(priority, counters);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = Priority.of(request);
+        if (rateLimiter != null) {
+            Duration wait = rateLimiter.tryConsume(request.getRemoteAddr());
+            if (!wait.isZero()) {
+                reject(response, priority, Reason.RATE, HttpStatus.TOO_MANY_REQUESTS, wait, "Too many requests");
+                return;
+            }
+        }
+        if (priority != Priority.READ && dataSource != null
+                && dataSource.getEstimatedWait().compareTo(poolWaitDeadline) > 0) {
+            reject(response, priority, Reason.POOL, HttpStatus.SERVICE_UNAVAILABLE, retryAfter, "Server busy, retry later");
+            return;
+        }
+        if (!limit.tryAcquire(shares.get(priority))) {
+            reject(response, priority, Reason.LIMIT, HttpStatus.SERVICE_UNAVAILABLE, retryAfter, "Server busy, retry later");
+            return;
+        }
+        long startedAt = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            // streamed responses go on after the thread returns, their latency is not the database's
+            limit.release(startedAt, completed && priority == Priority.READ && !request.isAsyncStarted());
+        }
+    }
+
+    public AdaptiveConcurrencyLimit getLimit() {
+        return limit;
+    }
+
+    public long getShed(Priority priority, Reason reason) {
+        return shed.get(priority).get(reason).sum();
+    }
+
+    private void reject(HttpServletResponse response, Priority priority, Reason reason, HttpStatus status,
+                        Duration retryAfter, String message) throws IOException {
+        shed.get(priority).get(reason).increment();
+        logger.debug("Shed {} request, reason: {}, limit: {}", priority, reason, limit.getLimit());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse(message, null));
+    }
+
+    public enum Priority {
+        READ, WRITE, UPLOAD;
+
+        // multipart uploads and bulk imports and updates hold a connection the longest
+        static Priority of(HttpServletRequest request) {
+            String method = request.getMethod();
+            if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+                return READ;
+            }
+            String contentType = request.getContentType();
+            if ((contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE))
+                    || request.getRequestURI().endsWith("/bulk")) {
+                return UPLOAD;
+            }
+            return WRITE;
+        }
+    }
+
+    public enum Reason {
+        LIMIT, POOL, RATE
+    }
+}
@@ -0,0 +1,60 @@
+package com.project.ecommerceapp.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/*
+    Token bucket per client: a client may send a burst of requests, then the refill rate.
+    Buckets of clients not seen for a minute are dropped, at most maxClients are kept, the least recently seen go first.
+*/
+public class ClientRateLimiter {
+    private final double tokensPerNano;
+    private final double burst;
+    private final Cache<String, Bucket> buckets;
+
+    /*
+        - perSecond  : Requests a client may send per second once its burst is spent.
+        - burst      : Requests a client may send at once.
+        - maxClients : Buckets kept in memory.
+    */
+    public ClientRateLimiter(double perSecond, int burst, long maxClients) {
+        this.tokensPerNano = perSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /*
+        - Takes a token from the client's bucket.
+        - Returns zero when the request may go on, otherwise how long until the next token.
+    */
+    public Duration tryConsume(String client) {
+        long waitNanos = buckets.get(client, key -> new Bucket(burst, System.nanoTime())).tryConsume(System.nanoTime());
+        return waitNanos == 0 ? Duration.ZERO : Duration.ofNanos(waitNanos);
+    }
+
+    private class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        synchronized long tryConsume(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
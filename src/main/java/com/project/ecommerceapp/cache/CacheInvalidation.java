@@ -0,0 +1,10 @@
+package com.project.ecommerceapp.cache;
+
+/*
+    Message broadcast to every node when an entry of a two level cache changes.
+    - nodeId    : Node that made the change, it ignores its own messages.
+    - cacheName : Name of the affected cache.
+    - key       : Key to evict from the local L1, null means the whole cache was cleared.
+*/
+public record CacheInvalidation(String nodeId, String cacheName, String key) {
+}
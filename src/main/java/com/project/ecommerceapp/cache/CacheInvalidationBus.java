@@ -0,0 +1,22 @@
+package com.project.ecommerceapp.cache;
+
+import java.util.function.Consumer;
+
+/*
+    Transport that fans out L1 invalidations to every node sharing the same L2.
+*/
+public interface CacheInvalidationBus {
+    CacheInvalidationBus NONE = new CacheInvalidationBus() {
+        @Override
+        public void publish(CacheInvalidation invalidation) {
+        }
+
+        @Override
+        public void subscribe(Consumer<CacheInvalidation> listener) {
+        }
+    };
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,202 @@
+package com.project.ecommerceapp.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.ecommerceapp.dto.ResponseCacheStatsDto;
+import com.project.ecommerceapp.response.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    Pre-serialized JSON of hot product reads, a hit skips the DTO mapping and Jackson altogether.
+    - An entry holds the UTF-8 JSON and, for bodies of at least app.cache.response.gzip-min-size bytes, the same JSON
+      gzipped once when it is stored. Requests accepting gzip get that copy as is.
+    - Memory is bounded by app.cache.response.maximum-bytes, entries are weighed by the bytes they hold.
+    - Entries are namespaced by the service cache they mirror (productById, allProducts). Whatever evicts or clears
+      that cache, locally or through an invalidation from another node, drops the matching responses too.
+    - Only 200 responses are cached. A response built while an invalidation happened is served but not stored,
+      it may have been read before the write.
+*/
+@Component
+public class ResponseCache {
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedResponse> responses;
+    private final long maximumBytes;
+    private final int gzipMinSize;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter serializationBytesSaved;
+    private final Counter compressionBytesSaved;
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         TwoLevelCacheManager cacheManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.cache.response.maximum-bytes}") long maximumBytes,
+                         @Value("${app.cache.response.expire-after-write}") Duration expireAfterWrite,
+                         @Value("${app.cache.response.gzip-min-size}") int gzipMinSize) {
+        this.objectMapper = objectMapper;
+        this.maximumBytes = maximumBytes;
+        this.gzipMinSize = gzipMinSize;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, CachedResponse response) -> key.length() * 2 + response.weight())
+                .expireAfterWrite(expireAfterWrite)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        cacheManager.addInvalidationListener(this::invalidate);
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "responses");
+        Gauge.builder("cache.responses.bytes", responses, cache -> cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Bytes held by the serialized response cache")
+                .register(meterRegistry);
+        this.serializationBytesSaved = bytesSaved(meterRegistry, "serialization");
+        this.compressionBytesSaved = bytesSaved(meterRegistry, "compression");
+    }
+
+    /*
+        - Serves a response from the cache, or builds, serializes and stores it.
+        - cacheName : Service cache the response is derived from, its evictions invalidate the response.
+        - key       : Key of the response within that cache, productById entries must use the product id.
+        - loader    : Builds the response on a miss.
+        - Return the JSON bytes, gzipped when the request accepts it, or the loader's response when it is not a 200.
+    */
+    public ResponseEntity<?> serve(String cacheName, Object key, HttpServletRequest request,
+                                   Supplier<ResponseEntity<ApiResponse>> loader) {
+        String cacheKey = cacheName + ":" + key;
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        CachedResponse cached = responses.getIfPresent(cacheKey);
+        if (cached != null) {
+            serializationBytesSaved.increment(cached.json().length);
+            return toResponse(cached, gzip);
+        }
+
+        long invalidationsBefore = invalidations.get();
+        ResponseEntity<ApiResponse> response = loader.get();
+        if (response.getStatusCode() != HttpStatus.OK) {
+            return response;
+        }
+        CachedResponse built = serialize(response.getBody());
+        if (invalidations.get() == invalidationsBefore) {
+            responses.put(cacheKey, built);
+        }
+        return toResponse(built, gzip);
+    }
+
+    public ResponseCacheStatsDto getStats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = responses.stats();
+        ResponseCacheStatsDto dto = new ResponseCacheStatsDto();
+        dto.setEntries(responses.estimatedSize());
+        dto.setBytes(responses.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        dto.setMaximumBytes(maximumBytes);
+        dto.setHits(stats.hitCount());
+        dto.setMisses(stats.missCount());
+        dto.setHitRatio(stats.hitRate());
+        dto.setEvictions(stats.evictionCount());
+        dto.setSerializationBytesSaved((long) serializationBytesSaved.count());
+        dto.setCompressionBytesSaved((long) compressionBytesSaved.count());
+        return dto;
+    }
+
+    // a key of productById maps to one response, anything else drops the whole namespace
+    private void invalidate(String cacheName, String key) {
+        invalidations.incrementAndGet();
+        String prefix = cacheName + ":";
+        if (key != null && !cacheName.equals("allProducts")) {
+            responses.invalidate(prefix + key);
+        } else {
+            responses.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(prefix));
+        }
+    }
+
+    private CachedResponse serialize(ApiResponse body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] gzipped = json.length >= gzipMinSize ? gzip(json) : null;
+            return new CachedResponse(json, gzipped != null && gzipped.length < json.length ? gzipped : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    private ResponseEntity<byte[]> toResponse(CachedResponse response, boolean gzip) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip && response.gzip() != null) {
+            compressionBytesSaved.increment(response.json().length - response.gzip().length);
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.json());
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // gzip listed without q=0, or * when gzip is not listed at all
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean any = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].replace(" ", "");
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                    accepted = false;
+                }
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                gzip = accepted;
+            } else if (name.equals("*")) {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+
+    private static Counter bytesSaved(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("cache.responses.bytes.saved")
+                .description("Bytes not serialized again thanks to a cache hit, or not sent thanks to the gzipped copy")
+                .tag("reason", reason)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private record CachedResponse(byte[] json, byte[] gzip) {
+        int weight() {
+            return ENTRY_OVERHEAD + json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
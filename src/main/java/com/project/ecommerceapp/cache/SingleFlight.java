@@ -0,0 +1,97 @@
+package com.project.ecommerceapp.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+    Coalesces concurrent loads of the same key: the first caller runs the load in its own thread, callers arriving
+    while it runs wait for its result instead of running the same query again.
+    - Waiting is bounded by the timeout, a caller that gives up runs the load itself rather than fail the request.
+    - The value or the exception of a load is handed to every caller waiting on it, nothing is kept once it ends.
+    - forget drops the loads in flight, callers arriving after a write then start a new load instead of joining one
+      that may have read the data from before the write.
+*/
+public class SingleFlight {
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /*
+        - Runs the load, or waits for the one already running for the same key.
+        - key    : Identifies the load by equals, callers with equal keys must expect the same value.
+        - loader : Runs the load, its exceptions reach every caller waiting on it.
+    */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return (T) await(running, loader);
+        }
+        loads.increment();
+        try {
+            T value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /*
+        - Detaches the load in flight for a key, callers already waiting still get its result.
+    */
+    public void forget(Object key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    private Object await(CompletableFuture<Object> running, Supplier<?> loader) {
+        try {
+            return running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw (Error) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a load in flight", e);
+        }
+    }
+}
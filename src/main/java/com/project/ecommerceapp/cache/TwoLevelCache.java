@@ -0,0 +1,303 @@
+package com.project.ecommerceapp.cache;
+
+import com.project.ecommerceapp.dto.CacheStatsDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/*
+    Cache with a bounded in-process L1 (Caffeine) in front of a shared L2 (Redis).
+    - Reads check L1 first, then L2, and copy L2 hits into L1.
+    - Writes go to L2 first, then L1, and tell the other nodes to drop their L1 copy.
+    - L2 failures are logged and counted but never fail the request, the cache then behaves as L1 only.
+    - Concurrent misses for the same key share one load through a SingleFlight, callers waiting longer than its
+      timeout load on their own.
+    - An L1 entry older than refreshAfterWrite is stale: it is still served, and one background refresh per key
+      reloads it on the refresh executor. A full executor skips the refresh, the entry then expires as before.
+    - A load that overlapped an eviction or a clear of this cache returns its value without storing it, the value
+      may have been read before the write that caused the eviction.
+    Keys are normalized to strings so that local keys match the keys carried by invalidation messages.
+    Evictions and clears, local or received from another node, are reported to the invalidation listener with the
+    cache name and the key (null for a clear), so that data derived from the entries can be dropped along with them.
+*/
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final String nodeId;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Stamped> l1;
+    private final Cache l2;
+    private final CacheInvalidationBus invalidationBus;
+    private final BiConsumer<String, String> invalidationListener;
+    private final SingleFlight loads;
+    private final long refreshAfterWriteNanos;
+    private final Executor refreshExecutor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // bumped by every eviction and clear, a load only stores its value when no invalidation happened meanwhile
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder l2Errors = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    /*
+        - loads             : Coalesces the loads of this cache.
+        - refreshAfterWrite : Age from which an L1 entry is refreshed in the background, zero to never refresh.
+        - refreshExecutor   : Runs the refreshes, null to never refresh.
+    */
+    public TwoLevelCache(String name, String nodeId, com.github.benmanes.caffeine.cache.Cache<String, Stamped> l1,
+                         Cache l2, CacheInvalidationBus invalidationBus, BiConsumer<String, String> invalidationListener,
+                         SingleFlight loads, Duration refreshAfterWrite, Executor refreshExecutor) {
+        this.name = name;
+        this.nodeId = nodeId;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidationBus = invalidationBus;
+        this.invalidationListener = invalidationListener;
+        this.loads = loads;
+        this.refreshAfterWriteNanos = refreshAfterWrite.toNanos();
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l1;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookup(toKey(key));
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(toKey(key));
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = toKey(key);
+        Stamped entry = l1.getIfPresent(cacheKey);
+        if (entry != null) {
+            if (refreshAfterWriteNanos > 0 && System.nanoTime() - entry.loadedAt() >= refreshAfterWriteNanos) {
+                staleHits.increment();
+                refresh(key, cacheKey, valueLoader);
+            }
+            return (T) entry.value();
+        }
+        return (T) loads.execute(cacheKey, () -> {
+            long generation = invalidations.get();
+            Object value = getFromL2(cacheKey);
+            if (value == null) {
+                value = load(key, valueLoader);
+                if (value != null && generation == invalidations.get()) {
+                    putToL2(cacheKey, value);
+                }
+            }
+            if (value != null && generation == invalidations.get()) {
+                l1.put(cacheKey, new Stamped(value, System.nanoTime()));
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = toKey(key);
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        putToL2(cacheKey, value);
+        l1.put(cacheKey, new Stamped(value, System.nanoTime()));
+        invalidationBus.publish(new CacheInvalidation(nodeId, name, cacheKey));
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = toKey(key);
+        if (l2 != null) {
+            try {
+                l2.evict(cacheKey);
+            } catch (RuntimeException e) {
+                onL2Error("evict", e);
+            }
+        }
+        invalidateL1(cacheKey);
+        invalidationListener.accept(name, cacheKey);
+        invalidationBus.publish(new CacheInvalidation(nodeId, name, cacheKey));
+    }
+
+    @Override
+    public void clear() {
+        if (l2 != null) {
+            try {
+                l2.clear();
+            } catch (RuntimeException e) {
+                onL2Error("clear", e);
+            }
+        }
+        invalidateL1(null);
+        invalidationListener.accept(name, null);
+        invalidationBus.publish(new CacheInvalidation(nodeId, name, null));
+    }
+
+    /*
+        - Applies an invalidation received from another node to the local L1 only.
+        - key : The key to drop, null to drop every entry.
+    */
+    public void evictLocal(String key) {
+        remoteInvalidations.increment();
+        invalidateL1(key);
+        invalidationListener.accept(name, key);
+    }
+
+    public CacheStatsDto getStats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats l1Stats = l1.stats();
+        CacheStatsDto stats = new CacheStatsDto();
+        stats.setName(name);
+        stats.setL1Size(l1.estimatedSize());
+        stats.setL1Hits(l1Stats.hitCount());
+        stats.setL1Misses(l1Stats.missCount());
+        stats.setL1Evictions(l1Stats.evictionCount());
+        stats.setL2Hits(l2Hits.sum());
+        stats.setL2Misses(l2Misses.sum());
+        stats.setL2Errors(l2Errors.sum());
+        stats.setRemoteInvalidations(remoteInvalidations.sum());
+        stats.setLoads(loads.getLoads());
+        stats.setCoalesced(loads.getCoalesced());
+        stats.setCoalesceTimeouts(loads.getTimeouts());
+        stats.setStaleHits(staleHits.sum());
+        stats.setRefreshes(refreshes.sum());
+        stats.setRefreshFailures(refreshFailures.sum());
+        return stats;
+    }
+
+    private Object lookup(String key) {
+        Stamped entry = l1.getIfPresent(key);
+        if (entry != null) {
+            return entry.value();
+        }
+        Object value = getFromL2(key);
+        if (value != null) {
+            l1.put(key, new Stamped(value, System.nanoTime()));
+        }
+        return value;
+    }
+
+    // the refresh joins a load in flight for the key, and goes to the loader since L2 holds the same aging value
+    private void refresh(Object key, String cacheKey, Callable<?> valueLoader) {
+        if (refreshExecutor == null || !refreshing.add(cacheKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loads.execute(cacheKey, () -> {
+                        long generation = invalidations.get();
+                        Object value = load(key, valueLoader);
+                        if (value != null && generation == invalidations.get()) {
+                            putToL2(cacheKey, value);
+                            l1.put(cacheKey, new Stamped(value, System.nanoTime()));
+                        }
+                        return value;
+                    });
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    logger.warn("Refresh failed for cache: {}, key: {}, {}", name, cacheKey, e.getMessage());
+                } finally {
+                    refreshing.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(cacheKey);
+        }
+    }
+
+    private static Object load(Object key, Callable<?> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void invalidateL1(String key) {
+        invalidations.incrementAndGet();
+        if (key == null) {
+            loads.forgetAll();
+            l1.invalidateAll();
+        } else {
+            loads.forget(key);
+            l1.invalidate(key);
+        }
+    }
+
+    private Object getFromL2(String key) {
+        if (l2 == null) {
+            return null;
+        }
+        try {
+            ValueWrapper wrapper = l2.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                l2Hits.increment();
+                return wrapper.get();
+            }
+        } catch (RuntimeException e) {
+            onL2Error("get", e);
+        }
+        l2Misses.increment();
+        return null;
+    }
+
+    private void putToL2(String key, Object value) {
+        if (l2 == null) {
+            return;
+        }
+        try {
+            l2.put(key, value);
+        } catch (RuntimeException e) {
+            onL2Error("put", e);
+        }
+    }
+
+    private void onL2Error(String operation, RuntimeException e) {
+        l2Errors.increment();
+        logger.warn("L2 cache {} failed for cache: {}, {}", operation, name, e.getMessage());
+    }
+
+    private static String toKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    // an L1 value with the System.nanoTime() it was loaded or written at
+    record Stamped(Object value, long loadedAt) {
+    }
+}
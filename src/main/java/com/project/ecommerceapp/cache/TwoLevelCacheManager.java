@@ -0,0 +1,127 @@
+package com.project.ecommerceapp.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.ecommerceapp.dto.CacheStatsDto;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/*
+    Creates a TwoLevelCache per cache name on first use.
+    - l2CacheManager      : Supplies the shared L2 cache for each name, null to run with L1 only.
+    - invalidationBus     : Carries invalidations between nodes, CacheInvalidationBus.NONE on a single node.
+    - l1RefreshAfterWrite : Age from which L1 entries are served stale and refreshed in the background, below
+                            l1ExpireAfterWrite to have an effect, zero to disable.
+    - loadTimeout         : How long a caller waits for the load of the same key already running before loading
+                            itself.
+    - refreshThreads      : Threads shared by the background refreshes of every cache.
+*/
+public class TwoLevelCacheManager implements CacheManager {
+    private static final int REFRESH_QUEUE_CAPACITY = 1000;
+
+    private final CacheManager l2CacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final long l1MaximumSize;
+    private final Duration l1ExpireAfterWrite;
+    private final Duration l1RefreshAfterWrite;
+    private final Duration loadTimeout;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public TwoLevelCacheManager(CacheManager l2CacheManager, CacheInvalidationBus invalidationBus,
+                                long l1MaximumSize, Duration l1ExpireAfterWrite) {
+        this(l2CacheManager, invalidationBus, l1MaximumSize, l1ExpireAfterWrite, Duration.ZERO, Duration.ofSeconds(5), 1);
+    }
+
+    public TwoLevelCacheManager(CacheManager l2CacheManager, CacheInvalidationBus invalidationBus,
+                                long l1MaximumSize, Duration l1ExpireAfterWrite, Duration l1RefreshAfterWrite,
+                                Duration loadTimeout, int refreshThreads) {
+        this.l2CacheManager = l2CacheManager;
+        this.invalidationBus = invalidationBus;
+        this.l1MaximumSize = l1MaximumSize;
+        this.l1ExpireAfterWrite = l1ExpireAfterWrite;
+        this.l1RefreshAfterWrite = l1RefreshAfterWrite;
+        this.loadTimeout = loadTimeout;
+        // a refresh per stale key at most, when the queue is full the entry is served stale until it expires
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public List<CacheStatsDto> getStats() {
+        return caches.values().stream().map(TwoLevelCache::getStats).toList();
+    }
+
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /*
+        - Registers a listener told about every eviction and clear of any cache, including those received from
+          other nodes. Puts are not reported, a value written by another node reaches this one as an eviction.
+        - listener : Called with the cache name and the evicted key, or null when the whole cache was cleared.
+    */
+    public void addInvalidationListener(BiConsumer<String, String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.Stamped> l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize)
+                .expireAfterWrite(l1ExpireAfterWrite)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        Cache l2 = l2CacheManager != null ? l2CacheManager.getCache(name) : null;
+        return new TwoLevelCache(name, nodeId, l1, l2, invalidationBus, this::notifyInvalidation,
+                new SingleFlight(loadTimeout), l1RefreshAfterWrite, refreshExecutor);
+    }
+
+    private void notifyInvalidation(String cacheName, String key) {
+        invalidationListeners.forEach(listener -> listener.accept(cacheName, key));
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.nodeId())) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.ecommerceapp.capture;
+
+/*
+    One request as recorded by the WorkloadCaptureFilter, written as one JSON line.
+    - at       : Epoch milliseconds when the request arrived.
+    - query    : Raw query string, null without parameters.
+    - bytes    : Request body size from Content-Length, -1 when the client did not send one.
+    - micros   : Time until the response was complete, including the streamed part of async responses.
+    - endpoint : Handler pattern such as /api/v1/product/id/{productId}, the path when no handler was reached.
+*/
+public record CapturedRequest(long at, String method, String path, String query, long bytes, int status,
+                              long micros, String endpoint) {
+}
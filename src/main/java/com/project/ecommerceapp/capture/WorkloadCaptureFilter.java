@@ -0,0 +1,83 @@
+package com.project.ecommerceapp.capture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+    Records the method, path, parameters, body size, status and duration of every request it sees, so that the
+    production load shape can be replayed against another build (see WorkloadReplay in src/jmh/java).
+    Request bodies are not recorded, only their size. Lines go to the sink, the workload.capture logger in the
+    application, which writes them through its own ring buffer to a rolling gzipped file and drops them when full.
+*/
+public class WorkloadCaptureFilter extends OncePerRequestFilter {
+    private final ObjectMapper objectMapper;
+    private final Consumer<String> sink;
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadCaptureFilter.class);
+
+    public WorkloadCaptureFilter(ObjectMapper objectMapper, Consumer<String> sink) {
+        this.objectMapper = objectMapper;
+        this.sink = sink;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long at = System.currentTimeMillis();
+        long startedAt = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // streamed responses are recorded when they complete, async dispatches do not pass this filter again
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response, at, startedAt);
+                    }
+
+                    // a timed out or failed response still ends with onComplete
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, response, at, startedAt);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long at, long startedAt) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        CapturedRequest captured = new CapturedRequest(at, request.getMethod(), request.getRequestURI(),
+                request.getQueryString(), request.getContentLengthLong(), response.getStatus(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt),
+                pattern != null ? pattern.toString() : request.getRequestURI());
+        try {
+            sink.accept(objectMapper.writeValueAsString(captured));
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not record request: {}, {}", request.getRequestURI(), e.getMessage());
+        }
+    }
+}
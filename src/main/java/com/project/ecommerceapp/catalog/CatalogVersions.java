@@ -0,0 +1,128 @@
+package com.project.ecommerceapp.catalog;
+
+import com.project.ecommerceapp.cache.CacheInvalidation;
+import com.project.ecommerceapp.cache.CacheInvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/*
+    Hands out the change version catalog writes stamp on the product and category rows they touch.
+    - A transaction takes one version, on its first call to next(), by incrementing the single catalog_version row.
+      That row stays locked until the transaction ends, so versions commit in increasing order and a reader that
+      sees version n also sees every version below it. A rolled back transaction gives its version back.
+    - Take the version before writing any catalog row, so every writer locks the counter first and writers cannot
+      deadlock on each other's rows. Categories created through the CategoryDictionary commit in their own
+      transaction, resolve them before taking the version or that transaction waits on the counter held here.
+    - Deletes leave a tombstone carrying the version, a client catching up learns about them like any other change.
+    - Committed versions are passed to the listeners, and to the other nodes over the CacheInvalidationBus.
+*/
+@Component
+public class CatalogVersions {
+    public static final String PRODUCT = "product";
+    public static final String CATEGORY = "category";
+    static final String CHANNEL_NAME = "catalogChanges";
+
+    private static final String INCREMENT = "update catalog_version set version = version + 1 where id = 1";
+    private static final String SELECT = "select version from catalog_version where id = 1";
+    private static final String INSERT_TOMBSTONE = "insert into catalog_tombstone (entity, entity_id, change_version) values (?, ?, ?)";
+    private static final String TOUCH_PRODUCT = "update product set change_version = ? where id = ?";
+    private static final String TOUCH_CATEGORY_PRODUCTS = "update product set change_version = ? where category_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersions.class);
+
+    public CatalogVersions(JdbcTemplate jdbcTemplate, ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus.getIfAvailable(() -> CacheInvalidationBus.NONE);
+        this.invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    /*
+        - Returns the change version of the current transaction, taking one on the first call.
+        - Throws IllegalStateException outside of a transaction, the version would be committed on its own.
+    */
+    public long next() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Catalog versions are taken inside the writing transaction");
+        }
+        // synchronizations are suspended together with their transaction, so this only finds the current one's
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Taken taken) {
+                return taken.version;
+            }
+        }
+        jdbcTemplate.update(INCREMENT);
+        long version = jdbcTemplate.queryForObject(SELECT, Long.class);
+        TransactionSynchronizationManager.registerSynchronization(new Taken(version));
+        return version;
+    }
+
+    /*
+        - Records the delete of a product or category in the current transaction.
+        - entity : PRODUCT or CATEGORY.
+    */
+    public void tombstone(String entity, Long id) {
+        jdbcTemplate.update(INSERT_TOMBSTONE, entity, id, next());
+    }
+
+    /*
+        - Marks a product changed when something its payload is built from changed, such as its images.
+    */
+    public void touchProduct(Long productId) {
+        jdbcTemplate.update(TOUCH_PRODUCT, next(), productId);
+    }
+
+    /*
+        - Marks every product of a category changed, their payload carries the category name.
+    */
+    public void touchCategoryProducts(Long categoryId) {
+        int touched = jdbcTemplate.update(TOUCH_CATEGORY_PRODUCTS, next(), categoryId);
+        logger.info("Category {} changed, {} products marked changed", categoryId, touched);
+    }
+
+    /*
+        - Registers a listener called with every committed version, from this node or another one.
+    */
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    private void committed(long version) {
+        listeners.forEach(listener -> listener.accept(version));
+        invalidationBus.publish(new CacheInvalidation(nodeId, CHANNEL_NAME, String.valueOf(version)));
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.nodeId()) || !CHANNEL_NAME.equals(invalidation.cacheName())) {
+            return;
+        }
+        long version = Long.parseLong(invalidation.key());
+        listeners.forEach(listener -> listener.accept(version));
+    }
+
+    private class Taken implements TransactionSynchronization {
+        private final long version;
+
+        Taken(long version) {
+            this.version = version;
+        }
+
+        @Override
+        public void afterCommit() {
+            committed(version);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.project.ecommerceapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.admission.AdaptiveConcurrencyLimit;
+import com.project.ecommerceapp.admission.AdmissionFilter;
+import com.project.ecommerceapp.admission.ClientRateLimiter;
+import com.project.ecommerceapp.datasource.BoundedDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+    Puts the AdmissionFilter in front of the API controllers, the actuator endpoints and health checks are not behind it.
+    - app.admission.*-limit             : Bounds of the adaptive concurrency limit and where it starts.
+    - app.admission.latency-threshold   : Read latency from which the limit backs off.
+    - app.admission.write-share         : Fraction of the limit writes may use, uploads use upload-share, reads all of it.
+    - app.admission.pool-wait-deadline  : Estimated connection wait from which writes and uploads are turned away.
+    - app.admission.rate-limit.*        : Token bucket per client address, as forwarded by the load balancer. Off by default
+                                          (per-second=0).
+*/
+@Configuration
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+    @Value("${api.prefix}")
+    private String apiPrefix;
+
+    @Value("${app.admission.initial-limit:100}")
+    private int initialLimit;
+
+    @Value("${app.admission.min-limit:10}")
+    private int minLimit;
+
+    @Value("${app.admission.max-limit:400}")
+    private int maxLimit;
+
+    @Value("${app.admission.latency-threshold:250ms}")
+    private Duration latencyThreshold;
+
+    @Value("${app.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${app.admission.write-share:0.7}")
+    private double writeShare;
+
+    @Value("${app.admission.upload-share:0.3}")
+    private double uploadShare;
+
+    @Value("${app.admission.pool-wait-deadline:1s}")
+    private Duration poolWaitDeadline;
+
+    @Value("${app.admission.retry-after:1s}")
+    private Duration retryAfter;
+
+    @Value("${app.admission.rate-limit.per-second:0}")
+    private double ratePerSecond;
+
+    @Value("${app.admission.rate-limit.burst:100}")
+    private int rateBurst;
+
+    @Value("${app.admission.rate-limit.clients:10000}")
+    private long rateClients;
+
+    @Bean
+    public AdmissionFilter admissionFilter(ObjectProvider<DataSource> dataSource, ObjectMapper objectMapper) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio);
+        ClientRateLimiter rateLimiter = ratePerSecond > 0 ? new ClientRateLimiter(ratePerSecond, rateBurst, rateClients) : null;
+        BoundedDataSource bounded = dataSource.getIfAvailable() instanceof BoundedDataSource pool ? pool : null;
+        return new AdmissionFilter(limit, rateLimiter, bounded, poolWaitDeadline, writeShare, uploadShare, retryAfter, objectMapper);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilterRegistration(AdmissionFilter admissionFilter) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(admissionFilter);
+        registration.addUrlPatterns(apiPrefix + "/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,112 @@
+package com.project.ecommerceapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.cache.CacheInvalidationBus;
+import com.project.ecommerceapp.cache.RedisCacheInvalidationBus;
+import com.project.ecommerceapp.cache.SingleFlight;
+import com.project.ecommerceapp.cache.TwoLevelCacheManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/*
+    Wires the two level cache used by the @Cacheable service methods.
+    With app.cache.redis.enabled=false every node only keeps its own bounded L1.
+*/
+@Configuration
+public class CacheConfig {
+    @Value("${app.cache.l1.maximum-size:10000}")
+    private long l1MaximumSize;
+
+    @Value("${app.cache.l1.expire-after-write:5m}")
+    private Duration l1ExpireAfterWrite;
+
+    @Value("${app.cache.l1.refresh-after-write:0s}")
+    private Duration l1RefreshAfterWrite;
+
+    @Value("${app.cache.load-timeout:5s}")
+    private Duration loadTimeout;
+
+    @Value("${app.cache.refresh-threads:2}")
+    private int refreshThreads;
+
+    @Value("${app.cache.l2.time-to-live:30m}")
+    private Duration l2TimeToLive;
+
+    @Value("${app.cache.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${app.cache.invalidation-channel:ecommerce-app:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Bean
+    public KeyGenerator customKeyGenerator() {
+        return new CustomKeyGenerator();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisCacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        return new RedisCacheInvalidationBus(redisTemplate, objectMapper, invalidationChannel);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           RedisCacheInvalidationBus cacheInvalidationBus,
+                                                                           @Qualifier("applicationTaskExecutor") ObjectProvider<Executor> taskExecutor) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // the shared task executor runs on virtual threads when spring.threads.virtual.enabled=true
+        taskExecutor.ifAvailable(container::setTaskExecutor);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                             ObjectProvider<CacheInvalidationBus> cacheInvalidationBus) {
+        RedisCacheManager l2CacheManager = null;
+        if (redisEnabled) {
+            RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+                    .entryTtl(l2TimeToLive)
+                    .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.json()));
+            l2CacheManager = RedisCacheManager.builder(connectionFactory.getObject())
+                    .cacheDefaults(cacheConfiguration)
+                    .build();
+            l2CacheManager.afterPropertiesSet();
+        }
+        return new TwoLevelCacheManager(l2CacheManager, cacheInvalidationBus.getIfAvailable(() -> CacheInvalidationBus.NONE),
+                l1MaximumSize, l1ExpireAfterWrite, l1RefreshAfterWrite, loadTimeout, refreshThreads);
+    }
+
+    /*
+        Coalesces the product list and filter queries that are not cached. Every product write clears the allProducts
+        cache, the queries in flight are dropped with it so that nobody arriving after a write joins an older read.
+    */
+    @Bean
+    public SingleFlight productQueries(TwoLevelCacheManager cacheManager) {
+        SingleFlight productQueries = new SingleFlight(loadTimeout);
+        cacheManager.addInvalidationListener((cacheName, key) -> {
+            if ("allProducts".equals(cacheName)) {
+                productQueries.forgetAll();
+            }
+        });
+        return productQueries;
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.ecommerceapp.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.capture.WorkloadCaptureFilter;
+import com.project.ecommerceapp.logging.MeteredAsyncAppender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/*
+    Records every API request to the workload.capture logger when app.capture.enabled=true. The logger and its
+    appenders are only attached here, so nothing is opened or created on disk while capture is off.
+    - The file is app.capture.file, rolled at app.capture.max-file-size and every day into gzipped parts kept 7 days
+      and at most app.capture.total-size-cap.
+    - Lines go through their own ring buffer, so that capture never waits on the application logs, a full buffer drops the line.
+    The filter runs before the admission control, so that shed requests are part of the recorded load.
+*/
+@Configuration
+@ConditionalOnProperty(name = "app.capture.enabled", havingValue = "true")
+public class CaptureConfig implements DisposableBean {
+    static final String CAPTURE_LOGGER = "workload.capture";
+
+    @Value("${api.prefix}")
+    private String apiPrefix;
+
+    @Value("${app.capture.file:/opt/sample-application/capture/requests.jsonl}")
+    private String file;
+
+    @Value("${app.capture.max-file-size:100MB}")
+    private String maxFileSize;
+
+    @Value("${app.capture.total-size-cap:2GB}")
+    private String totalSizeCap;
+
+    @Value("${app.logging.async.ring-buffer-size:8192}")
+    private int ringBufferSize;
+
+    @Bean
+    public FilterRegistrationBean<WorkloadCaptureFilter> workloadCaptureFilterRegistration(ObjectMapper objectMapper,
+                                                                                          MeteredAsyncAppender workloadCaptureAppender) {
+        Logger captureLogger = LoggerFactory.getLogger(CAPTURE_LOGGER);
+        FilterRegistrationBean<WorkloadCaptureFilter> registration =
+                new FilterRegistrationBean<>(new WorkloadCaptureFilter(objectMapper, captureLogger::info));
+        registration.addUrlPatterns(apiPrefix + "/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /*
+        - Attaches the rolling capture file, behind its ring buffer, to the workload.capture logger.
+        - Detached and stopped with the context by destroy, which flushes the lines still in the ring buffer.
+    */
+    @Bean(destroyMethod = "")
+    public MeteredAsyncAppender workloadCaptureAppender() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+
+        RollingFileAppender<ILoggingEvent> fileAppender = new RollingFileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setName("CAPTURE_FILE");
+        fileAppender.setFile(file);
+        fileAppender.setEncoder(encoder);
+
+        SizeAndTimeBasedRollingPolicy<ILoggingEvent> rollingPolicy = new SizeAndTimeBasedRollingPolicy<>();
+        rollingPolicy.setContext(context);
+        rollingPolicy.setParent(fileAppender);
+        rollingPolicy.setFileNamePattern(file + ".%d{yyyy-MM-dd}.%i.gz");
+        rollingPolicy.setMaxFileSize(FileSize.valueOf(maxFileSize));
+        rollingPolicy.setTotalSizeCap(FileSize.valueOf(totalSizeCap));
+        rollingPolicy.setMaxHistory(7);
+        rollingPolicy.start();
+        fileAppender.setRollingPolicy(rollingPolicy);
+        fileAppender.start();
+
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setName("CAPTURE");
+        appender.setRingBufferSize(ringBufferSize);
+        appender.addAppender(fileAppender);
+        appender.start();
+
+        ch.qos.logback.classic.Logger logger = context.getLogger(CAPTURE_LOGGER);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return appender;
+    }
+
+    @Override
+    public void destroy() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(CAPTURE_LOGGER).detachAndStopAllAppenders();
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.ecommerceapp.config;
+
+import com.project.ecommerceapp.datasource.BoundedDataSource;
+import com.project.ecommerceapp.datasource.ReadYourWritesInterceptor;
+import com.project.ecommerceapp.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Puts the auto-configured connection pool behind a BoundedDataSource, and behind a ReplicaRoutingDataSource
+    first when read replicas are configured.
+    - spring.datasource.hikari.maximum-pool-size  : Open connections, sized for the database rather than the request threads.
+    - app.datasource.max-waiting                  : Callers allowed to queue for a connection on top of that.
+    - app.datasource.replica.urls                 : JDBC urls of the read replicas, empty sends everything to the primary.
+    - app.datasource.replica.pool-size            : Open connections per replica.
+    - app.datasource.replica.health-check-interval: How often replicas taken out of rotation are checked again.
+*/
+@Configuration
+public class DataSourceConfig implements WebMvcConfigurer {
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BoundedDataSource) {
+                    return bean;
+                }
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int maxWaiting = environment.getProperty("app.datasource.max-waiting", Integer.class, 200);
+                return new BoundedDataSource(withReplicas(dataSource, environment), poolSize, poolSize + maxWaiting);
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor());
+    }
+
+    private static DataSource withReplicas(DataSource primary, Environment environment) {
+        String[] urls = environment.getProperty("app.datasource.replica.urls", String[].class, new String[0]);
+        if (urls.length == 0) {
+            return primary;
+        }
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(environment.getProperty("app.datasource.replica.username", environment.getProperty("spring.datasource.username")));
+            replica.setPassword(environment.getProperty("app.datasource.replica.password", environment.getProperty("spring.datasource.password")));
+            replica.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name"));
+            replica.setMaximumPoolSize(environment.getProperty("app.datasource.replica.pool-size", Integer.class,
+                    environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10)));
+            replica.setConnectionTimeout(environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        Duration healthCheck = environment.getProperty("app.datasource.replica.health-check-interval", Duration.class, Duration.ofSeconds(5));
+        // the route is chosen at the first statement, once the transaction is known to be read-only
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, healthCheck));
+    }
+}
@@ -0,0 +1,149 @@
+package com.project.ecommerceapp.config;
+
+import com.project.ecommerceapp.admission.AdaptiveConcurrencyLimit;
+import com.project.ecommerceapp.admission.AdmissionFilter;
+import com.project.ecommerceapp.cache.SingleFlight;
+import com.project.ecommerceapp.datasource.BoundedDataSource;
+import com.project.ecommerceapp.datasource.ReplicaRoutingDataSource;
+import com.project.ecommerceapp.metrics.HandlerServerRequestObservationConvention;
+import com.project.ecommerceapp.metrics.RequestStatementCounter;
+import com.project.ecommerceapp.metrics.RequestStatementInterceptor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/*
+    Instrumentation on top of what Spring Boot already records: http.server.requests, repository invocations
+    and the Hikari pool. Bucket boundaries for the histograms are set in application.properties.
+    - http.server.requests          : Tagged with the controller method that served the request.
+    - hibernate.request.statements  : Statements Hibernate prepared per request and controller method.
+    - datasource.admission.*        : Callers holding or waiting for a connection, and callers turned away.
+    - datasource.routing.*          : Connections handed out by the primary and the replicas, failovers from a replica
+                                      and replicas in rotation, only when replicas are configured.
+    - product.queries.*             : Product list and filter queries run, and requests that shared a query in flight.
+    - http.admission.*              : Adaptive concurrency limit of the API, requests in flight and requests shed, by
+                                      priority and reason.
+*/
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MetricsConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public ServerRequestObservationConvention handlerServerRequestObservationConvention() {
+        return new HandlerServerRequestObservationConvention();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer requestStatementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new RequestStatementCounter());
+    }
+
+    @Bean
+    public MeterBinder dataSourceAdmissionMetrics(ObjectProvider<DataSource> dataSource) {
+        return registry -> {
+            if (!(dataSource.getIfAvailable() instanceof BoundedDataSource bounded)) {
+                return;
+            }
+            Gauge.builder("datasource.admission.limit", bounded, BoundedDataSource::getMaxConcurrent)
+                    .description("Callers allowed to hold or wait for a connection at once")
+                    .register(registry);
+            Gauge.builder("datasource.admission.in.use", bounded, BoundedDataSource::getInUse)
+                    .description("Callers holding or waiting for a connection")
+                    .register(registry);
+            FunctionCounter.builder("datasource.admission.rejected", bounded, BoundedDataSource::getRejected)
+                    .description("Callers turned away because the limit was reached")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceRoutingMetrics(ObjectProvider<DataSource> dataSource) {
+        return registry -> {
+            ReplicaRoutingDataSource routing = routingOf(dataSource.getIfAvailable());
+            if (routing == null) {
+                return;
+            }
+            FunctionCounter.builder("datasource.routing.connections", routing, ReplicaRoutingDataSource::getPrimaryConnections)
+                    .description("Connections handed out, by the database that served them")
+                    .tag("target", "primary")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routing.connections", routing, ReplicaRoutingDataSource::getReplicaConnections)
+                    .description("Connections handed out, by the database that served them")
+                    .tag("target", "replica")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routing.failovers", routing, ReplicaRoutingDataSource::getFailovers)
+                    .description("Replicas taken out of rotation because they failed to hand out a connection")
+                    .register(registry);
+            Gauge.builder("datasource.routing.replicas.healthy", routing, ReplicaRoutingDataSource::getHealthyReplicas)
+                    .description("Replicas in rotation for read-only transactions")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productQueryMetrics(ObjectProvider<SingleFlight> productQueries) {
+        return registry -> productQueries.ifAvailable(queries -> {
+            FunctionCounter.builder("product.queries.loads", queries, SingleFlight::getLoads)
+                    .description("Product list and filter queries sent to the database")
+                    .register(registry);
+            FunctionCounter.builder("product.queries.coalesced", queries, SingleFlight::getCoalesced)
+                    .description("Requests that waited for an identical query in flight instead of running it")
+                    .register(registry);
+            FunctionCounter.builder("product.queries.timeouts", queries, SingleFlight::getTimeouts)
+                    .description("Coalesced requests that gave up waiting and ran the query themselves")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(ObjectProvider<AdmissionFilter> admissionFilter) {
+        return registry -> admissionFilter.ifAvailable(filter -> {
+            Gauge.builder("http.admission.limit", filter.getLimit(), AdaptiveConcurrencyLimit::getLimit)
+                    .description("Concurrent API requests currently allowed")
+                    .register(registry);
+            Gauge.builder("http.admission.in.flight", filter.getLimit(), AdaptiveConcurrencyLimit::getInFlight)
+                    .description("API requests being served")
+                    .register(registry);
+            for (AdmissionFilter.Priority priority : AdmissionFilter.Priority.values()) {
+                for (AdmissionFilter.Reason reason : AdmissionFilter.Reason.values()) {
+                    FunctionCounter.builder("http.admission.shed", filter, admission -> admission.getShed(priority, reason))
+                            .description("API requests turned away before reaching a controller")
+                            .tag("priority", priority.name().toLowerCase())
+                            .tag("reason", reason.name().toLowerCase())
+                            .register(registry);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        meterRegistry.ifAvailable(meters -> registry.addInterceptor(new RequestStatementInterceptor(meters)));
+    }
+
+    private static ReplicaRoutingDataSource routingOf(DataSource dataSource) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                    ? dataSource.unwrap(ReplicaRoutingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.cache.ResponseCache;
+import com.project.ecommerceapp.cache.TwoLevelCacheManager;
+import com.project.ecommerceapp.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("${api.prefix}/cache")
+public class CacheController {
+    private final TwoLevelCacheManager cacheManager;
+    private final ResponseCache responseCache;
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse> getCacheStats(){
+        return ResponseEntity.ok(new ApiResponse("Cache stats:", cacheManager.getStats()));
+    }
+
+    @GetMapping("/stats/responses")
+    public ResponseEntity<ApiResponse> getResponseCacheStats(){
+        return ResponseEntity.ok(new ApiResponse("Response cache stats:", responseCache.getStats()));
+    }
+}
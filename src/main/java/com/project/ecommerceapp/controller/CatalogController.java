@@ -0,0 +1,41 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.dto.CatalogChangesDto;
+import com.project.ecommerceapp.response.ApiResponse;
+import com.project.ecommerceapp.service.catalog.CatalogChangeService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("${api.prefix}/catalog")
+public class CatalogController {
+    private final CatalogChangeService catalogChangeService;
+    private static final Logger logger = LoggerFactory.getLogger(CatalogController.class);
+
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                  @RequestParam(required = false) Integer limit){
+        if (since < 0) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse("Invalid version: " + since, null));
+        }
+        CatalogChangesDto changes = catalogChangeService.getChanges(since, limit);
+        return ResponseEntity.ok(new ApiResponse("Changes:", changes));
+    }
+
+    // a reconnecting EventSource sends the id of the last event it received, which takes over from since
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        Long from = lastEventId != null ? lastEventId : since;
+        logger.info("Streaming catalog changes after version: {}", from);
+        return catalogChangeService.subscribe(from);
+    }
+}
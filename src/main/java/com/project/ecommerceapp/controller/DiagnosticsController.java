@@ -0,0 +1,41 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.datasource.BoundedDataSource;
+import com.project.ecommerceapp.diagnostics.PinnedThreadMonitor;
+import com.project.ecommerceapp.dto.DataSourceStatsDto;
+import com.project.ecommerceapp.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("${api.prefix}/diagnostics")
+public class DiagnosticsController {
+    private final PinnedThreadMonitor pinnedThreadMonitor;
+    private final DataSource dataSource;
+
+    @GetMapping("/pinning")
+    public ResponseEntity<ApiResponse> getPinnedSites(){
+        String message = pinnedThreadMonitor.isRunning() ? "Pinned virtual threads:" : "Pinned thread monitor is not running";
+        return ResponseEntity.ok(new ApiResponse(message, pinnedThreadMonitor.getSites()));
+    }
+
+    @GetMapping("/datasource")
+    public ResponseEntity<ApiResponse> getDataSourceStats(){
+        if (!(dataSource instanceof BoundedDataSource bounded)) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Connection admission is not configured", null));
+        }
+        DataSourceStatsDto stats = new DataSourceStatsDto();
+        stats.setMaxConcurrent(bounded.getMaxConcurrent());
+        stats.setInUse(bounded.getInUse());
+        stats.setRejected(bounded.getRejected());
+        return ResponseEntity.ok(new ApiResponse("Connection admission:", stats));
+    }
+}
@@ -1,48 +1,165 @@
 package com.project.ecommerceapp.controller;
 
-import com.project.ecommerceapp.dto.ImageDto;
+import com.project.ecommerceapp.dto.ImageUploadResultDto;
 import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.metrics.ImageMetrics;
 import com.project.ecommerceapp.model.Image;
 import com.project.ecommerceapp.response.ApiResponse;
 import com.project.ecommerceapp.service.image.ImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.sql.Blob;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Optional;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PARTIAL_CONTENT;
+import static org.springframework.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("${api.prefix}/images")
 public class ImageController {
     private final ImageService imageService;
+    private final ImageMetrics imageMetrics;
 
+    private static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDATE = "public, no-cache";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /*
+        Uploads the files of one request for a product, rejected files are listed in the result with the reason.
+        - 200 when at least one file was stored, 400 when every file was rejected, 404 when the product does not exist.
+    */
     @PostMapping("/")
     public ResponseEntity<ApiResponse> saveImages(@RequestParam List<MultipartFile> files, @RequestParam Long productId){
         try {
-            List<ImageDto> imageDtos = imageService.saveImages(productId, files);
-            return ResponseEntity.ok(new ApiResponse("Upload Successfull", imageDtos));
+            ImageUploadResultDto result = imageService.saveImages(productId, files);
+            if (result.getImages().isEmpty()) {
+                return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse("Upload Failed!", result));
+            }
+            return ResponseEntity.ok(new ApiResponse(result.getFailed() == 0 ? "Upload Successfull" : "Upload Partially Failed", result));
+        } catch (ResourceException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Upload Failed!", e.getMessage()));
         }
     }
 
+    /*
+        Downloads an image with HTTP caching semantics.
+        - The content hash is the strong ETag, If-None-Match is answered with 304 before any content is read.
+        - A single byte range is answered with 206, an unsatisfiable one with 416, multiple ranges get the full content.
+        - v    : Optional version, when it equals the content hash the URL can never change content and is cached for a year.
+        - size : Optional variant name from app.image.variants, 400 when it is not configured. The original is served
+                 until the variant has been generated.
+    */
     @GetMapping("/download/{imageId}")
-    public ResponseEntity<Resource> downloadImage(@PathVariable Long imageId) throws SQLException {
-        Image image = imageService.getImageById(imageId);
-        ByteArrayResource resource = new ByteArrayResource(image.getImage().getBytes(1, (int) image.getImage().length()));
-        return ResponseEntity.ok().contentType(MediaType.parseMediaType(image.getFileType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "Attachment; filename=\"" +image.getFileName() + "\"")
-                .body(resource);
+    public void downloadImage(@PathVariable Long imageId, @RequestParam(required = false) String v,
+                              @RequestParam(required = false) String size, WebRequest webRequest,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException, SQLException {
+        Image original = imageService.getImageById(imageId);
+        Image image;
+        try {
+            image = imageService.resolveVariant(original, size);
+        } catch (ResourceException e) {
+            response.sendError(BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        if (image.getContentHash() == null) {
+            // legacy row whose blob has not been migrated to the image storage yet
+            setContentHeaders(image, response);
+            Blob blob = image.getImage();
+            response.setContentLengthLong(blob.length());
+            try (InputStream in = blob.getBinaryStream()) {
+                imageMetrics.bytesOut(in.transferTo(response.getOutputStream()));
+            }
+            return;
+        }
+
+        String etag = "\"" + image.getContentHash() + "\"";
+        // the original standing in for a variant that is not ready yet must not be cached for good under the variant URL
+        boolean standIn = size != null && image == original;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, !standIn && original.getContentHash().equals(v) ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+        setContentHeaders(image, response);
+
+        long length = image.getContentLength();
+        List<HttpRange> ranges = requestedRanges(request, etag);
+        if (ranges.size() != 1) {
+            sendContent(image, 0, length, request, response);
+            return;
+        }
+        long start = ranges.get(0).getRangeStart(length);
+        long end = ranges.get(0).getRangeEnd(length);
+        if (start >= length || end < start) {
+            response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+        response.setStatus(PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        sendContent(image, start, end - start + 1, request, response);
+    }
+
+    private void setContentHeaders(Image image, HttpServletResponse response) {
+        response.setContentType(MediaType.parseMediaType(image.getFileType()).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "Attachment; filename=\"" +image.getFileName() + "\"");
+    }
+
+    // ranges are ignored when the header is malformed or If-Range names another version of the content
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && !ifRange.equals(etag))) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /*
+        Sends a byte range of the stored image without copying it through the heap.
+        Tomcat's sendfile is used when the connector supports it, the kernel then copies the file straight to the socket.
+        Otherwise the bytes go through FileChannel.transferTo into the response stream.
+    */
+    private void sendContent(Image image, long start, long count, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentLengthLong(count);
+        imageMetrics.bytesOut(count);
+        Optional<Path> file = imageService.getImageFile(image);
+        if (file.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        imageService.transferImage(image, start, count, Channels.newChannel(response.getOutputStream()));
     }
 
     @PutMapping("/{imageId}")
@@ -0,0 +1,73 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.dto.ReservationDto;
+import com.project.ecommerceapp.exceptions.InventoryConflictException;
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.request.ReserveInventoryRequest;
+import com.project.ecommerceapp.response.ApiResponse;
+import com.project.ecommerceapp.service.inventory.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.HttpStatus.*;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("${api.prefix}/inventory")
+public class InventoryController {
+    private final InventoryService inventoryService;
+    private static final Logger logger = LoggerFactory.getLogger(InventoryController.class);
+
+    @PostMapping("/reservations")
+    public ResponseEntity<ApiResponse> reserve(@RequestBody ReserveInventoryRequest request){
+        if (request.getProductId() == null || request.getQuantity() == null || request.getQuantity() <= 0) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse("productId and a positive quantity are required", null));
+        }
+        try {
+            ReservationDto reservation = inventoryService.reserve(request.getProductId(), request.getQuantity());
+            return ResponseEntity.ok(new ApiResponse("Reserved!", reservation));
+        } catch (InventoryConflictException e){
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), null));
+        } catch (ResourceException e){
+            logger.warn("Reservation failed: {}", e.getMessage());
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (IllegalStateException e){
+            logger.warn("Reservation failed: {}", e.getMessage());
+            return ResponseEntity.status(SERVICE_UNAVAILABLE).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/reservations/{reservationId}")
+    public ResponseEntity<ApiResponse> getReservation(@PathVariable String reservationId){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Reservation:", inventoryService.getReservation(reservationId)));
+        } catch (ResourceException e){
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<ApiResponse> commit(@PathVariable String reservationId){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Committed!", inventoryService.commit(reservationId)));
+        } catch (InventoryConflictException e){
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), null));
+        } catch (ResourceException e){
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<ApiResponse> release(@PathVariable String reservationId){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Released!", inventoryService.release(reservationId)));
+        } catch (InventoryConflictException e){
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), null));
+        } catch (ResourceException e){
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+}
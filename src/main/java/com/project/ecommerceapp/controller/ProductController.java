@@ -1,19 +1,52 @@
 package com.project.ecommerceapp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.cache.ResponseCache;
+import com.project.ecommerceapp.cache.SingleFlight;
+import com.project.ecommerceapp.dto.BulkImportResultDto;
+import com.project.ecommerceapp.dto.CursorPage;
+import com.project.ecommerceapp.dto.FacetsDto;
 import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.QueryPage;
+import com.project.ecommerceapp.dto.SearchPage;
 import com.project.ecommerceapp.exceptions.ResourceException;
 import com.project.ecommerceapp.model.Product;
 import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.request.ProductQueryRequest;
 import com.project.ecommerceapp.request.UpdateProductRequest;
 import com.project.ecommerceapp.response.ApiResponse;
+import com.project.ecommerceapp.service.facet.ProductFacetService;
+import com.project.ecommerceapp.service.product.ProductBulkUpdateService;
+import com.project.ecommerceapp.service.product.ProductExportService;
+import com.project.ecommerceapp.service.product.ProductImportService;
 import com.project.ecommerceapp.service.product.ProductService;
+import com.project.ecommerceapp.service.search.ProductSearchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.apache.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
@@ -22,34 +55,100 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @RequestMapping("${api.prefix}/product")
 public class ProductController {
     private final ProductService productService;
-    private static final Logger logger = Logger.getLogger(ProductController.class);
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
+    private final ResponseCache responseCache;
+    private final ProductBulkUpdateService productBulkUpdateService;
+    private final ObjectMapper objectMapper;
+    // concurrent identical list and filter queries share one database read, see CacheConfig.productQueries
+    private final SingleFlight productQueries;
+    private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+
+    @Value("${api.export.timeout:1h}")
+    private Duration exportTimeout;
 
+    // served as pre-serialized JSON from the response cache, cleared together with the allProducts cache
     @GetMapping("/")
-    public ResponseEntity<ApiResponse> getProducts(){
+    public ResponseEntity<?> getProducts(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         HttpServletRequest request){
         logger.info("Fetching all products");
-        List<Product> products = productService.getAllProduct();
-        List<ProductDto> dataProduct = productService.getListProductDto(products);
-        if (products.isEmpty()) {
-            logger.info("No products available");
-            return ResponseEntity.ok(new ApiResponse("No products available", Collections.emptyList()));
-        }
-        logger.info("Getting all products");
-        return ResponseEntity.ok(new ApiResponse("Product:", dataProduct));
+        return responseCache.serve("allProducts", after + "_" + limit, request, () -> {
+            CursorPage<ProductDto> dataProduct = productService.getAllProduct(after, limit);
+            if (dataProduct.getContent().isEmpty()) {
+                logger.info("No products available");
+                return ResponseEntity.ok(new ApiResponse("No products available", Collections.emptyList()));
+            }
+            logger.info("Getting all products");
+            return ResponseEntity.ok(new ApiResponse("Product:", dataProduct));
+        });
     }
 
-    @GetMapping("/id/{productId}")
-    public ResponseEntity<ApiResponse> getProductById(@PathVariable Long productId){
-        logger.info("Fetching product by id: " + productId);
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse> searchProducts(@RequestParam String q,
+                                                      @RequestParam(required = false) Integer offset,
+                                                      @RequestParam(required = false) Integer limit){
+        logger.info("Searching products for: {}", q);
+        SearchPage<ProductDto> result = productSearchService.search(q, offset, limit);
+        return ResponseEntity.ok(new ApiResponse("Data:", result));
+    }
+
+    @GetMapping("/query")
+    public ResponseEntity<ApiResponse> queryProducts(@ModelAttribute ProductQueryRequest request){
+        logger.info("Querying products with: {}", request);
         try {
-            Product product = productService.getProductById(productId);
-            ProductDto productDto = productService.getProductDto(product);
-            return ResponseEntity.ok(new ApiResponse("Product: ", productDto));
+            QueryPage<ProductDto> page = productQueries.execute(Arrays.asList("query", request),
+                    () -> productService.queryProducts(request));
+            return ResponseEntity.ok(new ApiResponse("Product:", page));
         } catch (ResourceException e) {
-            logger.error("Product not found with id: " + productId, e);
-            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Error:", e.getMessage()));
+            logger.warn("Invalid product query: {}", e.getMessage());
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
         }
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse> getFacets(@RequestParam(required = false) List<String> category,
+                                                 @RequestParam(required = false) List<String> brand,
+                                                 @RequestParam(required = false) List<String> priceBand){
+        logger.info("Fetching facets for category: {}, brand: {}, price band: {}", category, brand, priceBand);
+        FacetsDto facets = productFacetService.getFacets(category, brand, priceBand);
+        return ResponseEntity.ok(new ApiResponse("Facets:", facets));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts(HttpServletRequest request){
+        logger.info("Exporting all products");
+        // exports of large catalogs outlive the default async timeout, it is raised for this response only
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("exportTimeout", new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                ((AsyncWebRequest) webRequest).setTimeout(exportTimeout.toMillis());
+            }
+        });
+        StreamingResponseBody body = out -> productExportService.exportProducts(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(body);
+    }
+
+    // served as pre-serialized JSON from the response cache, evicted together with the productById entry
+    @GetMapping("/id/{productId}")
+    public ResponseEntity<?> getProductById(@PathVariable Long productId, HttpServletRequest request){
+        logger.info("Fetching product by id: {}", productId);
+        return responseCache.serve("productById", productId, request, () -> {
+            try {
+                ProductDto productDto = productService.getProductDtoById(productId);
+                return ResponseEntity.ok(new ApiResponse("Product: ", productDto));
+            } catch (ResourceException e) {
+                logger.warn("Product not found with id: {}", productId);
+                return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Error:", e.getMessage()));
+            }
+        });
+    }
+
     @PostMapping("/")
     public ResponseEntity<ApiResponse> addProduct(@RequestBody AddProductRequest request){
         logger.info("Adding new product");
@@ -63,39 +162,87 @@ public class ProductController {
         }
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> importProductsJson(HttpServletRequest request){
+        logger.info("Importing products from JSON");
+        try {
+            BulkImportResultDto result = productImportService.importJson(request.getInputStream());
+            return ResponseEntity.ok(new ApiResponse("Import finished", result));
+        } catch (ResourceException | IOException e) {
+            logger.warn("Failed to import products from JSON: {}", e.getMessage());
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<ApiResponse> importProductsCsv(HttpServletRequest request){
+        logger.info("Importing products from CSV");
+        try {
+            BulkImportResultDto result = productImportService.importCsv(request.getReader());
+            return ResponseEntity.ok(new ApiResponse("Import finished", result));
+        } catch (ResourceException | IOException e) {
+            logger.warn("Failed to import products from CSV: {}", e.getMessage());
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    // one result line per record, written as chunks commit so large updates report progress while they run
+    @PatchMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public void updateProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Updating products in bulk");
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        try {
+            productBulkUpdateService.update(request.getInputStream(), result -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (ResourceException e) {
+            logger.warn("Failed to update products in bulk: {}", e.getMessage());
+            response.setStatus(BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(out, new ApiResponse(e.getMessage(), null));
+        }
+    }
+
     @PatchMapping("/id/{productId}/update")
     public ResponseEntity<ApiResponse> updateProduct(@RequestBody UpdateProductRequest request, @PathVariable Long productId){
-        logger.info("Updating product by id: " + productId);
+        logger.info("Updating product by id: {}", productId);
         try {
             Product updatedProduct = productService.updateProduct(request, productId);
             ProductDto productDto = productService.getProductDto(updatedProduct);
             return ResponseEntity.ok(new ApiResponse("Product updated", productDto));
         } catch (ResourceException e){
-            logger.error("Failed to update product with id: " + productId, e);
+            logger.warn("Failed to update product with id: {}: {}", productId, e.getMessage());
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Update failed", null));
         }
     }
 
     @DeleteMapping("/{productId}")
     public ResponseEntity<ApiResponse> deleteProduct(@PathVariable Long productId){
-        logger.info("Delete product by id: " + productId);
+        logger.info("Delete product by id: {}", productId);
         try {
             productService.deleteProductById(productId);
             return ResponseEntity.ok(new ApiResponse("Message: ", "Product deleted"));
         } catch (ResourceException e) {
-            logger.error("Failed to delete product with id: " + productId, e);
+            logger.warn("Failed to delete product with id: {}: {}", productId, e.getMessage());
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
         }
     }
 
     @GetMapping("/brand-and-name")
-    public ResponseEntity<ApiResponse> getProductsByBrandAndName(@RequestParam String brandName, @RequestParam String productName){
-        logger.info("Fetching products by brand: " + brandName + " and name: " + productName);
+    public ResponseEntity<ApiResponse> getProductsByBrandAndName(@RequestParam String brandName, @RequestParam String productName,
+                                                                 @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit){
+        logger.info("Fetching products by brand: {} and name: {}", brandName, productName);
         try {
-            List<Product> products = productService.getProductsByBrandAndName(brandName, productName);
-            List<ProductDto> dataProduct = productService.getListProductDto(products);
-            if (products.isEmpty()) {
-                logger.info("No products found for brand: " + brandName + " and name: " + productName);
+            CursorPage<ProductDto> dataProduct = productQueries.execute(Arrays.asList("brand-and-name", brandName, productName, after, limit),
+                    () -> productService.getProductsByBrandAndName(brandName, productName, after, limit));
+            if (dataProduct.getContent().isEmpty()) {
+                logger.info("No products found for brand: {} and name: {}", brandName, productName);
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Product not found", null));
             }
             return ResponseEntity.ok(new ApiResponse("Data:", dataProduct));
@@ -106,12 +253,13 @@ public class ProductController {
     }
 
     @GetMapping("/category-and-brand")
-    public ResponseEntity<ApiResponse> getProductsByCategoryAndBrand(@RequestParam String category, @RequestParam String brandName){
+    public ResponseEntity<ApiResponse> getProductsByCategoryAndBrand(@RequestParam String category, @RequestParam String brandName,
+                                                                     @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit){
         logger.info("Get product by category and brand name");
         try {
-            List<Product> products = productService.getProductsByCategoryAndBrand(category, brandName);
-            List<ProductDto> dataProduct = productService.getListProductDto(products);
-            if (products.isEmpty()) {
+            CursorPage<ProductDto> dataProduct = productQueries.execute(Arrays.asList("category-and-brand", category, brandName, after, limit),
+                    () -> productService.getProductsByCategoryAndBrand(category, brandName, after, limit));
+            if (dataProduct.getContent().isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Product not found", null));
             }
             return ResponseEntity.ok(new ApiResponse("Data:", dataProduct));
@@ -122,13 +270,14 @@ public class ProductController {
     }
 
     @GetMapping("/name")
-    public ResponseEntity<ApiResponse> getProductsByName(@RequestParam String name){
+    public ResponseEntity<ApiResponse> getProductsByName(@RequestParam String name,
+                                                         @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit){
         logger.info("Get product by name");
         try {
-            List<Product> products = productService.getProductsByName(name);
-            List<ProductDto> dataProduct = productService.getListProductDto(products);
-            if (products.isEmpty()){
-                logger.info("Products with name " + name + " not found");
+            CursorPage<ProductDto> dataProduct = productQueries.execute(Arrays.asList("name", name, after, limit),
+                    () -> productService.getProductsByName(name, after, limit));
+            if (dataProduct.getContent().isEmpty()){
+                logger.info("Products with name {} not found", name);
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Products with name " + name + " not found", null));
             }
             return ResponseEntity.ok(new ApiResponse("Data:", dataProduct));
@@ -139,13 +288,14 @@ public class ProductController {
     }
 
     @GetMapping("/brand")
-    public ResponseEntity<ApiResponse> getProductsByBrand(@RequestParam String brand){
+    public ResponseEntity<ApiResponse> getProductsByBrand(@RequestParam String brand,
+                                                          @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit){
         logger.info("Get product by brand");
         try {
-            List<Product> products = productService.getProductsByBrand(brand);
-            List<ProductDto> dataProduct = productService.getListProductDto(products);
-            if (products.isEmpty()){
-                logger.info("Products with brand " + brand + " not found");
+            CursorPage<ProductDto> dataProduct = productQueries.execute(Arrays.asList("brand", brand, after, limit),
+                    () -> productService.getProductsByBrand(brand, after, limit));
+            if (dataProduct.getContent().isEmpty()){
+                logger.info("Products with brand {} not found", brand);
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Products with brand " + brand + " not found", null));
             }
             return ResponseEntity.ok(new ApiResponse("Data:", dataProduct));
@@ -156,13 +306,14 @@ public class ProductController {
     }
 
     @GetMapping("/category")
-    public ResponseEntity<ApiResponse> getProductsByCategory(@RequestParam String category){
+    public ResponseEntity<ApiResponse> getProductsByCategory(@RequestParam String category,
+                                                             @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit){
         logger.info("Get product by category");
         try {
-            List<Product> products = productService.getProductsByCategory(category);
-            List<ProductDto> dataProduct = productService.getListProductDto(products);
-            if (products.isEmpty()){
-                logger.info("Products with category " + category + " not found");
+            CursorPage<ProductDto> dataProduct = productQueries.execute(Arrays.asList("category", category, after, limit),
+                    () -> productService.getProductsByCategory(category, after, limit));
+            if (dataProduct.getContent().isEmpty()){
+                logger.info("Products with category {} not found", category);
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("Products with category " + category + " not found", null));
             }
             return ResponseEntity.ok(new ApiResponse("Data:", dataProduct));
@@ -174,7 +325,7 @@ public class ProductController {
 
     @GetMapping("/count")
     public ResponseEntity<ApiResponse> countProductsByBrandAndName(@RequestParam String brand, @RequestParam String name){
-        logger.info("Counting products by brand: " + brand + " and name: " + name);
+        logger.info("Counting products by brand: {} and name: {}", brand, name);
         try {
             var productCount = productService.countProductsByBrandAndName(brand, name);
             return ResponseEntity.ok(new ApiResponse("Total products:", productCount));
@@ -0,0 +1,144 @@
+package com.project.ecommerceapp.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Caps the number of threads that may hold or wait for a pooled connection at the same time.
+    The pool already bounds open connections, but not the callers parked in getConnection(). With virtual threads
+    every request gets its own thread, so a burst would otherwise queue without limit and every caller would sit
+    out the full connection timeout. Callers beyond the cap fail immediately with SQLTransientConnectionException.
+    It also tracks how long connections are held, to estimate the wait of the next caller.
+    - connections   : Connections the pool below opens at most.
+    - maxConcurrent : Connections in use plus callers waiting for one, usually pool size plus a bounded wait queue.
+*/
+public class BoundedDataSource extends DelegatingDataSource implements AutoCloseable {
+    // weight of the latest hold time in the moving average
+    private static final double HOLD_TIME_WEIGHT = 0.05;
+
+    private final int connections;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+    // moving average of how long a connection is held, updated without locking, a lost update only skips a sample
+    private volatile double meanHoldNanos;
+
+    public BoundedDataSource(DataSource targetDataSource, int maxConcurrent) {
+        this(targetDataSource, maxConcurrent, maxConcurrent);
+    }
+
+    public BoundedDataSource(DataSource targetDataSource, int connections, int maxConcurrent) {
+        super(targetDataSource);
+        this.connections = connections;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return withPermit(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return withPermit(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getInUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /*
+        - Estimates how long a caller asking for a connection now would wait for it: the callers already waiting
+          are served as connections come back, connections come back once per mean hold time divided by the pool size.
+        - Returns zero while a connection is free.
+    */
+    public Duration getEstimatedWait() {
+        int waiting = getInUse() - connections;
+        if (waiting < 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((long) ((waiting + 1) * meanHoldNanos / connections));
+    }
+
+    // Closes the pools behind this, the first closeable data source down the chain of wrappers
+    @Override
+    public void close() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        while (!(target instanceof AutoCloseable) && target instanceof DelegatingDataSource delegating) {
+            target = delegating.getTargetDataSource();
+        }
+        if (target instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new SQLTransientConnectionException("Too many callers waiting for a database connection, limit is " + maxConcurrent);
+        }
+    }
+
+    // The permit goes back exactly once, on the first close() of the returned connection
+    private Connection withPermit(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        long acquiredAt = System.nanoTime();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                if (released.compareAndSet(false, true)) {
+                                    permits.release();
+                                    long held = System.nanoTime() - acquiredAt;
+                                    meanHoldNanos += (held - meanHoldNanos) * HOLD_TIME_WEIGHT;
+                                }
+                            }
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+}
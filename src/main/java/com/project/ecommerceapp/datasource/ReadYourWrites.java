@@ -0,0 +1,33 @@
+package com.project.ecommerceapp.datasource;
+
+/*
+    Remembers on the current thread whether the request in progress has run a read-write transaction. From then on ReplicaRoutingDataSource keeps the request on the primary, so that it reads
+    its own writes even when the replicas lag behind.
+    Outside start() and stop(), in scheduled jobs and startup work, nothing is remembered.
+*/
+public final class ReadYourWrites {
+    private static final ThreadLocal<boolean[]> WROTE = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void start() {
+        WROTE.set(new boolean[1]);
+    }
+
+    public static void stop() {
+        WROTE.remove();
+    }
+
+    static void wrote() {
+        boolean[] wrote = WROTE.get();
+        if (wrote != null) {
+            wrote[0] = true;
+        }
+    }
+
+    static boolean pinnedToPrimary() {
+        boolean[] wrote = WROTE.get();
+        return wrote != null && wrote[0];
+    }
+}
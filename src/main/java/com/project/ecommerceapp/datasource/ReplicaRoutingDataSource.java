@@ -0,0 +1,149 @@
+package com.project.ecommerceapp.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/*
+    Sends connections of read-only transactions to the read replicas and everything else to the primary.
+    The decision is taken when the connection is requested, so this must sit behind a LazyConnectionDataSourceProxy:
+    the transaction manager asks for a connection before the transaction is marked read-only, the proxy only does
+    so at the first statement.
+    - Stays on the primary outside transactions, in read-write transactions and in read-only transactions joined
+      to a read-write one, and for the rest of a request once it ran a read-write transaction (ReadYourWrites).
+    - Replicas are used round robin. A replica that fails to hand out a connection is taken out of rotation and
+      the next one is tried, the primary last. A background check puts it back once it answers again.
+    - primary      : Target for writes and for reads when no replica is healthy.
+    - replicas     : Read replicas, each with its own pool.
+    - healthCheck  : Interval of the background check of every replica.
+*/
+public class ReplicaRoutingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration healthCheck) {
+        super(primary);
+        this.replicas = IntStream.range(0, replicas.size()).mapToObj(i -> new Replica(i, replicas.get(i))).toList();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, healthCheck.toMillis(), healthCheck.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                ReadYourWrites.wrote();
+            } else if (!ReadYourWrites.pinnedToPrimary()) {
+                Connection connection = replicaConnection();
+                if (connection != null) {
+                    replicaConnections.increment();
+                    return connection;
+                }
+            }
+        }
+        primaryConnections.increment();
+        return obtainTargetDataSource().getConnection();
+    }
+
+    public int getHealthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    public long getFailovers() {
+        return failovers.sum();
+    }
+
+    /*
+        - Checks every replica now instead of waiting for the next scheduled check.
+        - A replica that hands out a valid connection is put back into rotation, one that doesn't is taken out.
+    */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                logger.warn("Replica {} is {}", replica.index, healthy ? "healthy again" : "unhealthy");
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    // Tries the healthy replicas once each starting at the next in turn, null when none of them answers
+    private Connection replicaConnection() {
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException | RuntimeException e) {
+                replica.healthy = false;
+                failovers.increment();
+                logger.warn("Replica {} failed to hand out a connection, taken out of rotation: {}", replica.index, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static class Replica {
+        private final int index;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.project.ecommerceapp.diagnostics;
+
+import com.project.ecommerceapp.dto.PinnedSiteDto;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/*
+    Reports virtual threads that blocked while pinned to their carrier, typically inside a synchronized block
+    of the JDBC driver, the pool or Hibernate. Listens to the JFR jdk.VirtualThreadPinned event in-process,
+    groups events by the first frame outside the JDK and logs the first occurrence of every site with its stack.
+    Needs a Java 21 runtime, on older runtimes it stays idle.
+    - app.diagnostics.pinning.enabled   : Start the JFR stream at application startup.
+    - app.diagnostics.pinning.threshold : Pins shorter than this are not recorded.
+*/
+@Component
+public class PinnedThreadMonitor implements ApplicationRunner, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    @Value("${app.diagnostics.pinning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.diagnostics.pinning.threshold:20ms}")
+    private Duration threshold;
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        if (Runtime.version().feature() < 21) {
+            logger.warn("Pinned thread monitor needs Java 21, running on {}, not started", Runtime.version());
+            return;
+        }
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        logger.info("Pinned thread monitor started, threshold {} ms", threshold.toMillis());
+    }
+
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    public List<PinnedSiteDto> getSites() {
+        return sites.entrySet().stream()
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .sorted(Comparator.comparingLong(PinnedSiteDto::getTotalMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void destroy() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = framesOf(event);
+        String site = siteOf(frames);
+        Duration duration = event.getDuration();
+        Site stats = sites.computeIfAbsent(site, key -> new Site());
+        if (stats.record(duration) == 1) {
+            logger.warn("Virtual thread pinned for {} ms at {}\n{}", duration.toMillis(), site, format(frames));
+        }
+    }
+
+    private static String siteOf(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return describe(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : describe(frames.get(0));
+    }
+
+    private static List<RecordedFrame> framesOf(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        return stackTrace != null ? stackTrace.getFrames() : List.of();
+    }
+
+    private static String format(List<RecordedFrame> frames) {
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + describe(frame))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static class Site {
+        private final AtomicLong count = new AtomicLong();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        long record(Duration duration) {
+            totalNanos.add(duration.toNanos());
+            maxNanos.accumulate(duration.toNanos());
+            return count.incrementAndGet();
+        }
+
+        PinnedSiteDto toDto(String frame) {
+            PinnedSiteDto dto = new PinnedSiteDto();
+            dto.setFrame(frame);
+            dto.setCount(count.get());
+            dto.setTotalMillis(Duration.ofNanos(totalNanos.sum()).toMillis());
+            dto.setMaxMillis(Duration.ofNanos(maxNanos.get()).toMillis());
+            return dto;
+        }
+    }
+}
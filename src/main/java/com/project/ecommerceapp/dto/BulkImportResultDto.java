@@ -0,0 +1,31 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Outcome of a bulk import.
+    - received : Number of rows read from the input.
+    - imported : Number of rows inserted.
+    - failed   : Number of rejected rows, may exceed errors.size() since only the first errors are reported.
+    - errors   : Row number (1-based, data rows only) and reason of each reported failure.
+*/
+@Data
+public class BulkImportResultDto {
+    private long received;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
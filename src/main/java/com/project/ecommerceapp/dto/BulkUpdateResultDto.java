@@ -0,0 +1,29 @@
+package com.project.ecommerceapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+    Outcome of one record of a bulk product update.
+    - row     : Position of the record in the request, 1-based.
+    - id      : Product id of the record, null when it could not be read.
+    - status  : UPDATED, NOT_FOUND, INVALID, CONFLICT when an inventory delta exceeds the units left, FAILED when the
+                database rejected the record's chunk.
+    - message : Reason of the failure, absent for updated records.
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkUpdateResultDto {
+    private long row;
+    private Long id;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        UPDATED, NOT_FOUND, INVALID, CONFLICT, FAILED
+    }
+}
@@ -0,0 +1,22 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsDto {
+    private String name;
+    private long l1Size;
+    private long l1Hits;
+    private long l1Misses;
+    private long l1Evictions;
+    private long l2Hits;
+    private long l2Misses;
+    private long l2Errors;
+    private long remoteInvalidations;
+    private long loads;
+    private long coalesced;
+    private long coalesceTimeouts;
+    private long staleHits;
+    private long refreshes;
+    private long refreshFailures;
+}
@@ -0,0 +1,34 @@
+package com.project.ecommerceapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.project.ecommerceapp.model.Category;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Catalog changes committed after a version, in the state they are in now.
+    - since             : Version the changes were read from.
+    - version           : Version to read from next, the changes up to and including it are in this page.
+    - more              : Whether more changes were committed after version when the page was read.
+    - products          : Added or changed products.
+    - categories        : Added or renamed categories.
+    - deletedProducts   : Ids of deleted products.
+    - deletedCategories : Ids of deleted categories.
+*/
+@Data
+public class CatalogChangesDto {
+    private long since;
+    private long version;
+    private boolean more;
+    private List<ProductDto> products = new ArrayList<>();
+    private List<Category> categories = new ArrayList<>();
+    private List<Long> deletedProducts = new ArrayList<>();
+    private List<Long> deletedCategories = new ArrayList<>();
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return products.isEmpty() && categories.isEmpty() && deletedProducts.isEmpty() && deletedCategories.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+    One page of a keyset (cursor) paginated listing.
+    - content    : The items of this page, ordered by id ascending.
+    - nextCursor : Value to pass as "after" to fetch the next page, null when this is the last page.
+    - limit      : The page size that was actually applied after clamping to the server maximum.
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private Long nextCursor;
+    private int limit;
+
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> mapper) {
+        return new CursorPage<>(mapper.apply(content), nextCursor, limit);
+    }
+}
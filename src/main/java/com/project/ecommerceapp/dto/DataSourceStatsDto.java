@@ -0,0 +1,16 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.Data;
+
+/*
+    Connection admission in front of the pool.
+    - maxConcurrent : Callers allowed to hold or wait for a connection at once.
+    - inUse         : Callers currently holding or waiting for one.
+    - rejected      : Callers turned away since startup because the limit was reached.
+*/
+@Data
+public class DataSourceStatsDto {
+    private int maxConcurrent;
+    private int inUse;
+    private long rejected;
+}
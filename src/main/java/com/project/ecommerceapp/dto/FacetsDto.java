@@ -0,0 +1,25 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/*
+    Product counts for the filter sidebars. Each facet is counted with every filter applied except its own, so a
+    selected brand still shows how many products the other brands would add.
+    - total      : Products matching all filters.
+    - categories : Products per category name, largest first.
+    - brands     : Products per brand, largest first.
+    - priceBands : Products per price band label, in ascending price order.
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetsDto {
+    private long total;
+    private Map<String, Long> categories;
+    private Map<String, Long> brands;
+    private Map<String, Long> priceBands;
+}
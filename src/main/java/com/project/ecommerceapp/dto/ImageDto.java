@@ -4,7 +4,25 @@ import lombok.Data;
 
 @Data
 public class ImageDto {
+    private static final String DOWNLOAD_PATH = "/api/v1/images/download/";
+
     private Long id;
     private String fileName;
     private String downloadUrl;
+
+    public static ImageDto of(Long id, String fileName, String contentHash) {
+        ImageDto imageDto = new ImageDto();
+        imageDto.setId(id);
+        imageDto.setFileName(fileName);
+        imageDto.setDownloadUrl(downloadUrl(id, contentHash));
+        return imageDto;
+    }
+
+    /*
+        - Derives the download URL of an image instead of storing it on the row.
+        - contentHash : Versions the URL so that it can be cached for good, null for legacy rows still holding a blob.
+    */
+    public static String downloadUrl(Long id, String contentHash) {
+        return contentHash == null ? DOWNLOAD_PATH + id : DOWNLOAD_PATH + id + "?v=" + contentHash;
+    }
 }
@@ -0,0 +1,32 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Outcome of a multi-file image upload.
+    - received : Number of files in the request.
+    - images   : Images stored, in the order of their files.
+    - failed   : Number of rejected files.
+    - errors   : Position (1-based) of each rejected file in the request, its name and the reason.
+*/
+@Data
+public class ImageUploadResultDto {
+    private int received;
+    private List<ImageDto> images = new ArrayList<>();
+    private int failed;
+    private List<FileError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileError {
+        private int file;
+        private String fileName;
+        private String message;
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.Data;
+
+/*
+    Virtual thread pins recorded at one code location.
+    - frame       : First frame outside the JDK on the pinned stack, class.method:line.
+    - count       : Pins recorded at this frame since startup.
+    - totalMillis : Time carriers spent blocked by those pins.
+    - maxMillis   : Longest single pin.
+*/
+@Data
+public class PinnedSiteDto {
+    private String frame;
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+}
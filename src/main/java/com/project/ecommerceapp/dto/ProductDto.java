@@ -2,11 +2,13 @@ package com.project.ecommerceapp.dto;
 
 import com.project.ecommerceapp.model.Category;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class ProductDto {
     private Long id;
     private String name;
@@ -16,4 +18,15 @@ public class ProductDto {
     private String description;
     private String category;
     private List<ImageDto> images;
+
+    // used by the JPQL constructor expressions in ProductRepository, images are attached afterwards
+    public ProductDto(Long id, String name, String brand, BigDecimal price, int inventory, String description, String category) {
+        this.id = id;
+        this.name = name;
+        this.brand = brand;
+        this.price = price;
+        this.inventory = inventory;
+        this.description = description;
+        this.category = category;
+    }
 }
@@ -0,0 +1,18 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// used by the JPQL constructor expression in ProductRepository, one row per distinct category, brand and price
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductGroupCount {
+    private String category;
+    private String brand;
+    private BigDecimal price;
+    private long count;
+}
@@ -0,0 +1,11 @@
+package com.project.ecommerceapp.dto;
+
+/*
+    Read-only projection of an image row together with the id of the product it belongs to.
+*/
+public interface ProductImageView {
+    Long getProductId();
+    Long getId();
+    String getFileName();
+    String getContentHash();
+}
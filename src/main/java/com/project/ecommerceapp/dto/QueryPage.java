@@ -0,0 +1,23 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+    One page of a product query.
+    - content    : The items of this page, in the requested sort order.
+    - nextCursor : Opaque value to pass as "after" with the same filters and sort to fetch the next page,
+                   null when this is the last page.
+    - limit      : The page size that was actually applied after clamping to the server maximum.
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private int limit;
+}
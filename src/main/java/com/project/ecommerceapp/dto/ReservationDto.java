@@ -0,0 +1,25 @@
+package com.project.ecommerceapp.dto;
+
+import com.project.ecommerceapp.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*
+    Inventory held for a buyer.
+    - id        : Reservation id, used to commit or release it.
+    - status    : RESERVED until committed, released or expired.
+    - expiresAt : Moment a RESERVED reservation is returned to the product's inventory.
+*/
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationDto {
+    private String id;
+    private Long productId;
+    private int quantity;
+    private ReservationStatus status;
+    private Instant expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.Data;
+
+/*
+    State of the serialized response cache.
+    - bytes                   : Bytes held by the entries, bounded by maximumBytes.
+    - serializationBytesSaved : JSON bytes served from the cache instead of being mapped and serialized again.
+    - compressionBytesSaved   : Bytes not sent because the pre-compressed copy was served.
+*/
+@Data
+public class ResponseCacheStatsDto {
+    private long entries;
+    private long bytes;
+    private long maximumBytes;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private long serializationBytesSaved;
+    private long compressionBytesSaved;
+}
@@ -0,0 +1,26 @@
+package com.project.ecommerceapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+    One page of ranked search results.
+    - content    : The items of this page, best match first.
+    - total      : Number of items matching the query.
+    - offset     : Number of results skipped before this page.
+    - limit      : The page size that was actually applied after clamping to the server maximum.
+    - nextOffset : Value to pass as "offset" to fetch the next page, null when this is the last page.
+*/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPage<T> {
+    private List<T> content;
+    private long total;
+    private int offset;
+    private int limit;
+    private Integer nextOffset;
+}
@@ -0,0 +1,7 @@
+package com.project.ecommerceapp.exceptions;
+
+public class InventoryConflictException extends ResourceException {
+    public InventoryConflictException(String message) {
+        super(message);
+    }
+}
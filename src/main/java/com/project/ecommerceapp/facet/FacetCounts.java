@@ -0,0 +1,181 @@
+package com.project.ecommerceapp.facet;
+
+import com.project.ecommerceapp.dto.FacetsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+    Product counts per (category, brand, price band) cell, the joint distribution behind every facet.
+    - Any combination of filters is answered with one pass over the cells, whose number depends on how many
+      categories, brands and bands exist, not on the number of products.
+    - Writes adjust single cells and run concurrently, renames and full replacements take the write lock.
+    - Price bands are delimited by app.facets.price-bands, a product without a price is in no band.
+*/
+@Component
+public class FacetCounts {
+    static final int NO_BAND = -1;
+
+    private final BigDecimal[] bounds;
+    private final String[] labels;
+    private final Map<String, Integer> bandsByLabel = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<Cell, Long> cells = new ConcurrentHashMap<>();
+
+    public FacetCounts(@Value("${app.facets.price-bands}") List<BigDecimal> bounds) {
+        this.bounds = bounds.stream().sorted().toArray(BigDecimal[]::new);
+        this.labels = new String[this.bounds.length + 1];
+        for (int band = 0; band < labels.length; band++) {
+            labels[band] = band == 0 ? "0-" + this.bounds[0].toPlainString()
+                    : band == this.bounds.length ? this.bounds[band - 1].toPlainString() + "+"
+                    : this.bounds[band - 1].toPlainString() + "-" + this.bounds[band].toPlainString();
+            bandsByLabel.put(labels[band], band);
+        }
+    }
+
+    public Cell cell(String category, String brand, BigDecimal price) {
+        return new Cell(category, brand, band(price));
+    }
+
+    public void add(Cell cell) {
+        adjust(cell, 1);
+    }
+
+    public void remove(Cell cell) {
+        adjust(cell, -1);
+    }
+
+    public void move(Cell from, Cell to) {
+        if (!from.equals(to)) {
+            adjust(from, -1);
+            adjust(to, 1);
+        }
+    }
+
+    public void renameCategory(String from, String to) {
+        lock.writeLock().lock();
+        try {
+            Map<Cell, Long> renamed = new ConcurrentHashMap<>();
+            cells.forEach((cell, count) -> renamed.merge(
+                    Objects.equals(cell.category(), from) ? new Cell(to, cell.brand(), cell.band()) : cell, count, Long::sum));
+            cells = renamed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+        - Replaces every count with a full recount.
+        - Return the number of cells whose count changed.
+    */
+    public int replace(Map<Cell, Long> recounted) {
+        lock.writeLock().lock();
+        try {
+            Set<Cell> keys = new HashSet<>(cells.keySet());
+            keys.addAll(recounted.keySet());
+            int corrected = 0;
+            for (Cell cell : keys) {
+                if (!Objects.equals(cells.get(cell), recounted.get(cell))) {
+                    corrected++;
+                }
+            }
+            cells = new ConcurrentHashMap<>(recounted);
+            return corrected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+        - Counts every facet for a filter combination, empty or null filters match everything.
+        - categories : Category names, a product matches if it is in any of them.
+        - brands     : Brands, a product matches if it has any of them.
+        - priceBands : Price band labels, a product matches if its price is in any of them.
+    */
+    public FacetsDto count(Collection<String> categories, Collection<String> brands, Collection<String> priceBands) {
+        Set<String> categoryFilter = filter(categories);
+        Set<String> brandFilter = filter(brands);
+        Set<Integer> bandFilter = new HashSet<>();
+        if (priceBands != null) {
+            priceBands.stream().map(bandsByLabel::get).filter(Objects::nonNull).forEach(bandFilter::add);
+        }
+        boolean filterBands = priceBands != null && !priceBands.isEmpty();
+
+        long total = 0;
+        Map<String, Long> byCategory = new HashMap<>();
+        Map<String, Long> byBrand = new HashMap<>();
+        long[] byBand = new long[labels.length];
+        for (Map.Entry<Cell, Long> entry : cells.entrySet()) {
+            Cell cell = entry.getKey();
+            long count = entry.getValue();
+            boolean inCategory = categoryFilter.isEmpty() || categoryFilter.contains(cell.category());
+            boolean inBrand = brandFilter.isEmpty() || brandFilter.contains(cell.brand());
+            boolean inBand = !filterBands || bandFilter.contains(cell.band());
+            if (inCategory && inBrand && inBand) {
+                total += count;
+            }
+            if (inBrand && inBand && cell.category() != null) {
+                byCategory.merge(cell.category(), count, Long::sum);
+            }
+            if (inCategory && inBand && cell.brand() != null) {
+                byBrand.merge(cell.brand(), count, Long::sum);
+            }
+            if (inCategory && inBrand && cell.band() != NO_BAND) {
+                byBand[cell.band()] += count;
+            }
+        }
+        Map<String, Long> bands = new LinkedHashMap<>();
+        for (int band = 0; band < byBand.length; band++) {
+            if (byBand[band] > 0) {
+                bands.put(labels[band], byBand[band]);
+            }
+        }
+        return new FacetsDto(total, largestFirst(byCategory), largestFirst(byBrand), bands);
+    }
+
+    public int band(BigDecimal price) {
+        if (price == null) {
+            return NO_BAND;
+        }
+        for (int band = 0; band < bounds.length; band++) {
+            if (price.compareTo(bounds[band]) < 0) {
+                return band;
+            }
+        }
+        return bounds.length;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    private void adjust(Cell cell, long delta) {
+        lock.readLock().lock();
+        try {
+            // a count that drops to zero removes its cell
+            cells.merge(cell, delta, (current, change) -> current + change == 0 ? null : current + change);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Set<String> filter(Collection<String> values) {
+        return values == null ? Set.of() : new HashSet<>(values);
+    }
+
+    private static Map<String, Long> largestFirst(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    public record Cell(String category, String brand, int band) {
+    }
+}
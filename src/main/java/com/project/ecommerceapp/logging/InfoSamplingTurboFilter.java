@@ -0,0 +1,61 @@
+package com.project.ecommerceapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Keeps a random 1 in rate of the INFO events logged by the configured high-volume loggers and denies the rest
+    before an event object is even created. WARN and ERROR are never sampled, neither are level checks.
+    - loggerPrefix : Logger name prefix to sample, may be repeated.
+    - rate         : Keep 1 in rate events, 1 keeps everything.
+*/
+public class InfoSamplingTurboFilter extends TurboFilter {
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    private final LongAdder sampledOut = new LongAdder();
+    private int rate = 1;
+
+    public void addLoggerPrefix(String loggerPrefix) {
+        loggerPrefixes.add(loggerPrefix);
+    }
+
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (rate == 1 || level != Level.INFO || format == null || !sampled(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (ThreadLocalRandom.current().nextInt(rate) == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        sampledOut.increment();
+        return FilterReply.DENY;
+    }
+
+    private boolean sampled(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
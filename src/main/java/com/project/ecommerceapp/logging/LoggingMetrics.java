@@ -0,0 +1,55 @@
+package com.project.ecommerceapp.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+/*
+    Publishes the state of the logging pipeline configured in logback-spring.xml.
+    - logging.async.queue.depth / capacity : Events waiting in the ring buffer, and its size.
+    - logging.async.dropped                : Events dropped because the ring buffer was full.
+    - logging.sampled.out                  : INFO events skipped by sampling.
+*/
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof MeteredAsyncAppender appender) {
+                Gauge.builder("logging.async.queue.depth", appender, MeteredAsyncAppender::getQueueDepth)
+                        .description("Log events waiting in the ring buffer")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+                Gauge.builder("logging.async.queue.capacity", appender, MeteredAsyncAppender::getRingBufferSize)
+                        .description("Size of the ring buffer")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+                FunctionCounter.builder("logging.async.dropped", appender, MeteredAsyncAppender::getDropped)
+                        .description("Log events dropped because the ring buffer was full")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+            }
+        }
+        for (TurboFilter filter : loggerContext.getTurboFilterList()) {
+            if (filter instanceof InfoSamplingTurboFilter sampling) {
+                FunctionCounter.builder("logging.sampled.out", sampling, InfoSamplingTurboFilter::getSampledOut)
+                        .description("INFO events skipped by sampling")
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.project.ecommerceapp.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Hands log events to the attached appenders through a preallocated ring buffer drained by one background thread,
+    so callers never wait on encoding or I/O. What happens when the ring buffer is full is set by appendTimeout:
+    0 drops the event, a negative value blocks the caller until there is room, a positive one waits that long then drops.
+    Exposes the number of queued and dropped events for the metrics.
+*/
+public class MeteredAsyncAppender extends LoggingEventAsyncDisruptorAppender {
+    private final LongAdder dropped = new LongAdder();
+
+    public long getQueueDepth() {
+        if (!isStarted()) {
+            return 0;
+        }
+        return getRingBufferSize() - getDisruptor().getRingBuffer().remainingCapacity();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    protected void fireEventAppendFailed(ILoggingEvent event, Throwable reason) {
+        dropped.increment();
+        super.fireEventAppendFailed(event, reason);
+    }
+}
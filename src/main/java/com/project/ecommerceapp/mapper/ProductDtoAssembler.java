@@ -0,0 +1,52 @@
+package com.project.ecommerceapp.mapper;
+
+import com.project.ecommerceapp.dto.ImageDto;
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.ProductImageView;
+import com.project.ecommerceapp.repository.ImageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Completes ProductDto projections with their images.
+    All images of a batch of products are read with a single query instead of one lazy load per product.
+*/
+@Component
+@RequiredArgsConstructor
+public class ProductDtoAssembler {
+    private final ImageRepository imageRepository;
+
+    /*
+        - Attaches the images to every product of the list.
+        - products : Products read through a projection query, their images list is replaced.
+        - Return the same list, for chaining.
+    */
+    public List<ProductDto> withImages(List<ProductDto> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        Map<Long, List<ImageDto>> imagesByProduct = new HashMap<>();
+        List<Long> productIds = products.stream().map(ProductDto::getId).toList();
+        for (ProductImageView view : imageRepository.findViewsByProductIdIn(productIds)) {
+            imagesByProduct.computeIfAbsent(view.getProductId(), id -> new ArrayList<>()).add(toImageDto(view));
+        }
+        for (ProductDto product : products) {
+            product.setImages(imagesByProduct.getOrDefault(product.getId(), new ArrayList<>()));
+        }
+        return products;
+    }
+
+    public ProductDto withImages(ProductDto product) {
+        withImages(List.of(product));
+        return product;
+    }
+
+    private static ImageDto toImageDto(ProductImageView view) {
+        return ImageDto.of(view.getId(), view.getFileName(), view.getContentHash());
+    }
+}
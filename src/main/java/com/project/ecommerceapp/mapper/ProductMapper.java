@@ -1,7 +1,9 @@
 package com.project.ecommerceapp.mapper;
 
+import com.project.ecommerceapp.dto.ImageDto;
 import com.project.ecommerceapp.dto.ProductDto;
 import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Image;
 import com.project.ecommerceapp.model.Product;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -19,6 +21,10 @@ public interface ProductMapper {
 
     List<ProductDto> productListToProductDto(List<Product> products);
 
+    default ImageDto imageToImageDto(Image image) {
+        return image != null ? ImageDto.of(image.getId(), image.getFileName(), image.getContentHash()) : null;
+    }
+
     default String map(Category category) {
         return category != null ? category.getName() : null;
     }
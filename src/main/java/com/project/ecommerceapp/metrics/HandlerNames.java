@@ -0,0 +1,20 @@
+package com.project.ecommerceapp.metrics;
+
+import org.springframework.web.method.HandlerMethod;
+
+/*
+    Names a request handler as ControllerName.methodName, the "handler" tag shared by the request metrics.
+*/
+public final class HandlerNames {
+    public static final String NONE = "none";
+
+    private HandlerNames() {
+    }
+
+    public static String of(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        return NONE;
+    }
+}
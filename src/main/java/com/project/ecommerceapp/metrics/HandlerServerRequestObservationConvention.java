@@ -0,0 +1,20 @@
+package com.project.ecommerceapp.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+/*
+    Adds the controller method that served the request as the "handler" tag of http.server.requests,
+    next to the default uri, method, status, outcome and exception tags.
+*/
+public class HandlerServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        return super.getLowCardinalityKeyValues(context).and(KeyValue.of("handler", HandlerNames.of(handler)));
+    }
+}
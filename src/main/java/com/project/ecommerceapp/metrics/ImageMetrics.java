@@ -0,0 +1,35 @@
+package com.project.ecommerceapp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/*
+    Image bytes received by uploads and sent by downloads, as size distributions per direction.
+*/
+@Component
+public class ImageMetrics {
+    private final DistributionSummary bytesIn;
+    private final DistributionSummary bytesOut;
+
+    public ImageMetrics(MeterRegistry meterRegistry) {
+        this.bytesIn = summary(meterRegistry, "in");
+        this.bytesOut = summary(meterRegistry, "out");
+    }
+
+    public void bytesIn(long bytes) {
+        bytesIn.record(bytes);
+    }
+
+    public void bytesOut(long bytes) {
+        bytesOut.record(bytes);
+    }
+
+    private static DistributionSummary summary(MeterRegistry meterRegistry, String direction) {
+        return DistributionSummary.builder("image.bytes")
+                .description("Image bytes received by uploads and sent by downloads")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
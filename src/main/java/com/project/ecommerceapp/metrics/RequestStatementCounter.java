@@ -0,0 +1,31 @@
+package com.project.ecommerceapp.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+    Counts the SQL statements Hibernate prepares on the current thread between start() and stop().
+    Registered as the session factory's StatementInspector, it leaves the SQL untouched.
+*/
+public class RequestStatementCounter implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    // Returns the statements counted since start(), or -1 when counting was not started on this thread
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : -1;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
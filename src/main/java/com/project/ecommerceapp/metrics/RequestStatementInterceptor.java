@@ -0,0 +1,51 @@
+package com.project.ecommerceapp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Records how many Hibernate statements every request ran, per controller method,
+    so that an N+1 regression shows up on the dashboard instead of in the database.
+    Work done after an async handler has started (the NDJSON export) is not counted.
+*/
+public class RequestStatementInterceptor implements AsyncHandlerInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RequestStatementInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatementCounter.start();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatementCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = RequestStatementCounter.stop();
+        if (statements >= 0) {
+            summaries.computeIfAbsent(HandlerNames.of(handler), this::summary).record(statements);
+        }
+    }
+
+    private DistributionSummary summary(String handler) {
+        return DistributionSummary.builder("hibernate.request.statements")
+                .description("SQL statements prepared by Hibernate per request")
+                .tag("handler", handler)
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                .register(meterRegistry);
+    }
+}
@@ -13,11 +13,17 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_category_name", columnList = "name", unique = true),
+        @Index(name = "ix_category_change_version", columnList = "change_version")
+})
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String name;
+    // version of the last catalog write to this row, see CatalogVersions
+    private long changeVersion;
 
     @OneToMany(mappedBy = "category")
     @JsonIgnore
@@ -13,6 +13,10 @@ import java.sql.Blob;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "ix_image_product", columnList = "product_id"),
+        @Index(name = "ix_image_content_hash", columnList = "content_hash")
+})
 public class Image {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,9 +24,14 @@ public class Image {
     private String fileName;
     private String fileType;
 
+    // SHA-256 of the bytes, key of the content in ImageStorage
+    @Column(length = 64)
+    private String contentHash;
+    private Long contentLength;
+
+    // legacy in-database content, only set on rows not yet moved to ImageStorage by ImageBlobMigration
     @Lob
     private Blob image;
-    private String downloadUrl;
 
     @ManyToOne
     @JoinColumn(name = "product_id")
@@ -0,0 +1,40 @@
+package com.project.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+    A resized copy of stored image content, created by ImageVariantService and kept in ImageStorage like the original.
+    - sourceHash  : Content hash of the original it was made from.
+    - name        : Configured variant name, such as thumb.
+    - contentHash : Content hash of the variant bytes.
+*/
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "image_variant",
+        uniqueConstraints = @UniqueConstraint(name = "ux_image_variant_source_name", columnNames = {"source_hash", "name"}),
+        indexes = @Index(name = "ix_image_variant_content_hash", columnList = "content_hash"))
+public class ImageVariant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String sourceHash;
+
+    @Column(length = 32, nullable = false)
+    private String name;
+
+    @Column(length = 64, nullable = false)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private Long contentLength;
+    private String contentType;
+    private Integer width;
+    private Integer height;
+}
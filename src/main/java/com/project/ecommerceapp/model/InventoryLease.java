@@ -0,0 +1,35 @@
+package com.project.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/*
+    Units of a product's inventory handed to one node, which reserves them from memory.
+    remaining counts the leased units not yet written as reservations. A lease whose heartbeat is older than
+    app.inventory.lease-ttl belongs to a node that is gone and is returned to the product by any other node.
+*/
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_inventory_lease_heartbeat", columnList = "heartbeat_at"),
+        @Index(name = "ix_inventory_lease_product", columnList = "product_id")
+})
+public class InventoryLease {
+    // nodeId:productId
+    @Id
+    @Column(length = 64)
+    private String id;
+    @Column(length = 36)
+    private String nodeId;
+    private Long productId;
+    private int remaining;
+    private Instant heartbeatAt;
+}
@@ -0,0 +1,40 @@
+package com.project.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/*
+    Durable record of units held for a buyer. Rows are written in batches by ReservationLog, a RESERVED row
+    past expiresAt is returned to the product's inventory by the expiry sweep.
+*/
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_inventory_reservation_status_expires", columnList = "status, expires_at"),
+        @Index(name = "ix_inventory_reservation_product_status", columnList = "product_id, status")
+})
+public class InventoryReservation {
+    @Id
+    @Column(length = 36)
+    private String id;
+    private Long productId;
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ReservationStatus status;
+
+    // node that served the reservation from its lease
+    @Column(length = 36)
+    private String nodeId;
+    private Instant createdAt;
+    private Instant expiresAt;
+}
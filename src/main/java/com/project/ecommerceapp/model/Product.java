@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -11,8 +12,20 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor
+// only changed columns are written, so an update that does not touch inventory never overwrites reservations
+@DynamicUpdate
 @Entity
 @Cacheable
+// serve the filter and sort combinations of ProductQuery, created by the V2 migration
+@Table(indexes = {
+        @Index(name = "ix_product_category_price", columnList = "category_id, price"),
+        @Index(name = "ix_product_category_brand_price", columnList = "category_id, brand, price"),
+        @Index(name = "ix_product_brand_price", columnList = "brand, price"),
+        @Index(name = "ix_product_brand_name", columnList = "brand, name"),
+        @Index(name = "ix_product_name", columnList = "name"),
+        @Index(name = "ix_product_price", columnList = "price"),
+        @Index(name = "ix_product_change_version", columnList = "change_version")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,8 +35,11 @@ public class Product {
     private BigDecimal price;
     private int inventory;
     private String description;
+    // version of the last catalog write to this row, see CatalogVersions
+    private long changeVersion;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    // no cascade, categories are created and removed through CategoryDictionary only
+    @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -0,0 +1,8 @@
+package com.project.ecommerceapp.model;
+
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
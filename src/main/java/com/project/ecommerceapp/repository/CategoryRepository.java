@@ -2,9 +2,18 @@ package com.project.ecommerceapp.repository;
 
 import com.project.ecommerceapp.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Category findByName(String name);
 
     boolean existsByName(String name);
+
+    List<Category> findByNameIn(Collection<String> names);
+
+    @Query("select c from Category c where c.changeVersion > :since and c.changeVersion <= :until order by c.changeVersion, c.id")
+    List<Category> findChangedBetween(long since, long until);
 }
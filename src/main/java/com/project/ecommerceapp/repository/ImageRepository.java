@@ -1,10 +1,23 @@
 package com.project.ecommerceapp.repository;
 
+import com.project.ecommerceapp.dto.ProductImageView;
 import com.project.ecommerceapp.model.Image;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
     List<Image> findByProductId(Long id);
+
+    boolean existsByContentHash(String contentHash);
+
+    @Query("select i.product.id as productId, i.id as id, i.fileName as fileName, i.contentHash as contentHash "
+            + "from Image i where i.product.id in :productIds order by i.id")
+    List<ProductImageView> findViewsByProductIdIn(Collection<Long> productIds);
+
+    @Query("select i from Image i where i.contentHash is null and i.image is not null and i.id > :after order by i.id")
+    List<Image> findLegacyBlobImages(Long after, Limit limit);
 }
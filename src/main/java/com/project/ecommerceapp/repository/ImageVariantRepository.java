@@ -0,0 +1,15 @@
+package com.project.ecommerceapp.repository;
+
+import com.project.ecommerceapp.model.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+    Optional<ImageVariant> findBySourceHashAndName(String sourceHash, String name);
+
+    List<ImageVariant> findBySourceHash(String sourceHash);
+
+    boolean existsByContentHash(String contentHash);
+}
@@ -0,0 +1,42 @@
+package com.project.ecommerceapp.repository;
+
+import com.project.ecommerceapp.model.InventoryLease;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface InventoryLeaseRepository extends JpaRepository<InventoryLease, String> {
+
+    @Modifying
+    @Query("update InventoryLease l set l.remaining = l.remaining + :quantity, l.heartbeatAt = :now where l.id = :id")
+    int grow(String id, int quantity, Instant now);
+
+    @Modifying
+    @Query("update InventoryLease l set l.remaining = l.remaining - :quantity where l.id = :id and l.remaining >= :quantity")
+    int shrink(String id, int quantity);
+
+    @Modifying
+    @Query("delete from InventoryLease l where l.id = :id and l.remaining = 0")
+    int deleteIfEmpty(String id);
+
+    @Modifying
+    @Query("delete from InventoryLease l where l.productId = :productId")
+    int deleteByProductId(Long productId);
+
+    @Modifying
+    @Query("update InventoryLease l set l.heartbeatAt = :now where l.id in :ids")
+    int heartbeat(Collection<String> ids, Instant now);
+
+    @Query("select l from InventoryLease l where l.heartbeatAt < :cutoff order by l.heartbeatAt")
+    List<InventoryLease> findStale(Instant cutoff, Limit limit);
+
+    // Deletes the lease only if it is still stale and unchanged, 1 when this caller reclaimed it
+    @Modifying
+    @Query("delete from InventoryLease l where l.id = :id and l.heartbeatAt < :cutoff and l.remaining = :remaining")
+    int reclaim(String id, Instant cutoff, int remaining);
+}
@@ -0,0 +1,28 @@
+package com.project.ecommerceapp.repository;
+
+import com.project.ecommerceapp.model.InventoryReservation;
+import com.project.ecommerceapp.model.ReservationStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, String> {
+
+    @Query("select r from InventoryReservation r where r.status = com.project.ecommerceapp.model.ReservationStatus.RESERVED "
+            + "and r.expiresAt < :now order by r.expiresAt")
+    List<InventoryReservation> findExpired(Instant now, Limit limit);
+
+    // Conditional status change, 1 when this caller won the transition
+    @Modifying
+    @Query("update InventoryReservation r set r.status = :to where r.id = :id and r.status = :from")
+    int transition(String id, ReservationStatus from, ReservationStatus to);
+
+    @Modifying
+    @Query("update InventoryReservation r set r.status = com.project.ecommerceapp.model.ReservationStatus.COMMITTED "
+            + "where r.id = :id and r.status = com.project.ecommerceapp.model.ReservationStatus.RESERVED and r.expiresAt > :now")
+    int commit(String id, Instant now);
+}
@@ -0,0 +1,121 @@
+package com.project.ecommerceapp.repository;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/*
+    Filters, sort key and keyset position of one product query page, rendered as SQL whose predicates map onto the
+    composite indexes declared on Product.
+    - Category is filtered by id rather than by joined name, brand by equality and name by prefix, so that each of
+      them can seek an index. Price range and in-stock are residual predicates on the rows found.
+    - Pages continue after the last row of the previous one, (sort value, id) of that row, and rows without a sort
+      value are left out of price and name orders.
+    - Every value is bound as a parameter.
+*/
+@Data
+public class ProductQuery {
+    public enum Sort {
+        ID("p.id", null),
+        NEWEST("p.id desc", null),
+        PRICE_ASC("p.price, p.id", "p.price"),
+        PRICE_DESC("p.price desc, p.id desc", "p.price"),
+        NAME("p.name, p.id", "p.name");
+
+        private final String orderBy;
+        private final String column;
+
+        Sort(String orderBy, String column) {
+            this.orderBy = orderBy;
+            this.column = column;
+        }
+
+        public boolean isDescending() {
+            return this == NEWEST || this == PRICE_DESC;
+        }
+
+        public boolean hasValue() {
+            return column != null;
+        }
+    }
+
+    private static final String SELECT = "select p.id, p.name, p.brand, p.price, p.inventory, p.description, c.name as category "
+            + "from product p left join category c on c.id = p.category_id";
+
+    private Long categoryId;
+    private String brand;
+    private String namePrefix;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private boolean inStock;
+    private Sort sort = Sort.ID;
+    // sort value and id of the last row of the previous page, null for the first page
+    private Object afterValue;
+    private Long afterId;
+    private int limit;
+
+    public String sql() {
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if (categoryId != null) {
+            where.add("p.category_id = :categoryId");
+        }
+        if (brand != null) {
+            where.add("p.brand = :brand");
+        }
+        if (namePrefix != null) {
+            where.add("p.name like :namePattern escape '!'");
+        }
+        if (minPrice != null) {
+            where.add("p.price >= :minPrice");
+        }
+        if (maxPrice != null) {
+            where.add("p.price <= :maxPrice");
+        }
+        if (inStock) {
+            where.add("p.inventory > 0");
+        }
+        if (sort.hasValue()) {
+            where.add(sort.column + " is not null");
+        }
+        if (afterId != null) {
+            String after = sort.isDescending() ? "<" : ">";
+            if (sort.hasValue()) {
+                // the first term is a plain range on the sort column, which the index can seek to
+                where.add(sort.column + " " + after + "= :afterValue and (" + sort.column + " " + after + " :afterValue or p.id " + after + " :afterId)");
+            } else {
+                where.add("p.id " + after + " :afterId");
+            }
+        }
+        return SELECT + where + " order by " + sort.orderBy + " offset 0 rows fetch next :limit rows only";
+    }
+
+    public Map<String, Object> parameters() {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (categoryId != null) {
+            parameters.put("categoryId", categoryId);
+        }
+        if (brand != null) {
+            parameters.put("brand", brand);
+        }
+        if (namePrefix != null) {
+            parameters.put("namePattern", namePrefix.replace("!", "!!").replace("%", "!%").replace("_", "!_").replace("[", "![") + "%");
+        }
+        if (minPrice != null) {
+            parameters.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            parameters.put("maxPrice", maxPrice);
+        }
+        if (afterId != null) {
+            parameters.put("afterId", afterId);
+            if (sort.hasValue()) {
+                parameters.put("afterValue", afterValue);
+            }
+        }
+        parameters.put("limit", limit);
+        return parameters;
+    }
+}
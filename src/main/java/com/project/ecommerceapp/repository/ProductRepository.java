@@ -1,20 +1,76 @@
 package com.project.ecommerceapp.repository;
 
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.ProductGroupCount;
 import com.project.ecommerceapp.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByCategoryName(String category);
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+    String SELECT_PRODUCT_DTO = "select new com.project.ecommerceapp.dto.ProductDto(p.id, p.name, p.brand, p.price, p.inventory, p.description, c.name) "
+            + "from Product p left join p.category c ";
 
-    List<Product> findByBrand(String brand);
+    @Query(SELECT_PRODUCT_DTO + "where p.id = :id")
+    Optional<ProductDto> findDtoById(Long id);
 
-    List<Product> findByCategoryNameAndBrand(String category, String brand);
+    @Query(SELECT_PRODUCT_DTO + "where p.id > :after order by p.id")
+    List<ProductDto> findDtoPage(Long after, Limit limit);
 
-    List<Product> findByName(String name);
+    @Query(SELECT_PRODUCT_DTO + "where c.name = :category and p.id > :after order by p.id")
+    List<ProductDto> findDtoPageByCategoryName(String category, Long after, Limit limit);
 
-    List<Product> findByBrandAndName(String brand, String name);
+    @Query(SELECT_PRODUCT_DTO + "where p.brand = :brand and p.id > :after order by p.id")
+    List<ProductDto> findDtoPageByBrand(String brand, Long after, Limit limit);
+
+    @Query(SELECT_PRODUCT_DTO + "where c.name = :category and p.brand = :brand and p.id > :after order by p.id")
+    List<ProductDto> findDtoPageByCategoryNameAndBrand(String category, String brand, Long after, Limit limit);
+
+    @Query(SELECT_PRODUCT_DTO + "where p.name = :name and p.id > :after order by p.id")
+    List<ProductDto> findDtoPageByName(String name, Long after, Limit limit);
+
+    @Query(SELECT_PRODUCT_DTO + "where p.brand = :brand and p.name = :name and p.id > :after order by p.id")
+    List<ProductDto> findDtoPageByBrandAndName(String brand, String name, Long after, Limit limit);
+
+    @Query(SELECT_PRODUCT_DTO + "where p.id in :ids")
+    List<ProductDto> findDtosByIdIn(Collection<Long> ids);
+
+    @Query(SELECT_PRODUCT_DTO + "where c.id = :categoryId")
+    List<ProductDto> findDtosByCategoryId(Long categoryId);
+
+    @Query(SELECT_PRODUCT_DTO + "where p.changeVersion > :since and p.changeVersion <= :until order by p.changeVersion, p.id")
+    List<ProductDto> findDtosChangedBetween(long since, long until);
+
+    @Query("select max(p.id) from Product p")
+    Long findMaxId();
 
     Long countByBrandAndName(String brand, String name);
+
+    @Query("select new com.project.ecommerceapp.dto.ProductGroupCount(c.name, p.brand, p.price, count(p)) "
+            + "from Product p left join p.category c group by c.name, p.brand, p.price")
+    List<ProductGroupCount> countByCategoryBrandAndPrice();
+
+    @Query("select p.inventory from Product p where p.id = :id")
+    Optional<Integer> findInventoryById(Long id);
+
+    // Takes units only if enough are left, 1 when they were taken
+    @Modifying
+    @Query("update Product p set p.inventory = p.inventory - :quantity where p.id = :id and p.inventory >= :quantity")
+    int takeInventory(Long id, int quantity);
+
+    @Modifying
+    @Query("update Product p set p.inventory = p.inventory + :quantity where p.id = :id")
+    int addInventory(Long id, int quantity);
+
+    // the units of open reservations are already out of the stock, never below 0
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update product set inventory = (select case when :inventory > coalesce(sum(r.quantity), 0) "
+            + "then :inventory - coalesce(sum(r.quantity), 0) else 0 end from inventory_reservation r "
+            + "where r.product_id = product.id and r.status = 'RESERVED') where id = :id", nativeQuery = true)
+    int setStock(Long id, int inventory);
 }
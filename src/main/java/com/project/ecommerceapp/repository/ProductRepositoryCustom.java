@@ -0,0 +1,11 @@
+package com.project.ecommerceapp.repository;
+
+import com.project.ecommerceapp.dto.ProductDto;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+    Stream<ProductDto> streamAllDtoOrderById(int fetchSize);
+    List<ProductDto> findDtos(ProductQuery query);
+}
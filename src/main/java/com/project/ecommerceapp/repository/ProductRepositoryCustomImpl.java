@@ -0,0 +1,53 @@
+package com.project.ecommerceapp.repository;
+
+import com.project.ecommerceapp.dto.ProductDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+    Queries that can't be expressed as derived methods on ProductRepository.
+*/
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ProductRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+        - Streams every product as a ProductDto projection ordered by id, backed by a JDBC cursor instead of a materialized list.
+        - fetchSize : Number of rows the driver pulls per round trip.
+        - The caller must consume the stream inside a transaction and close it afterwards.
+    */
+    @Override
+    public Stream<ProductDto> streamAllDtoOrderById(int fetchSize) {
+        return entityManager.createQuery(ProductRepository.SELECT_PRODUCT_DTO + "order by p.id", ProductDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    /*
+        - Runs a ProductQuery as plain SQL, the dynamic where clause is built by ProductQuery so that it matches
+          the composite indexes on product.
+        - query : Filters, sort key, keyset position and number of rows to return.
+    */
+    @Override
+    public List<ProductDto> findDtos(ProductQuery query) {
+        return jdbcTemplate.query(query.sql(), query.parameters(), (rs, rowNum) -> new ProductDto(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("brand"),
+                rs.getBigDecimal("price"),
+                rs.getInt("inventory"),
+                rs.getString("description"),
+                rs.getString("category")));
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.ecommerceapp.request;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/*
+    One record of a bulk product update, fields left null are not changed.
+    - inventory      : Units in stock. Units currently leased to nodes or held by open reservations are subtracted,
+                       since they return to the product's inventory later.
+    - inventoryDelta : Units to add, or to remove when negative. Rejected when fewer units are left.
+*/
+@Data
+public class BulkUpdateProductRequest {
+    private Long id;
+    private BigDecimal price;
+    private Integer inventory;
+    private Integer inventoryDelta;
+}
@@ -0,0 +1,18 @@
+package com.project.ecommerceapp.request;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ProductQueryRequest {
+    private String category;
+    private String brand;
+    private String name;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
+    private String sort;
+    private String after;
+    private Integer limit;
+}
@@ -0,0 +1,9 @@
+package com.project.ecommerceapp.request;
+
+import lombok.Data;
+
+@Data
+public class ReserveInventoryRequest {
+    private Long productId;
+    private Integer quantity;
+}
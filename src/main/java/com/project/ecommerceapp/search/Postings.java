@@ -0,0 +1,99 @@
+package com.project.ecommerceapp.search;
+
+import java.util.Arrays;
+
+/*
+    Immutable posting list of one term: product ids sorted ascending and, for each id, a bit mask of the fields holding the term.
+    Updates return a new instance so that readers never need a lock.
+*/
+final class Postings {
+    static final Postings EMPTY = new Postings(new long[0], new byte[0]);
+
+    private final long[] ids;
+    private final byte[] fields;
+
+    private Postings(long[] ids, byte[] fields) {
+        this.ids = ids;
+        this.fields = fields;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    byte fieldsAt(int index) {
+        return fields[index];
+    }
+
+    /*
+        - Returns the field mask of the given product, 0 when the product does not hold this term.
+    */
+    byte fieldsOf(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? fields[index] : 0;
+    }
+
+    Postings with(long id, byte mask) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            if (fields[index] == mask) {
+                return this;
+            }
+            byte[] newFields = fields.clone();
+            newFields[index] = mask;
+            return new Postings(ids, newFields);
+        }
+        int insertAt = -index - 1;
+        long[] newIds = new long[ids.length + 1];
+        byte[] newFields = new byte[fields.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, insertAt);
+        System.arraycopy(fields, 0, newFields, 0, insertAt);
+        newIds[insertAt] = id;
+        newFields[insertAt] = mask;
+        System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+        System.arraycopy(fields, insertAt, newFields, insertAt + 1, fields.length - insertAt);
+        return new Postings(newIds, newFields);
+    }
+
+    Postings without(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return this;
+        }
+        long[] newIds = new long[ids.length - 1];
+        byte[] newFields = new byte[fields.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, index);
+        System.arraycopy(fields, 0, newFields, 0, index);
+        System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+        System.arraycopy(fields, index + 1, newFields, index, fields.length - index - 1);
+        return new Postings(newIds, newFields);
+    }
+
+    /*
+        - Merges many changes in one copy, used when indexing in bulk.
+        - addIds    : Ids to add, sorted ascending, replacing existing entries for the same id.
+        - addFields : Field mask of each added id.
+    */
+    Postings withAll(long[] addIds, byte[] addFields) {
+        long[] newIds = new long[ids.length + addIds.length];
+        byte[] newFields = new byte[ids.length + addIds.length];
+        int i = 0, j = 0, n = 0;
+        while (i < ids.length || j < addIds.length) {
+            if (j == addIds.length || (i < ids.length && ids[i] < addIds[j])) {
+                newIds[n] = ids[i];
+                newFields[n++] = fields[i++];
+            } else {
+                if (i < ids.length && ids[i] == addIds[j]) {
+                    i++;
+                }
+                newIds[n] = addIds[j];
+                newFields[n++] = addFields[j++];
+            }
+        }
+        return new Postings(Arrays.copyOf(newIds, n), Arrays.copyOf(newFields, n));
+    }
+}
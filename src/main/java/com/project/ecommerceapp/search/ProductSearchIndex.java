@@ -0,0 +1,461 @@
+package com.project.ecommerceapp.search;
+
+import com.project.ecommerceapp.dto.ProductDto;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/*
+    In-process inverted index over product name, brand, description and category name.
+    - Terms are lower cased, stripped of accents and split on anything that is not a letter or a digit.
+    - Every query token must match, either exactly, as a prefix of an indexed term, or, when the token is not itself
+      an indexed term, within one typo (insertion, deletion, substitution or swap of two adjacent letters)
+      for tokens of FUZZY_MIN_LENGTH letters or more.
+    - Score of a product is, summed over the query tokens, the weight of the fields holding the matched term
+      times a factor for the kind of match, so exact name matches rank first.
+    - Typo candidates come from a deletion index (each term is also stored under every variant with one letter removed),
+      so fuzzy lookups never scan the term dictionary.
+    Writes are serialized, reads take no lock and see immutable posting lists.
+*/
+@Component
+public class ProductSearchIndex {
+    static final byte NAME = 1;
+    static final byte BRAND = 2;
+    static final byte CATEGORY = 4;
+    static final byte DESCRIPTION = 8;
+
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final double PREFIX_FACTOR = 0.6;
+    private static final double FUZZY_FACTOR = 0.4;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ConcurrentSkipListMap<String, Postings> postingsByTerm = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> termsByDeletion = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> termsByProduct = new ConcurrentHashMap<>();
+
+    public void index(ProductDto product) {
+        index(product.getId(), product.getName(), product.getBrand(), product.getDescription(), product.getCategory());
+    }
+
+    /*
+        - Adds a product or replaces its previous entry.
+    */
+    public synchronized void index(Long id, String name, String brand, String description, String category) {
+        Map<String, Byte> masks = analyze(name, brand, description, category);
+        String[] previous = termsByProduct.get(id);
+        if (previous != null) {
+            for (String term : previous) {
+                if (!masks.containsKey(term)) {
+                    removeTerm(term, id);
+                }
+            }
+        }
+        masks.forEach((term, mask) -> {
+            Postings postings = postingsByTerm.get(term);
+            if (postings == null) {
+                addDeletions(term);
+                postings = Postings.EMPTY;
+            }
+            postingsByTerm.put(term, postings.with(id, mask));
+        });
+        termsByProduct.put(id, masks.keySet().toArray(new String[0]));
+    }
+
+    /*
+        - Adds many products at once, every posting list is copied once per call instead of once per product.
+    */
+    public synchronized void indexAll(Collection<ProductDto> products) {
+        List<ProductDto> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(ProductDto::getId));
+        Map<String, PostingsBuilder> additions = new HashMap<>();
+        for (ProductDto product : sorted) {
+            Map<String, Byte> masks = analyze(product.getName(), product.getBrand(), product.getDescription(), product.getCategory());
+            String[] previous = termsByProduct.get(product.getId());
+            if (previous != null) {
+                for (String term : previous) {
+                    if (!masks.containsKey(term)) {
+                        removeTerm(term, product.getId());
+                    }
+                }
+            }
+            masks.forEach((term, mask) -> additions.computeIfAbsent(term, t -> new PostingsBuilder()).add(product.getId(), mask));
+            termsByProduct.put(product.getId(), masks.keySet().toArray(new String[0]));
+        }
+        additions.forEach((term, builder) -> {
+            Postings postings = postingsByTerm.get(term);
+            if (postings == null) {
+                addDeletions(term);
+                postings = Postings.EMPTY;
+            }
+            postingsByTerm.put(term, postings.withAll(builder.ids(), builder.fields()));
+        });
+    }
+
+    public synchronized void remove(Long id) {
+        String[] previous = termsByProduct.remove(id);
+        if (previous != null) {
+            for (String term : previous) {
+                removeTerm(term, id);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        postingsByTerm.clear();
+        termsByDeletion.clear();
+        termsByProduct.clear();
+    }
+
+    public int size() {
+        return termsByProduct.size();
+    }
+
+    /*
+        - Runs a query.
+        - query  : Free text, every token must match.
+        - offset : Number of ranked results to skip.
+        - limit  : Maximum number of ids to return.
+        - Returns the ids of the requested page, best match first (ties broken by id), and the total number of matches.
+    */
+    public SearchHits search(String query, int offset, int limit) {
+        List<TokenScores> tokens = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            List<Match> matches = expand(token);
+            if (matches.isEmpty()) {
+                return new SearchHits(List.of(), 0);
+            }
+            tokens.add(TokenScores.of(matches));
+        }
+        if (tokens.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        // walk the token with the fewest candidates and probe the others by binary search
+        TokenScores driver = tokens.stream().min(Comparator.comparingInt(TokenScores::size)).orElseThrow();
+        List<TokenScores> others = tokens.stream().filter(token -> token != driver).toList();
+        TopHits top = new TopHits(offset + limit);
+        long total = 0;
+        for (int i = 0; i < driver.size(); i++) {
+            long id = driver.idAt(i);
+            double score = driver.scoreAt(i);
+            for (TokenScores other : others) {
+                double tokenScore = other.scoreOf(id);
+                if (tokenScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += tokenScore;
+            }
+            if (score > 0) {
+                total++;
+                top.offer(id, score);
+            }
+        }
+        return new SearchHits(top.page(offset, limit), total);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean ascii = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK) {
+                token.append(c);
+                ascii &= c <= 127;
+            } else if (!token.isEmpty()) {
+                tokens.add(fold(token.toString(), ascii));
+                token.setLength(0);
+                ascii = true;
+            }
+        }
+        return tokens;
+    }
+
+    // the Unicode normalization is only paid for tokens that are not plain ASCII
+    private static String fold(String token, boolean ascii) {
+        String lower = token.toLowerCase(Locale.ROOT);
+        return ascii ? lower : MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    private static Map<String, Byte> analyze(String name, String brand, String description, String category) {
+        Map<String, Byte> masks = new HashMap<>();
+        addField(masks, name, NAME);
+        addField(masks, brand, BRAND);
+        addField(masks, category, CATEGORY);
+        addField(masks, description, DESCRIPTION);
+        return masks;
+    }
+
+    private static void addField(Map<String, Byte> masks, String text, byte field) {
+        // interned so that the term dictionary and every product entry share one copy of each term
+        for (String token : tokenize(text)) {
+            masks.merge(token.intern(), field, (a, b) -> (byte) (a | b));
+        }
+    }
+
+    private List<Match> expand(String token) {
+        List<Match> matches = new ArrayList<>();
+        Set<String> matched = new HashSet<>();
+        for (Map.Entry<String, Postings> entry : postingsByTerm.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            if (matches.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            String term = entry.getKey();
+            double factor = term.length() == token.length() ? 1.0 : PREFIX_FACTOR * token.length() / term.length() + 0.2;
+            matches.add(new Match(entry.getValue(), factor));
+            matched.add(term);
+        }
+        if (token.length() >= FUZZY_MIN_LENGTH && !postingsByTerm.containsKey(token)) {
+            for (String term : fuzzyCandidates(token)) {
+                Postings postings = postingsByTerm.get(term);
+                if (postings != null && matched.add(term) && withinOneEdit(token, term)) {
+                    matches.add(new Match(postings, FUZZY_FACTOR));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Set<String> fuzzyCandidates(String token) {
+        Set<String> candidates = new HashSet<>(termsByDeletion.getOrDefault(token, Set.of()));
+        for (String variant : deletions(token)) {
+            if (postingsByTerm.containsKey(variant)) {
+                candidates.add(variant);
+            }
+            candidates.addAll(termsByDeletion.getOrDefault(variant, Set.of()));
+        }
+        return candidates;
+    }
+
+    private void addDeletions(String term) {
+        if (term.length() < FUZZY_MIN_LENGTH) {
+            return;
+        }
+        for (String variant : deletions(term)) {
+            termsByDeletion.computeIfAbsent(variant, v -> ConcurrentHashMap.newKeySet()).add(term);
+        }
+    }
+
+    private void removeTerm(String term, long id) {
+        Postings postings = postingsByTerm.get(term);
+        if (postings == null) {
+            return;
+        }
+        Postings remaining = postings.without(id);
+        if (remaining.size() > 0) {
+            postingsByTerm.put(term, remaining);
+            return;
+        }
+        postingsByTerm.remove(term);
+        if (term.length() >= FUZZY_MIN_LENGTH) {
+            for (String variant : deletions(term)) {
+                Set<String> terms = termsByDeletion.get(variant);
+                if (terms != null) {
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        termsByDeletion.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> deletions(String term) {
+        Set<String> variants = new HashSet<>();
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    // optimal string alignment distance <= 1, candidates from the deletion index are at most two edits away
+    static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        int start = 0;
+        while (start < a.length() && start < b.length() && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        if (a.length() == b.length()) {
+            if (start == a.length()) {
+                return true;
+            }
+            if (a.substring(start + 1).equals(b.substring(start + 1))) {
+                return true;
+            }
+            return start + 1 < a.length()
+                    && a.charAt(start) == b.charAt(start + 1)
+                    && a.charAt(start + 1) == b.charAt(start)
+                    && a.substring(start + 2).equals(b.substring(start + 2));
+        }
+        String longer = a.length() > b.length() ? a : b;
+        String shorter = a.length() > b.length() ? b : a;
+        return longer.substring(start + 1).equals(shorter.substring(start));
+    }
+
+    private static double weight(byte fields) {
+        double weight = 0;
+        if ((fields & NAME) != 0) {
+            weight += 4;
+        }
+        if ((fields & BRAND) != 0) {
+            weight += 3;
+        }
+        if ((fields & CATEGORY) != 0) {
+            weight += 2;
+        }
+        if ((fields & DESCRIPTION) != 0) {
+            weight += 1;
+        }
+        return weight;
+    }
+
+    private record Match(Postings postings, double factor) {
+    }
+
+    private record Hit(long id, double score) {
+    }
+
+    /*
+        Best score per product for one query token. A token matching a single term reads that posting list directly,
+        a token expanding to several terms is merged once into one sorted list, so probing it costs one binary search.
+    */
+    private static final class TokenScores {
+        private final Postings single;
+        private final double factor;
+        private final long[] ids;
+        private final double[] scores;
+
+        private TokenScores(Postings single, double factor, long[] ids, double[] scores) {
+            this.single = single;
+            this.factor = factor;
+            this.ids = ids;
+            this.scores = scores;
+        }
+
+        static TokenScores of(List<Match> matches) {
+            if (matches.size() == 1) {
+                return new TokenScores(matches.get(0).postings(), matches.get(0).factor(), null, null);
+            }
+            // k-way merge of the sorted posting lists, keeping the best score of each id
+            int total = 0;
+            for (Match match : matches) {
+                total += match.postings().size();
+            }
+            long[] ids = new long[total];
+            double[] scores = new double[total];
+            int[] cursors = new int[matches.size()];
+            PriorityQueue<Integer> heads = new PriorityQueue<>(matches.size(),
+                    Comparator.comparingLong(m -> matches.get(m).postings().idAt(cursors[m])));
+            for (int m = 0; m < matches.size(); m++) {
+                if (matches.get(m).postings().size() > 0) {
+                    heads.add(m);
+                }
+            }
+            int n = 0;
+            while (!heads.isEmpty()) {
+                int m = heads.poll();
+                Match match = matches.get(m);
+                long id = match.postings().idAt(cursors[m]);
+                double score = weight(match.postings().fieldsAt(cursors[m])) * match.factor();
+                if (n > 0 && ids[n - 1] == id) {
+                    scores[n - 1] = Math.max(scores[n - 1], score);
+                } else {
+                    ids[n] = id;
+                    scores[n++] = score;
+                }
+                if (++cursors[m] < match.postings().size()) {
+                    heads.add(m);
+                }
+            }
+            return new TokenScores(null, 0, Arrays.copyOf(ids, n), Arrays.copyOf(scores, n));
+        }
+
+        int size() {
+            return single != null ? single.size() : ids.length;
+        }
+
+        long idAt(int index) {
+            return single != null ? single.idAt(index) : ids[index];
+        }
+
+        double scoreAt(int index) {
+            return single != null ? weight(single.fieldsAt(index)) * factor : scores[index];
+        }
+
+        double scoreOf(long id) {
+            if (single != null) {
+                byte fields = single.fieldsOf(id);
+                return fields != 0 ? weight(fields) * factor : 0;
+            }
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? scores[index] : 0;
+        }
+    }
+
+    // keeps the best n hits in a min-heap whose head is the weakest hit
+    private static final class TopHits {
+        private static final Comparator<Hit> RANKING =
+                Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+
+        private final int capacity;
+        private final PriorityQueue<Hit> heap;
+
+        TopHits(int capacity) {
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(Math.max(1, capacity), RANKING.reversed());
+        }
+
+        void offer(long id, double score) {
+            if (capacity == 0) {
+                return;
+            }
+            Hit hit = new Hit(id, score);
+            if (heap.size() < capacity) {
+                heap.add(hit);
+            } else if (RANKING.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+
+        List<Long> page(int offset, int limit) {
+            List<Hit> ranked = new ArrayList<>(heap);
+            ranked.sort(RANKING);
+            return ranked.stream().skip(offset).limit(limit).map(Hit::id).toList();
+        }
+    }
+
+    private static final class PostingsBuilder {
+        private long[] ids = new long[4];
+        private byte[] fields = new byte[4];
+        private int size;
+
+        void add(long id, byte mask) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            ids[size] = id;
+            fields[size++] = mask;
+        }
+
+        long[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        byte[] fields() {
+            return Arrays.copyOf(fields, size);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.project.ecommerceapp.search;
+
+import java.util.List;
+
+/*
+    One page of search results from the ProductSearchIndex.
+    - ids   : Product ids of the page, best match first.
+    - total : Number of products matching the query.
+*/
+public record SearchHits(List<Long> ids, long total) {
+}
@@ -0,0 +1,9 @@
+package com.project.ecommerceapp.service.catalog;
+
+import com.project.ecommerceapp.dto.CatalogChangesDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface CatalogChangeService {
+    CatalogChangesDto getChanges(long since, Integer limit);
+    SseEmitter subscribe(Long since);
+}
@@ -0,0 +1,245 @@
+package com.project.ecommerceapp.service.catalog;
+
+import com.project.ecommerceapp.catalog.CatalogVersions;
+import com.project.ecommerceapp.dto.CatalogChangesDto;
+import com.project.ecommerceapp.mapper.ProductDtoAssembler;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    Serves the catalog changes committed after a version, stamped by CatalogVersions, and pushes them to
+    server-sent event subscribers as they commit.
+    - A page ends on a version boundary, all rows written by one transaction are in the same page, so a page can
+      hold more rows than the limit when one write touched many rows.
+    - Pushes happen on a single "catalog-changes" thread. It reads the changes once per commit, signalled by this
+      node or by another one over the CacheInvalidationBus, and every app.catalog.changes.poll-interval in case a
+      signal was missed. The same page is sent to every subscriber, an idle interval sends a heartbeat comment.
+    - A subscriber first gets the changes after its own version, then joins the live pushes. The event id is the
+      version of the page, so a reconnecting EventSource resumes where it stopped through Last-Event-ID.
+    - Changes are read from the primary for pushes, the page endpoint reads like any other read-only request.
+*/
+@Service
+public class CatalogChangeServiceImpl implements CatalogChangeService {
+    private static final String CHANGED_IN = " where change_version > ? and change_version <= ?";
+    private static final String SELECT_VERSIONS = "select change_version from ("
+            + "select change_version from product" + CHANGED_IN
+            + " union all select change_version from category" + CHANGED_IN
+            + " union all select change_version from catalog_tombstone" + CHANGED_IN
+            + ") changes order by change_version offset 0 rows fetch next ? rows only";
+    private static final String SELECT_TOMBSTONES = "select entity, entity_id from catalog_tombstone"
+            + CHANGED_IN + " order by change_version, entity_id";
+    private static final String SELECT_LATEST = "select max(change_version) from ("
+            + "select max(change_version) change_version from product"
+            + " union all select max(change_version) from category"
+            + " union all select max(change_version) from catalog_tombstone) latest";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductDtoAssembler productDtoAssembler;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate primary;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final long streamTimeout;
+    private final ScheduledExecutorService dispatcher;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean pushPending = new AtomicBoolean();
+    // last version sent to the subscribers, only touched by the dispatcher thread, -1 while nobody listens
+    private long pushed = -1;
+    private static final Logger logger = LoggerFactory.getLogger(CatalogChangeServiceImpl.class);
+
+    public CatalogChangeServiceImpl(ProductRepository productRepository,
+                                    CategoryRepository categoryRepository,
+                                    ProductDtoAssembler productDtoAssembler,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    CatalogVersions catalogVersions,
+                                    @Value("${app.catalog.changes.page-size}") int defaultPageSize,
+                                    @Value("${app.catalog.changes.max-page-size}") int maxPageSize,
+                                    @Value("${app.catalog.changes.poll-interval}") Duration pollInterval,
+                                    @Value("${app.catalog.changes.stream-timeout}") Duration streamTimeout) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productDtoAssembler = productDtoAssembler;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.primary = new TransactionTemplate(transactionManager);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.streamTimeout = streamTimeout.toMillis();
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        catalogVersions.addListener(version -> signal());
+        long interval = pollInterval.toMillis();
+        dispatcher.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+        - Reads the catalog changes committed after a version.
+        - since : Version of the last page applied, 0 for everything.
+        - limit : Requested number of changed rows, clamped to the configured maximum.
+        - Return the changes in their current state and the version to read from next.
+    */
+    @Override
+    public CatalogChangesDto getChanges(long since, Integer limit) {
+        int pageSize = limit == null || limit < 1 ? defaultPageSize : Math.min(limit, maxPageSize);
+        return readOnly.execute(status -> read(since, Long.MAX_VALUE, pageSize));
+    }
+
+    /*
+        - Opens a stream of "changes" events, each carrying one page of changes.
+        - since : Version the client has applied, null to only receive what commits from now on.
+    */
+    @Override
+    public SseEmitter subscribe(Long since) {
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(emitter));
+        dispatcher.execute(() -> catchUp(emitter, since));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+    // runs on the dispatcher, so no push happens between the catch up and joining the subscribers
+    private void catchUp(SseEmitter emitter, Long since) {
+        try {
+            if (pushed < 0) {
+                pushed = primary.execute(status -> jdbcTemplate.queryForObject(SELECT_LATEST, Long.class));
+            }
+            long from = since != null ? since : pushed;
+            while (from < pushed) {
+                long after = from;
+                CatalogChangesDto page = primary.execute(status -> read(after, pushed, defaultPageSize));
+                if (page.getVersion() == from || !send(emitter, page)) {
+                    break;
+                }
+                from = page.getVersion();
+            }
+            emitter.send(SseEmitter.event().comment("live"));
+            subscribers.add(emitter);
+            logger.info("Catalog change subscriber joined at version: {}, subscribers: {}", pushed, subscribers.size());
+        } catch (IOException | IllegalStateException | DataAccessException e) {
+            logger.warn("Catalog change subscriber dropped while catching up: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void signal() {
+        if (!subscribers.isEmpty() && pushPending.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                pushPending.set(false);
+                push();
+            });
+        }
+    }
+
+    private void poll() {
+        if (!push()) {
+            subscribers.forEach(emitter -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(emitter, e);
+                }
+            });
+        }
+    }
+
+    // Return whether a page was sent
+    private boolean push() {
+        if (subscribers.isEmpty()) {
+            pushed = -1;
+            return false;
+        }
+        boolean sent = false;
+        try {
+            while (true) {
+                CatalogChangesDto page = primary.execute(status -> read(pushed, Long.MAX_VALUE, defaultPageSize));
+                if (page.getVersion() == pushed) {
+                    break;
+                }
+                subscribers.forEach(emitter -> send(emitter, page));
+                pushed = page.getVersion();
+                sent = true;
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not read catalog changes after version: {}, {}", pushed, e.getMessage());
+        }
+        return sent;
+    }
+
+    private boolean send(SseEmitter emitter, CatalogChangesDto page) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(page.getVersion()))
+                    .name("changes")
+                    .data(page, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(emitter, e);
+            return false;
+        }
+    }
+
+    private void drop(SseEmitter emitter, Exception e) {
+        subscribers.remove(emitter);
+        logger.info("Catalog change subscriber dropped: {}", e.getMessage());
+        emitter.completeWithError(e);
+    }
+
+    // the page ends on the version of its last row, taking every row of that version
+    private CatalogChangesDto read(long since, long until, int limit) {
+        CatalogChangesDto page = new CatalogChangesDto();
+        page.setSince(since);
+        page.setVersion(since);
+        List<Long> versions = jdbcTemplate.queryForList(SELECT_VERSIONS, Long.class,
+                since, until, since, until, since, until, limit + 1);
+        if (versions.isEmpty()) {
+            return page;
+        }
+        long version = versions.get(Math.min(limit, versions.size()) - 1);
+        page.setVersion(version);
+        page.setMore(versions.size() > limit);
+        page.setProducts(productDtoAssembler.withImages(productRepository.findDtosChangedBetween(since, version)));
+        page.setCategories(categoryRepository.findChangedBetween(since, version));
+        jdbcTemplate.query(SELECT_TOMBSTONES, row -> {
+            if (CatalogVersions.PRODUCT.equals(row.getString(1))) {
+                page.getDeletedProducts().add(row.getLong(2));
+            } else {
+                page.getDeletedCategories().add(row.getLong(2));
+            }
+        }, since, version);
+        return page;
+    }
+}
@@ -0,0 +1,226 @@
+package com.project.ecommerceapp.service.category;
+
+import com.project.ecommerceapp.catalog.CatalogVersions;
+import com.project.ecommerceapp.cache.CacheInvalidation;
+import com.project.ecommerceapp.cache.CacheInvalidationBus;
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    In-memory category name to id dictionary, loaded at startup, so that product writes resolve categories without a DB read.
+    - Misses fall back to the database and are remembered, so names created elsewhere are picked up lazily.
+    - New categories are inserted in their own transaction against the unique index on Category.name.
+      A concurrent insert of the same name loses on the index and reads the winner's row instead, so no duplicates are created.
+      That transaction takes its own catalog change version, see CatalogVersions.
+    - Renames and deletes are applied after commit and broadcast on the CacheInvalidationBus so that other nodes drop their entry.
+*/
+@Component
+public class CategoryDictionary implements ApplicationRunner {
+    static final String DICTIONARY_NAME = "categoryDictionary";
+    private static final String INSERT_CATEGORY = "insert into category (name, change_version) values (?, ?)";
+
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final CacheInvalidationBus invalidationBus;
+    private final CatalogVersions catalogVersions;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(CategoryDictionary.class);
+
+    public CategoryDictionary(CategoryRepository categoryRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectProvider<CacheInvalidationBus> invalidationBus,
+                              CatalogVersions catalogVersions) {
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.invalidationBus = invalidationBus.getIfAvailable(() -> CacheInvalidationBus.NONE);
+        this.invalidationBus.subscribe(this::onInvalidation);
+        this.catalogVersions = catalogVersions;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reload();
+    }
+
+    /*
+        - Replaces the dictionary content with every category in the database.
+    */
+    public void reload() {
+        Map<String, Long> loaded = new HashMap<>();
+        categoryRepository.findAll().forEach(category -> loaded.put(category.getName(), category.getId()));
+        idsByName.clear();
+        idsByName.putAll(loaded);
+        logger.info("Category dictionary loaded with {} categories", loaded.size());
+    }
+
+    /*
+        - Looks up a category without creating it.
+        - name : Category name.
+        - Returns a detached Category holding the id and name, empty when no such category exists.
+    */
+    public Optional<Category> find(String name) {
+        Long id = idsByName.get(name);
+        if (id == null) {
+            Category category = categoryRepository.findByName(name);
+            if (category == null) {
+                return Optional.empty();
+            }
+            id = category.getId();
+            idsByName.put(name, id);
+        }
+        return Optional.of(reference(id, name));
+    }
+
+    /*
+        - Looks up a category and creates it when missing.
+        - name : Category name.
+        - Returns a detached Category holding the id and name.
+    */
+    public Category getOrCreate(String name) {
+        Long id = idsByName.get(name);
+        if (id != null) {
+            return reference(id, name);
+        }
+        return find(name).orElseGet(() -> {
+            try {
+                return insert(name);
+            } catch (DataIntegrityViolationException e) {
+                logger.info("Category created concurrently: {}", name);
+                return find(name).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    /*
+        - Creates a new category.
+        - name : Category name.
+        - Throws ResourceException when a category with that name already exists.
+    */
+    public Category create(String name) {
+        if (idsByName.containsKey(name)) {
+            throw new ResourceException(name + " Already Exist");
+        }
+        try {
+            return insert(name);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResourceException(name + " Already Exist");
+        }
+    }
+
+    /*
+        - Resolves many names at once for bulk writes.
+        - names : Category names, missing ones are created.
+        - Costs nothing when every name is known, otherwise one select plus one batched insert and one select.
+    */
+    public Map<String, Long> getOrCreateAll(Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String name : names) {
+            Long id = idsByName.get(name);
+            if (id != null) {
+                ids.put(name, id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        categoryRepository.findByNameIn(missing).forEach(category -> remember(ids, category.getName(), category.getId()));
+        missing.removeAll(ids.keySet());
+        if (missing.isEmpty()) {
+            return ids;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                long version = catalogVersions.next();
+                jdbcTemplate.batchUpdate(INSERT_CATEGORY, missing.stream().map(name -> new Object[]{name, version}).toList());
+            });
+            logger.info("Created categories: {}", missing);
+        } catch (DataIntegrityViolationException e) {
+            // another writer created some of these names first, fall back to one atomic get-or-create per name
+            missing.forEach(name -> remember(ids, name, getOrCreate(name).getId()));
+            return ids;
+        }
+        categoryRepository.findByNameIn(missing).forEach(category -> remember(ids, category.getName(), category.getId()));
+        return ids;
+    }
+
+    /*
+        - Records a rename, applied once the surrounding transaction (if any) commits.
+    */
+    public void renamed(Long id, String newName) {
+        AfterCommit.run(() -> {
+            forget(id);
+            idsByName.put(newName, id);
+        });
+    }
+
+    /*
+        - Records a delete, applied once the surrounding transaction (if any) commits.
+    */
+    public void removed(Long id) {
+        AfterCommit.run(() -> forget(id));
+    }
+
+    private Category insert(String name) {
+        Category category = newTransaction.execute(status -> {
+            Category created = new Category(name);
+            created.setChangeVersion(catalogVersions.next());
+            return categoryRepository.saveAndFlush(created);
+        });
+        logger.info("Created category: {}", name);
+        idsByName.put(name, category.getId());
+        return reference(category.getId(), name);
+    }
+
+    private void remember(Map<String, Long> ids, String name, Long id) {
+        ids.put(name, id);
+        idsByName.put(name, id);
+    }
+
+    private void forget(Long id) {
+        idsByName.values().removeIf(id::equals);
+        invalidationBus.publish(new CacheInvalidation(nodeId, DICTIONARY_NAME, String.valueOf(id)));
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.nodeId()) || !DICTIONARY_NAME.equals(invalidation.cacheName())) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            idsByName.clear();
+        } else {
+            Long id = Long.valueOf(invalidation.key());
+            idsByName.values().removeIf(id::equals);
+        }
+    }
+
+    private static Category reference(Long id, String name) {
+        Category category = new Category(name);
+        category.setId(id);
+        return category;
+    }
+}
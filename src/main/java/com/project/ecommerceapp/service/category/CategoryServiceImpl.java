@@ -1,10 +1,18 @@
 package com.project.ecommerceapp.service.category;
 
+import com.project.ecommerceapp.catalog.CatalogVersions;
 import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.facet.FacetCounts;
 import com.project.ecommerceapp.model.Category;
 import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.service.search.ProductSearchService;
+import com.project.ecommerceapp.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,18 +21,25 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService{
     private final CategoryRepository categoryRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final ProductSearchService productSearchService;
+    private final FacetCounts facetCounts;
+    private final CatalogVersions catalogVersions;
 
+    @Transactional(readOnly = true)
     @Override
     public Category getCategoryById(Long id) {
         return categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceException("Category Not Found!"));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Category getCategoryByName(String name) {
         return categoryRepository.findByName(name);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
@@ -32,22 +47,47 @@ public class CategoryServiceImpl implements CategoryService{
 
     @Override
     public Category addCategory(Category category) {
-        return Optional.of(category).filter(c -> !categoryRepository.existsByName(c.getName()))
-                .map(categoryRepository::save)
-                .orElseThrow(() -> new ResourceException(category.getName()+" Already Exist"));
+        return categoryDictionary.create(category.getName());
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", allEntries = true)
+    })
+    @Transactional
     @Override
     public Category updateCategory(Category category, Long id) {
         return Optional.ofNullable(getCategoryById(id)).map(oldCategory -> {
+            String oldName = oldCategory.getName();
             oldCategory.setName(category.getName());
-            return categoryRepository.save(oldCategory);
+            oldCategory.setChangeVersion(catalogVersions.next());
+            try {
+                Category updated = categoryRepository.saveAndFlush(oldCategory);
+                // the product payloads carry the category name
+                catalogVersions.touchCategoryProducts(id);
+                categoryDictionary.renamed(updated.getId(), updated.getName());
+                AfterCommit.run(() -> productSearchService.reindexCategory(id));
+                AfterCommit.run(() -> facetCounts.renameCategory(oldName, updated.getName()));
+                return updated;
+            } catch (DataIntegrityViolationException e) {
+                throw new ResourceException(category.getName() + " Already Exist");
+            }
         }).orElseThrow(() -> new ResourceException("Category Not Found!"));
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", allEntries = true)
+    })
+    @Transactional
     @Override
     public void deleteCategoryById(Long id) {
-        categoryRepository.findById(id).ifPresentOrElse(categoryRepository::delete, () -> {
+        categoryRepository.findById(id).ifPresentOrElse(category -> {
+            catalogVersions.tombstone(CatalogVersions.CATEGORY, id);
+            categoryRepository.delete(category);
+            categoryRepository.flush();
+            categoryDictionary.removed(id);
+        }, () -> {
             throw new ResourceException("Category Not Found!");
         });
     }
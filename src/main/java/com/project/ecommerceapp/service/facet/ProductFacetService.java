@@ -0,0 +1,10 @@
+package com.project.ecommerceapp.service.facet;
+
+import com.project.ecommerceapp.dto.FacetsDto;
+
+import java.util.List;
+
+public interface ProductFacetService {
+    FacetsDto getFacets(List<String> categories, List<String> brands, List<String> priceBands);
+    int recount();
+}
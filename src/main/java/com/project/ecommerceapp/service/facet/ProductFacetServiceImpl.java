@@ -0,0 +1,67 @@
+package com.project.ecommerceapp.service.facet;
+
+import com.project.ecommerceapp.dto.FacetsDto;
+import com.project.ecommerceapp.dto.ProductGroupCount;
+import com.project.ecommerceapp.facet.FacetCounts;
+import com.project.ecommerceapp.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    This class serves facet counts from the in-process FacetCounts.
+    The counts are built at startup, kept current by the product and category write paths, and recounted from the
+    database every app.facets.recount-interval to correct drift, such as rows changed outside this application or
+    a write that raced the previous recount.
+*/
+@Service
+@RequiredArgsConstructor
+public class ProductFacetServiceImpl implements ProductFacetService, ApplicationRunner {
+    private final FacetCounts facetCounts;
+    private final ProductRepository productRepository;
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetServiceImpl.class);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        recount();
+    }
+
+    /*
+        - Counts products per category, brand and price band.
+        - categories : Category names to filter on, null or empty for all.
+        - brands     : Brands to filter on, null or empty for all.
+        - priceBands : Price band labels to filter on, null or empty for all.
+    */
+    @Override
+    public FacetsDto getFacets(List<String> categories, List<String> brands, List<String> priceBands) {
+        return facetCounts.count(categories, brands, priceBands);
+    }
+
+    /*
+        - Rebuilds the counts with one grouped query.
+        - Return the number of counts that had drifted.
+    */
+    @Override
+    @Scheduled(initialDelayString = "${app.facets.recount-interval}", fixedDelayString = "${app.facets.recount-interval}")
+    public int recount() {
+        long started = System.currentTimeMillis();
+        Map<FacetCounts.Cell, Long> cells = new HashMap<>();
+        for (ProductGroupCount group : productRepository.countByCategoryBrandAndPrice()) {
+            cells.merge(new FacetCounts.Cell(group.getCategory(), group.getBrand(), facetCounts.band(group.getPrice())),
+                    group.getCount(), Long::sum);
+        }
+        int corrected = facetCounts.replace(cells);
+        if (corrected > 0) {
+            logger.info("Facet recount corrected {} of {} counts in {} ms", corrected, cells.size(), System.currentTimeMillis() - started);
+        }
+        return corrected;
+    }
+}
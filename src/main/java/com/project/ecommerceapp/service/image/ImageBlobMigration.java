@@ -0,0 +1,76 @@
+package com.project.ecommerceapp.service.image;
+
+import com.project.ecommerceapp.model.Image;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.service.image.storage.ImageStorage;
+import com.project.ecommerceapp.service.image.storage.StoredImage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.List;
+
+/*
+    Moves image bytes still stored in the Image.image blob column into the ImageStorage.
+    Runs once at startup when app.image.storage.migrate-blobs=true. Rows are processed in batches, one transaction per batch,
+    and a row is only switched to the storage after its bytes are safely written, so the migration can be stopped and rerun.
+*/
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.image.storage.migrate-blobs", havingValue = "true")
+public class ImageBlobMigration implements ApplicationRunner {
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(ImageBlobMigration.class);
+
+    @Value("${app.image.storage.migrate-batch-size:100}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        logger.info("Migrating legacy image blobs to the image storage");
+        long migrated = 0;
+        Batch batch = new Batch(0, 0L);
+        do {
+            final long after = batch.lastId();
+            batch = transactionTemplate.execute(status -> migrateBatch(after));
+            migrated += batch.migrated();
+        } while (batch.lastId() != null);
+        logger.info("Migrated {} legacy image blobs", migrated);
+    }
+
+    private Batch migrateBatch(long after) {
+        List<Image> images = imageRepository.findLegacyBlobImages(after, Limit.of(batchSize));
+        if (images.isEmpty()) {
+            return new Batch(0, null);
+        }
+        int migrated = 0;
+        for (Image image : images) {
+            try (InputStream content = image.getImage().getBinaryStream()) {
+                StoredImage stored = imageStorage.store(content);
+                image.setContentHash(stored.contentHash());
+                image.setContentLength(stored.size());
+                image.setImage(null);
+                migrated++;
+            } catch (IOException | SQLException e) {
+                logger.error("Failed to migrate blob of image with id: {}", image.getId(), e);
+            }
+        }
+        return new Batch(migrated, images.get(images.size() - 1).getId());
+    }
+
+    // lastId is the keyset cursor for the next batch, null once every legacy row has been visited
+    private record Batch(int migrated, Long lastId) {
+    }
+}
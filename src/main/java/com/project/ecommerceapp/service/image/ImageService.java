@@ -1,13 +1,21 @@
 package com.project.ecommerceapp.service.image;
 
-import com.project.ecommerceapp.dto.ImageDto;
+import com.project.ecommerceapp.dto.ImageUploadResultDto;
 import com.project.ecommerceapp.model.Image;
 import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 public interface ImageService {
     Image getImageById(Long id);
     void deleteImageById(Long id);
-    List<ImageDto> saveImages(Long productId, List<MultipartFile> files);
+    ImageUploadResultDto saveImages(Long productId, List<MultipartFile> files);
     void updateImage (MultipartFile file, Long imageId);
-}
\ No newline at end of file
+    Image resolveVariant(Image image, String size);
+    Optional<Path> getImageFile(Image image);
+    long transferImage(Image image, long position, long count, WritableByteChannel target) throws IOException;
+}
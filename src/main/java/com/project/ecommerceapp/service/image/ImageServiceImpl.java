@@ -1,30 +1,120 @@
 package com.project.ecommerceapp.service.image;
 
+import com.project.ecommerceapp.catalog.CatalogVersions;
 import com.project.ecommerceapp.dto.ImageDto;
+import com.project.ecommerceapp.dto.ImageUploadResultDto;
 import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.metrics.ImageMetrics;
 import com.project.ecommerceapp.model.Image;
 import com.project.ecommerceapp.model.Product;
 import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.service.image.storage.ImageStorage;
+import com.project.ecommerceapp.service.image.storage.StoredImage;
 import com.project.ecommerceapp.service.product.ProductService;
-import lombok.RequiredArgsConstructor;
+import com.project.ecommerceapp.util.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
-import java.sql.SQLException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
     This class is a service implementation that provides methods for managing images associated with products.
     Using ImageRepository class to interact with the image database and the ProductService class to retrieve product information.
+    Image bytes are kept in ImageStorage, the Image row only holds metadata and the content hash.
+    Content a row stops referring to is released rather than deleted: the sweep deletes it once it was neither stored
+    again nor referenced for app.image.storage.release-grace, so that an upload of the same bytes that found them
+    already stored can still insert its row.
 */
 @Service
-@RequiredArgsConstructor
 public class ImageServiceImpl implements ImageService{
+    private static final String INSERT_IMAGE = "insert into image (file_name, file_type, content_hash, content_length, product_id) "
+            + "values (:fileName, :fileType, :contentHash, :contentLength, :productId)";
+    private static final String UPDATE_RELEASE = "update image_content_release set released_at = ? where content_hash = ?";
+    private static final String INSERT_RELEASE = "insert into image_content_release (content_hash, released_at) values (?, ?)";
+    private static final String SELECT_RELEASED = "select content_hash from image_content_release where released_at < ? order by released_at";
+    private static final String DELETE_RELEASE = "delete from image_content_release where content_hash = ?";
+    private static final String COUNT_REFERENCES = "select (select count(*) from image where content_hash = ?) "
+            + "+ (select count(*) from image_variant where content_hash = ?)";
+    private static final int SWEEP_BATCH = 100;
+
     private final ImageRepository imageRepository;
     private final ProductService productService;
+    private final ImageStorage imageStorage;
+    private final ImageMetrics imageMetrics;
+    private final ImageVariantService imageVariantService;
+    private final CatalogVersions catalogVersions;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor uploads;
+    private final Duration releaseGrace;
+    private static final Logger logger = LoggerFactory.getLogger(ImageServiceImpl.class);
+
+    public ImageServiceImpl(ImageRepository imageRepository,
+                            ProductService productService,
+                            ImageStorage imageStorage,
+                            ImageMetrics imageMetrics,
+                            ImageVariantService imageVariantService,
+                            CatalogVersions catalogVersions,
+                            NamedParameterJdbcTemplate namedJdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.image.upload.threads}") int uploadThreads,
+                            @Value("${app.image.upload.queue-capacity}") int uploadQueueCapacity,
+                            @Value("${app.image.storage.release-grace}") Duration releaseGrace) {
+        this.imageRepository = imageRepository;
+        this.productService = productService;
+        this.imageStorage = imageStorage;
+        this.imageMetrics = imageMetrics;
+        this.imageVariantService = imageVariantService;
+        this.catalogVersions = catalogVersions;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.jdbcTemplate = namedJdbcTemplate.getJdbcTemplate();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.releaseGrace = releaseGrace;
+        // when the queue is full the request thread stores its file itself, which holds back further submissions
+        AtomicInteger threads = new AtomicInteger();
+        this.uploads = new ThreadPoolExecutor(uploadThreads, uploadThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(uploadQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "image-uploads-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
     /*
         - Retrieves image by id
@@ -42,51 +132,86 @@ public class ImageServiceImpl implements ImageService{
         - id : The id of the image to retrieve and will deleted
         - Will throw exception if image not found
     */
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", allEntries = true)
+    })
+    @Transactional
     @Override
     public void deleteImageById(Long id) {
-        imageRepository.findById(id).ifPresentOrElse(imageRepository::delete, () -> {
-            throw new ResourceException("No image found with id: "+ id);
-        });
+        Image image = imageRepository.findById(id)
+                .orElseThrow(() -> new ResourceException("No image found with id: "+ id));
+        // the product payload lists its images
+        if (image.getProduct() != null) {
+            catalogVersions.touchProduct(image.getProduct().getId());
+        }
+        imageRepository.delete(image);
+        releaseContent(image.getContentHash());
     }
 
     /*
         - Save list of image from the product
         - productId : id from product who associated with the images.
         - file : A list of MultipartFile objects representing the images to save.
-        - Return a list of ImageDto objects representing the saved images.
-        - Throw error exception if an error appears while saving the images.
+        - Return the stored images and the files that were rejected, with the reason.
+        - Files are validated and streamed into the image storage concurrently, outside of any transaction.
+          The accepted ones are then inserted with a single JDBC batch in one transaction, the IDENTITY ids keep
+          Hibernate from batching them, the driver returns the generated ids of the batch. When the batch or its transaction fails, every file of it is reported as
+          failed and its stored content is released.
+        - Throw ResourceException if the product does not exist.
     */
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", key = "#productId")
+    })
     @Override
-    public List<ImageDto> saveImages(Long productId, List<MultipartFile> files) {
+    public ImageUploadResultDto saveImages(Long productId, List<MultipartFile> files) {
         Product product = productService.getProductById(productId);
-
-        List<ImageDto> saveImagedDto = new ArrayList<>();
+        List<Future<StoredImage>> stored = new ArrayList<>(files.size());
         for (MultipartFile file : files) {
+            stored.add(uploads.submit(() -> storeUpload(file)));
+        }
+
+        ImageUploadResultDto result = new ImageUploadResultDto();
+        result.setReceived(files.size());
+        List<Upload> accepted = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            try {
+                accepted.add(new Upload(i + 1, file.getOriginalFilename(), file.getContentType(), stored.get(i).get()));
+            } catch (ExecutionException e) {
+                addError(result, i + 1, file.getOriginalFilename(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceException("Upload interrupted");
+            }
+        }
+        if (accepted.isEmpty()) {
+            return result;
+        }
+
+        try {
+            result.getImages().addAll(transactionTemplate.execute(status -> insertImages(product.getId(), accepted)));
+        } catch (RuntimeException e) {
+            logger.error("Image upload for product with id: {} not saved", productId, e);
+            String message = e instanceof DataAccessException dataAccess
+                    ? "Rejected by the database: " + dataAccess.getMostSpecificCause().getMessage()
+                    : "Not saved: " + e.getMessage();
+            accepted.forEach(upload -> addError(result, upload.file(), upload.fileName(), message));
+            releaseUploads(accepted);
+        }
+        return result;
+    }
+
+    // best effort, content that could not be released is only deleted once another row refers to it and lets it go
+    private void releaseUploads(List<Upload> uploads) {
+        for (Upload upload : uploads) {
             try {
-                Image image = new Image();
-                image.setFileName(file.getOriginalFilename());
-                image.setFileType(file.getContentType());
-                image.setImage(new SerialBlob(file.getBytes()));
-                image.setProduct(product);
-
-                String buildDownloadUrl = "api/v1/images/image/download";
-                String downloadUrl = buildDownloadUrl+image.getId();
-                image.setDownloadUrl(downloadUrl);
-                Image savedImage = imageRepository.save(image);
-
-                savedImage.setDownloadUrl(buildDownloadUrl+savedImage.getId());
-                imageRepository.save(savedImage);
-
-                ImageDto imageDto = new ImageDto();
-                imageDto.setId(savedImage.getId());
-                imageDto.setFileName(savedImage.getFileName());
-                imageDto.setDownloadUrl(savedImage.getDownloadUrl());
-                saveImagedDto.add(imageDto);
-            } catch (IOException | SQLException e) {
-                throw new RuntimeException(e.getMessage());
+                releaseContent(upload.stored().contentHash());
+            } catch (RuntimeException e) {
+                logger.error("Could not release image content: {}", upload.stored().contentHash(), e);
             }
         }
-        return saveImagedDto;
     }
 
     /*
@@ -95,16 +220,226 @@ public class ImageServiceImpl implements ImageService{
         - imageId : The ID of the image to update.
         - Throw error exception if errors appear while updating images.
     */
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", allEntries = true)
+    })
+    @Transactional
     @Override
     public void updateImage(MultipartFile file, Long imageId) {
         Image image = getImageById(imageId);
+        String previousHash = image.getContentHash();
+        if (image.getProduct() != null) {
+            catalogVersions.touchProduct(image.getProduct().getId());
+        }
         try {
             image.setFileName(file.getOriginalFilename());
             image.setFileType(file.getContentType());
-            image.setImage(new SerialBlob(file.getBytes()));
+            storeContent(image, file);
             imageRepository.save(image);
-        } catch (IOException | SQLException e){
+        } catch (IOException e){
             throw new RuntimeException(e.getMessage());
         }
+        if (previousHash != null && !previousHash.equals(image.getContentHash())) {
+            releaseContent(previousHash);
+        }
+    }
+
+    /*
+        - Returns the image as it should be served for the requested size.
+        - size : Configured variant name, null for the original. ResourceException when it is not configured.
+        - Return a detached copy of the image pointing at the variant content, or the image itself while the variant
+          is not generated yet.
+    */
+    @Override
+    public Image resolveVariant(Image image, String size) {
+        if (size == null) {
+            return image;
+        }
+        if (!imageVariantService.getVariantNames().contains(size)) {
+            throw new ResourceException("Unknown image size: " + size);
+        }
+        if (image.getContentHash() == null) {
+            return image;
+        }
+        return imageVariantService.findVariant(image.getContentHash(), size).map(variant -> {
+            Image served = new Image();
+            served.setId(image.getId());
+            served.setFileName(variantFileName(image.getFileName(), size, variant.getContentType()));
+            served.setFileType(variant.getContentType());
+            served.setContentHash(variant.getContentHash());
+            served.setContentLength(variant.getContentLength());
+            served.setProduct(image.getProduct());
+            return served;
+        }).orElse(image);
+    }
+
+    /*
+        - Returns the local file holding the image content, for zero-copy responses.
+        - Empty when the image is still a legacy database blob or the storage is not file based.
+    */
+    @Override
+    public Optional<Path> getImageFile(Image image) {
+        return image.getContentHash() != null ? imageStorage.localPath(image.getContentHash()) : Optional.empty();
+    }
+
+    /*
+        - Writes a byte range of the image content to the target channel.
+        - position : First byte to write.
+        - count    : Number of bytes to write.
+        - Return the number of bytes written.
+    */
+    @Override
+    public long transferImage(Image image, long position, long count, WritableByteChannel target) throws IOException {
+        if (image.getContentHash() == null) {
+            throw new ResourceException("No stored content for image with id: " + image.getId());
+        }
+        return imageStorage.transferTo(image.getContentHash(), position, count, target);
+    }
+
+    // photo.png served as thumb in jpg is named photo-thumb.jpg
+    private static String variantFileName(String fileName, String size, String contentType) {
+        String base = fileName == null ? "image" : fileName.replaceFirst("\\.[^.]*$", "");
+        return base + "-" + size + (contentType.equals("image/png") ? ".png" : ".jpg");
+    }
+
+    // streams the upload into the storage without buffering it on the heap
+    private void storeContent(Image image, MultipartFile file) throws IOException {
+        StoredImage stored = store(file);
+        AfterCommit.run(() -> imageVariantService.generateAsync(stored.contentHash()));
+        image.setContentHash(stored.contentHash());
+        image.setContentLength(stored.size());
+        image.setImage(null);
+    }
+
+    private StoredImage store(MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            StoredImage stored = imageStorage.store(content);
+            imageMetrics.bytesIn(stored.size());
+            return stored;
+        }
+    }
+
+    // runs on the upload threads, a failure is reported for this file only
+    private StoredImage storeUpload(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new ResourceException("Empty file");
+        }
+        if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+            throw new ResourceException("Not an image: " + file.getContentType());
+        }
+        return store(file);
+    }
+
+    // inserts the accepted uploads with one batch, the generated ids come back in the order of the uploads
+    private List<ImageDto> insertImages(Long productId, List<Upload> uploads) {
+        catalogVersions.touchProduct(productId);
+        SqlParameterSource[] params = new SqlParameterSource[uploads.size()];
+        for (int i = 0; i < uploads.size(); i++) {
+            Upload upload = uploads.get(i);
+            params[i] = new MapSqlParameterSource()
+                    .addValue("fileName", upload.fileName(), Types.VARCHAR)
+                    .addValue("fileType", upload.fileType(), Types.VARCHAR)
+                    .addValue("contentHash", upload.stored().contentHash(), Types.VARCHAR)
+                    .addValue("contentLength", upload.stored().size(), Types.BIGINT)
+                    .addValue("productId", productId, Types.BIGINT);
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        namedJdbcTemplate.batchUpdate(INSERT_IMAGE, params, keys, new String[]{"id"});
+        if (keys.getKeyList().size() != uploads.size()) {
+            throw new IllegalStateException("Expected " + uploads.size() + " image ids, got " + keys.getKeyList().size());
+        }
+
+        List<ImageDto> images = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            Upload upload = uploads.get(i);
+            Long id = ((Number) keys.getKeyList().get(i).values().iterator().next()).longValue();
+            String contentHash = upload.stored().contentHash();
+            images.add(ImageDto.of(id, upload.fileName(), contentHash));
+            AfterCommit.run(() -> imageVariantService.generateAsync(contentHash));
+        }
+        return images;
+    }
+
+    private static void addError(ImageUploadResultDto result, int file, String fileName, String message) {
+        result.setFailed(result.getFailed() + 1);
+        result.getErrors().add(new ImageUploadResultDto.FileError(file, fileName, message));
+    }
+
+    /*
+        - Deletes released content whose grace period is over, with the variants generated from it.
+        - storedBefore : Content released or stored at or after this instant is kept for a later sweep.
+        - Content referenced again is only dropped from the released list, its next release starts over.
+        - Return the number of contents deleted.
+    */
+    public int sweepReleasedContent(Instant storedBefore) {
+        int deleted = 0;
+        int kept = 0;
+        List<String> batch;
+        do {
+            batch = jdbcTemplate.queryForList(SELECT_RELEASED + " offset " + kept + " rows fetch next " + SWEEP_BATCH + " rows only",
+                    String.class, storedBefore.atOffset(ZoneOffset.UTC));
+            for (String contentHash : batch) {
+                if (!isUnused(contentHash)) {
+                    jdbcTemplate.update(DELETE_RELEASE, contentHash);
+                    continue;
+                }
+                boolean gone;
+                try {
+                    gone = imageStorage.deleteIfStoredBefore(contentHash, storedBefore, () -> isUnused(contentHash));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (!gone) {
+                    kept++;
+                    continue;
+                }
+                imageVariantService.removeVariants(contentHash).forEach(this::releaseContent);
+                jdbcTemplate.update(DELETE_RELEASE, contentHash);
+                deleted++;
+            }
+        } while (batch.size() == SWEEP_BATCH);
+        if (deleted > 0) {
+            logger.info("Deleted {} unused image contents", deleted);
+        }
+        return deleted;
+    }
+
+    @Scheduled(initialDelayString = "${app.image.storage.sweep-interval}", fixedDelayString = "${app.image.storage.sweep-interval}")
+    public void sweep() {
+        try {
+            sweepReleasedContent(Instant.now().minus(releaseGrace));
+        } catch (RuntimeException e) {
+            logger.error("Image content sweep failed", e);
+        }
+    }
+
+    // marks the stored bytes for deletion by the sweep, in the caller's transaction when there is one
+    private void releaseContent(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        Object now = Instant.now().atOffset(ZoneOffset.UTC);
+        if (jdbcTemplate.update(UPDATE_RELEASE, now, contentHash) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_RELEASE, contentHash, now);
+            } catch (DuplicateKeyException e) {
+                // released at the same time by another caller
+            }
+        }
+    }
+
+    // identical uploads and variants share one copy of the bytes
+    private boolean isUnused(String contentHash) {
+        Integer references = jdbcTemplate.queryForObject(COUNT_REFERENCES, Integer.class, contentHash, contentHash);
+        return references == null || references == 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploads.shutdownNow();
+    }
+
+    private record Upload(int file, String fileName, String fileType, StoredImage stored) {
     }
 }
@@ -0,0 +1,15 @@
+package com.project.ecommerceapp.service.image;
+
+import com.project.ecommerceapp.model.ImageVariant;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface ImageVariantService {
+    Set<String> getVariantNames();
+    void generateAsync(String sourceHash);
+    List<ImageVariant> generate(String sourceHash);
+    Optional<ImageVariant> findVariant(String sourceHash, String name);
+    List<String> removeVariants(String sourceHash);
+}
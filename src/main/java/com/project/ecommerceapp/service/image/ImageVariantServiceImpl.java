@@ -0,0 +1,240 @@
+package com.project.ecommerceapp.service.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.model.ImageVariant;
+import com.project.ecommerceapp.repository.ImageVariantRepository;
+import com.project.ecommerceapp.service.image.storage.ImageStorage;
+import com.project.ecommerceapp.service.image.storage.StoredImage;
+import com.project.ecommerceapp.service.image.variant.ImageResizer;
+import com.project.ecommerceapp.service.image.variant.VariantSpec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/*
+    Generates the configured variants of uploaded images on a bounded pool of worker threads, off the request path.
+    - Variants are stored in ImageStorage and recorded as ImageVariant rows keyed by (source hash, name). Generating
+      them again finds the rows and does nothing, two nodes racing on the same source keep the first row.
+    - A full queue drops the work. It is queued again the next time a missing variant is requested, so images
+      uploaded before this existed, or whose generation was lost, catch up on first use.
+    - Content that can't be decoded is remembered for a while, so requests for its variants don't queue it again.
+*/
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+    private final ImageVariantRepository imageVariantRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, VariantSpec> specs;
+    private final ImageResizer resizer;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Cache<String, ImageVariant> variants;
+    private final Cache<String, Boolean> undecodable;
+    private final Counter generated;
+    private final Counter failed;
+    private final Counter rejected;
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantServiceImpl.class);
+
+    public ImageVariantServiceImpl(ImageVariantRepository imageVariantRepository,
+                                   ImageStorage imageStorage,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.image.variants}") List<String> variants,
+                                   @Value("${app.image.variants.workers}") int workers,
+                                   @Value("${app.image.variants.queue-capacity}") int queueCapacity,
+                                   @Value("${app.image.variants.max-source-pixels}") long maxSourcePixels,
+                                   @Value("${app.image.variants.jpeg-quality}") float jpegQuality) {
+        this.imageVariantRepository = imageVariantRepository;
+        this.imageStorage = imageStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.specs = variants.stream().map(VariantSpec::parse)
+                .collect(Collectors.toMap(VariantSpec::name, spec -> spec, (a, b) -> b, LinkedHashMap::new));
+        this.resizer = new ImageResizer(maxSourcePixels, jpegQuality);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.variants = Caffeine.newBuilder().maximumSize(10_000).build();
+        this.undecodable = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofHours(1)).build();
+        this.generated = outcome(meterRegistry, "generated");
+        this.failed = outcome(meterRegistry, "failed");
+        this.rejected = outcome(meterRegistry, "rejected");
+        Gauge.builder("image.variants.queue.depth", this.workers, executor -> executor.getQueue().size())
+                .description("Images waiting for their variants to be generated")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Set<String> getVariantNames() {
+        return Collections.unmodifiableSet(specs.keySet());
+    }
+
+    /*
+        - Queues generation of every configured variant of the content, unless it is already queued or running.
+        - Returns at once, a full queue drops the work and counts it as rejected.
+    */
+    @Override
+    public void generateAsync(String sourceHash) {
+        if (specs.isEmpty() || undecodable.getIfPresent(sourceHash) != null || !inFlight.add(sourceHash)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(sourceHash);
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    logger.warn("Failed to generate variants of image content {}", sourceHash, e);
+                } finally {
+                    inFlight.remove(sourceHash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(sourceHash);
+            rejected.increment();
+            logger.warn("Image variant queue is full, dropped content {}", sourceHash);
+        }
+    }
+
+    /*
+        - Generates the variants of the content that don't exist yet, on the calling thread.
+        - sourceHash : Content hash of the original in ImageStorage.
+        - Return every variant of the content, empty when it can't be decoded.
+    */
+    @Override
+    public List<ImageVariant> generate(String sourceHash) {
+        List<ImageVariant> existing = transactionTemplate.execute(status -> imageVariantRepository.findBySourceHash(sourceHash));
+        Set<String> done = existing.stream().map(ImageVariant::getName).collect(Collectors.toSet());
+        List<VariantSpec> missing = specs.values().stream().filter(spec -> !done.contains(spec.name())).toList();
+        if (missing.isEmpty()) {
+            return existing;
+        }
+
+        BufferedImage source;
+        try (InputStream content = imageStorage.open(sourceHash)) {
+            source = resizer.read(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (source == null) {
+            undecodable.put(sourceHash, Boolean.TRUE);
+            logger.info("Image content {} can't be decoded, no variants generated", sourceHash);
+            return existing;
+        }
+
+        List<ImageVariant> all = new ArrayList<>(existing);
+        for (VariantSpec spec : missing) {
+            all.add(store(sourceHash, spec, source));
+        }
+        return all;
+    }
+
+    /*
+        - Looks up a generated variant, queueing generation when it doesn't exist yet.
+        - name : One of the configured variant names, ResourceException otherwise.
+        - Return empty while the variant is not ready, the caller serves the original meanwhile.
+    */
+    @Override
+    public Optional<ImageVariant> findVariant(String sourceHash, String name) {
+        if (!specs.containsKey(name)) {
+            throw new ResourceException("Unknown image size: " + name);
+        }
+        String key = sourceHash + ":" + name;
+        ImageVariant cached = variants.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<ImageVariant> variant = imageVariantRepository.findBySourceHashAndName(sourceHash, name);
+        variant.ifPresentOrElse(found -> variants.put(key, found), () -> generateAsync(sourceHash));
+        return variant;
+    }
+
+    /*
+        - Deletes the variant rows of content that is no longer referenced by any image.
+        - Return the content hashes of the deleted variants, whose bytes the caller releases like any other content.
+    */
+    @Override
+    public List<String> removeVariants(String sourceHash) {
+        List<ImageVariant> removed = transactionTemplate.execute(status -> {
+            List<ImageVariant> rows = imageVariantRepository.findBySourceHash(sourceHash);
+            imageVariantRepository.deleteAllInBatch(rows);
+            return rows;
+        });
+        List<String> contentHashes = new ArrayList<>(removed.size());
+        for (ImageVariant variant : removed) {
+            variants.invalidate(sourceHash + ":" + variant.getName());
+            contentHashes.add(variant.getContentHash());
+        }
+        return contentHashes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private ImageVariant store(String sourceHash, VariantSpec spec, BufferedImage source) {
+        try {
+            ImageResizer.Resized resized = resizer.resize(source, spec);
+            StoredImage stored = imageStorage.store(new ByteArrayInputStream(resized.bytes()));
+            ImageVariant variant = new ImageVariant();
+            variant.setSourceHash(sourceHash);
+            variant.setName(spec.name());
+            variant.setContentHash(stored.contentHash());
+            variant.setContentLength(stored.size());
+            variant.setContentType(spec.contentType());
+            variant.setWidth(resized.width());
+            variant.setHeight(resized.height());
+            ImageVariant saved = transactionTemplate.execute(status -> imageVariantRepository.saveAndFlush(variant));
+            generated.increment();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // generated concurrently by another worker or node, the first row stays
+            return transactionTemplate.execute(status -> imageVariantRepository.findBySourceHashAndName(sourceHash, spec.name()))
+                    .orElseThrow(() -> e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("image.variants")
+                .description("Image variant generation by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.project.ecommerceapp.service.image.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/*
+    Content-addressed store for image bytes.
+    Bytes are keyed by their SHA-256 hash, so storing the same file twice keeps one copy.
+    Storing content that is already there renews its store time, so that content about to be referenced by a new row
+    is not deleted as unused meanwhile, see deleteIfStoredBefore.
+*/
+public interface ImageStorage {
+    StoredImage store(InputStream content) throws IOException;
+
+    boolean exists(String contentHash);
+
+    InputStream open(String contentHash) throws IOException;
+
+    long transferTo(String contentHash, long position, long count, WritableByteChannel target) throws IOException;
+
+    Optional<Path> localPath(String contentHash);
+
+    void delete(String contentHash) throws IOException;
+
+    /*
+        - Deletes content last stored before the cutoff, when it is still unused once taken out of reach of new stores.
+        - storedBefore : Content stored at or after this instant is kept.
+        - unused       : Checks that no row refers to the content anymore, called after the store time was checked.
+        - Return true when the content is gone, false when it was kept.
+    */
+    boolean deleteIfStoredBefore(String contentHash, Instant storedBefore, BooleanSupplier unused) throws IOException;
+}
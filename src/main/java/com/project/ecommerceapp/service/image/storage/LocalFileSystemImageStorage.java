@@ -0,0 +1,176 @@
+package com.project.ecommerceapp.service.image.storage;
+
+import com.project.ecommerceapp.exceptions.ResourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+/*
+    ImageStorage on the local filesystem.
+    Files live under root/ab/cd/abcd..., named by their SHA-256, so a directory never holds too many entries.
+    Uploads are streamed to a temp file while hashed, then atomically moved to their final name.
+    The modification time of a file is its store time, storing the same bytes again touches it.
+*/
+@Component
+public class LocalFileSystemImageStorage implements ImageStorage {
+    private final Path root;
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileSystemImageStorage.class);
+
+    public LocalFileSystemImageStorage(@Value("${app.image.storage.root}") Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root.resolve("tmp"));
+    }
+
+    /*
+        - Streams the content to disk and returns its hash and size.
+        - content : Stream with the image bytes, read once and not closed.
+        - If the same bytes are already stored the new copy is discarded and the stored file is touched.
+    */
+    @Override
+    public StoredImage store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(root.resolve("tmp"), "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                size = content.transferTo(out);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(contentHash);
+            if (Files.exists(target)) {
+                try {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    logger.info("Image content already stored, deduplicated: {}", contentHash);
+                    return new StoredImage(contentHash, size);
+                } catch (NoSuchFileException e) {
+                    // deleted as unused meanwhile, this copy takes its place
+                }
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // a concurrent upload of the same bytes won the race, its copy is identical
+            }
+            return new StoredImage(contentHash, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean exists(String contentHash) {
+        return Files.exists(pathOf(contentHash));
+    }
+
+    @Override
+    public InputStream open(String contentHash) throws IOException {
+        return Files.newInputStream(existingPathOf(contentHash));
+    }
+
+    /*
+        - Copies a byte range of the stored content to the target channel with FileChannel.transferTo,
+          letting the OS move the bytes without copying them through the Java heap.
+        - Return the number of bytes written.
+    */
+    @Override
+    public long transferTo(String contentHash, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(existingPathOf(contentHash), StandardOpenOption.READ)) {
+            long written = 0;
+            while (written < count) {
+                long transferred = channel.transferTo(position + written, count - written, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            return written;
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String contentHash) {
+        Path path = pathOf(contentHash);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String contentHash) throws IOException {
+        Files.deleteIfExists(pathOf(contentHash));
+    }
+
+    /*
+        - The file is first moved out of its place, a store of the same bytes from then on writes a new copy.
+          A store that touched it before the move shows in the moved file's time, it is then put back.
+    */
+    @Override
+    public boolean deleteIfStoredBefore(String contentHash, Instant storedBefore, BooleanSupplier unused) throws IOException {
+        Path path = pathOf(contentHash);
+        try {
+            if (!Files.getLastModifiedTime(path).toInstant().isBefore(storedBefore)) {
+                return false;
+            }
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        Path removed = root.resolve("tmp").resolve(contentHash + "." + UUID.randomUUID() + ".removed");
+        try {
+            Files.move(path, removed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        if (Files.getLastModifiedTime(removed).toInstant().isBefore(storedBefore) && unused.getAsBoolean()) {
+            Files.delete(removed);
+            return true;
+        }
+        try {
+            Files.move(removed, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // stored again meanwhile, the new copy is identical
+            Files.delete(removed);
+        }
+        return false;
+    }
+
+    private Path existingPathOf(String contentHash) {
+        return localPath(contentHash)
+                .orElseThrow(() -> new ResourceException("No image content found with hash: " + contentHash));
+    }
+
+    private Path pathOf(String contentHash) {
+        if (!contentHash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        return root.resolve(contentHash.substring(0, 2)).resolve(contentHash.substring(2, 4)).resolve(contentHash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
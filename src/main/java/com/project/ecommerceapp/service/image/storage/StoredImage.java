@@ -0,0 +1,9 @@
+package com.project.ecommerceapp.service.image.storage;
+
+/*
+    Result of storing image bytes.
+    - contentHash : Hex encoded SHA-256 of the bytes, also the key under which they are stored.
+    - size        : Number of bytes.
+*/
+public record StoredImage(String contentHash, long size) {
+}
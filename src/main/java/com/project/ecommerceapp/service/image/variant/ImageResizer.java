@@ -0,0 +1,111 @@
+package com.project.ecommerceapp.service.image.variant;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/*
+    Decodes an image and renders scaled down copies of it with the JDK's ImageIO, no native libraries involved.
+    - maxPixels   : Largest width * height decoded, larger images are refused before their pixels are read.
+    - jpegQuality : Compression quality of jpg variants, between 0 and 1.
+*/
+public class ImageResizer {
+    private final long maxPixels;
+    private final float jpegQuality;
+
+    // Encoded bytes of a variant and its dimensions
+    public record Resized(byte[] bytes, int width, int height) {
+    }
+
+    public ImageResizer(long maxPixels, float jpegQuality) {
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /*
+        - Decodes the content, reading the dimensions from the header first.
+        - Return null when no ImageIO reader understands the content or it has more than maxPixels.
+    */
+    public BufferedImage read(InputStream content) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /*
+        - Scales the image so that its longest edge is at most spec.size, keeping the aspect ratio, and encodes it.
+        - Large reductions are done in halving steps, a single bilinear step would skip most source pixels.
+    */
+    public Resized resize(BufferedImage source, VariantSpec spec) throws IOException {
+        double scale = Math.min(1.0, (double) spec.size() / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean alpha = spec.format().equals("png") && source.getColorModel().hasAlpha();
+
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            current = draw(current, currentWidth, currentHeight, alpha);
+        } while (currentWidth != width || currentHeight != height);
+        return new Resized(encode(current, spec), width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // transparent pixels become white rather than black when the variant has no alpha channel
+            graphics.drawImage(source, 0, 0, width, height, alpha ? null : Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image, VariantSpec spec) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(spec.format().equals("jpg") ? "jpeg" : "png").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (spec.format().equals("jpg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,32 @@
+package com.project.ecommerceapp.service.image.variant;
+
+import java.util.Locale;
+
+/*
+    One configured image variant, written as name:size:format in app.image.variants.
+    - name   : Value of the size parameter on the download endpoint, such as thumb.
+    - size   : Longest edge in pixels, smaller originals are re-encoded but never enlarged.
+    - format : jpg or png.
+*/
+public record VariantSpec(String name, int size, String format) {
+
+    public static VariantSpec parse(String value) {
+        String[] parts = value.trim().split(":");
+        if (parts.length != 3 || !parts[0].matches("[a-z0-9-]{1,32}")) {
+            throw new IllegalArgumentException("Image variant must be name:size:format, was: " + value);
+        }
+        String format = parts[2].toLowerCase(Locale.ROOT);
+        if (!format.equals("jpg") && !format.equals("png")) {
+            throw new IllegalArgumentException("Image variant format must be jpg or png, was: " + value);
+        }
+        int size = Integer.parseInt(parts[1]);
+        if (size < 1) {
+            throw new IllegalArgumentException("Image variant size must be positive, was: " + value);
+        }
+        return new VariantSpec(parts[0], size, format);
+    }
+
+    public String contentType() {
+        return format.equals("jpg") ? "image/jpeg" : "image/png";
+    }
+}
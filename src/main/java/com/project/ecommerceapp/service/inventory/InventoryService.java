@@ -0,0 +1,11 @@
+package com.project.ecommerceapp.service.inventory;
+
+import com.project.ecommerceapp.dto.ReservationDto;
+
+public interface InventoryService {
+    ReservationDto reserve(Long productId, int quantity);
+    ReservationDto commit(String reservationId);
+    ReservationDto release(String reservationId);
+    ReservationDto getReservation(String reservationId);
+    void setStock(Long productId, int inventory);
+}
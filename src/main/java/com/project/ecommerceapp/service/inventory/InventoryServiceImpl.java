@@ -0,0 +1,400 @@
+package com.project.ecommerceapp.service.inventory;
+
+import com.project.ecommerceapp.dto.ReservationDto;
+import com.project.ecommerceapp.exceptions.InventoryConflictException;
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.model.InventoryLease;
+import com.project.ecommerceapp.model.InventoryReservation;
+import com.project.ecommerceapp.model.ReservationStatus;
+import com.project.ecommerceapp.repository.InventoryLeaseRepository;
+import com.project.ecommerceapp.repository.InventoryReservationRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Reserve, commit and release inventory without a row lock per buyer.
+    - Every node leases units from Product.inventory in blocks of app.inventory.lease-size with one conditional
+      update, and reserves them from an in-memory counter per product. Units are never in two places: they are
+      either in Product.inventory, in a lease, or in a reservation, so no interleaving of nodes can oversell.
+    - Reservations are written by ReservationLog in group-committed batches and are only returned once durable.
+    - Commit and release are conditional status updates, released and expired units go back to Product.inventory.
+    - The sweep heartbeats this node's leases, returns idle ones, expires reservations and reclaims the leases
+      of nodes that stopped heartbeating, so a crash loses neither leased nor reserved units.
+    Product.inventory read by clients excludes units leased to nodes, productById is evicted whenever it changes,
+    cached product pages may lag until their next write.
+*/
+@Service
+public class InventoryServiceImpl implements InventoryService {
+    private static final int SWEEP_BATCH = 500;
+    private static final int HEARTBEAT_BATCH = 1000;
+
+    private final ProductRepository productRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final ReservationLog reservationLog;
+    private final Map<Long, SkuCounter> counters = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final int leaseSize;
+    private final Duration leaseTtl;
+    private final Duration leaseIdle;
+    private final Duration reservationTtl;
+    private final Duration soldOutRecheck;
+    private final Counter reserved;
+    private final Counter insufficient;
+    private final Counter failed;
+    private static final Logger logger = LoggerFactory.getLogger(InventoryServiceImpl.class);
+
+    public InventoryServiceImpl(ProductRepository productRepository,
+                                InventoryReservationRepository reservationRepository,
+                                InventoryLeaseRepository leaseRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                CacheManager cacheManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.inventory.lease-size}") int leaseSize,
+                                @Value("${app.inventory.lease-ttl}") Duration leaseTtl,
+                                @Value("${app.inventory.lease-idle}") Duration leaseIdle,
+                                @Value("${app.inventory.reservation-ttl}") Duration reservationTtl,
+                                @Value("${app.inventory.sold-out-recheck}") Duration soldOutRecheck,
+                                @Value("${app.inventory.log.max-batch}") int maxBatch,
+                                @Value("${app.inventory.log.capacity}") int capacity) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.leaseSize = leaseSize;
+        this.leaseTtl = leaseTtl;
+        this.leaseIdle = leaseIdle;
+        this.reservationTtl = reservationTtl;
+        this.soldOutRecheck = soldOutRecheck;
+        this.reserved = outcome(meterRegistry, "reserved");
+        this.insufficient = outcome(meterRegistry, "insufficient");
+        this.failed = outcome(meterRegistry, "failed");
+        DistributionSummary batchSize = DistributionSummary.builder("inventory.log.batch.size")
+                .description("Reservations written per transaction")
+                .register(meterRegistry);
+        this.reservationLog = new ReservationLog(jdbcTemplate, transactionTemplate, maxBatch, capacity, batchSize);
+        Gauge.builder("inventory.log.queue.depth", reservationLog, ReservationLog::depth)
+                .description("Reservations waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /*
+        - Holds quantity units of a product until the reservation is committed, released or expires.
+        - productId : Id of the product.
+        - quantity  : Units to hold, positive.
+        - Throw InventoryConflictException if not enough units are left, ResourceException if the product does not exist.
+    */
+    @Override
+    public ReservationDto reserve(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        boolean retried = false;
+        while (true) {
+            SkuCounter counter = counter(productId);
+            if (!counter.tryTake(quantity) && !refillAndTake(productId, counter, quantity)) {
+                continue;
+            }
+            Instant now = Instant.now();
+            InventoryReservation reservation = new InventoryReservation(UUID.randomUUID().toString(), productId, quantity,
+                    ReservationStatus.RESERVED, nodeId, now, now.plus(reservationTtl));
+            try {
+                reservationLog.append(reservation, leaseId(productId), counter).join();
+                reserved.increment();
+                return toDto(reservation);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ReservationLog.LeaseLostException && !retried) {
+                    retried = true;
+                    continue;
+                }
+                failed.increment();
+                throw new IllegalStateException("Reservation could not be recorded", e.getCause());
+            }
+        }
+    }
+
+    /*
+        - Turns a reservation into a sale, committing twice is allowed.
+        - Throw ResourceException if it does not exist, InventoryConflictException if it was released or expired.
+    */
+    @Override
+    public ReservationDto commit(String reservationId) {
+        return transactionTemplate.execute(status -> {
+            reservationRepository.commit(reservationId, Instant.now());
+            InventoryReservation reservation = find(reservationId);
+            if (reservation.getStatus() == ReservationStatus.COMMITTED) {
+                return toDto(reservation);
+            }
+            if (reservation.getStatus() == ReservationStatus.RESERVED) {
+                throw new InventoryConflictException("Reservation has expired");
+            }
+            throw new InventoryConflictException("Reservation is " + reservation.getStatus().name().toLowerCase());
+        });
+    }
+
+    /*
+        - Gives the units of a reservation back to the product, releasing twice or after expiry is allowed.
+        - Throw ResourceException if it does not exist, InventoryConflictException if it was committed.
+    */
+    @Override
+    public ReservationDto release(String reservationId) {
+        InventoryReservation reservation = transactionTemplate.execute(status -> {
+            boolean released = reservationRepository.transition(reservationId, ReservationStatus.RESERVED, ReservationStatus.RELEASED) == 1;
+            InventoryReservation found = find(reservationId);
+            if (released) {
+                productRepository.addInventory(found.getProductId(), found.getQuantity());
+            } else if (found.getStatus() == ReservationStatus.COMMITTED) {
+                throw new InventoryConflictException("Reservation is committed");
+            }
+            return found;
+        });
+        returned(reservation.getProductId());
+        return toDto(reservation);
+    }
+
+    @Override
+    public ReservationDto getReservation(String reservationId) {
+        return toDto(find(reservationId));
+    }
+
+    /*
+        - Sets the stock of a product to an absolute number, in the caller's transaction when there is one.
+        - The leases of every node are taken back, a node finds out when it next writes a reservation and leases again
+          from the new stock. Units of open reservations are subtracted, so that they are not counted twice.
+        - Clears the persistence context, the caller reloads the product.
+    */
+    @Override
+    public void setStock(Long productId, int inventory) {
+        transactionTemplate.executeWithoutResult(status -> {
+            leaseRepository.deleteByProductId(productId);
+            productRepository.setStock(productId, inventory);
+        });
+        AfterCommit.run(() -> returned(productId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.sweep-interval}")
+    public void sweep() {
+        try {
+            heartbeat();
+            returnIdleLeases();
+            expireReservations();
+            reclaimStaleLeases();
+        } catch (RuntimeException e) {
+            logger.error("Inventory sweep failed", e);
+        }
+    }
+
+    // Returns the units of reservations past their expiry to their products
+    public int expireReservations() {
+        int expired = 0;
+        List<InventoryReservation> batch;
+        do {
+            batch = reservationRepository.findExpired(Instant.now(), Limit.of(SWEEP_BATCH));
+            List<InventoryReservation> candidates = batch;
+            Map<Long, Integer> units = transactionTemplate.execute(status -> {
+                Map<Long, Integer> perProduct = new HashMap<>();
+                for (InventoryReservation reservation : candidates) {
+                    if (reservationRepository.transition(reservation.getId(), ReservationStatus.RESERVED, ReservationStatus.EXPIRED) == 1) {
+                        perProduct.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+                    }
+                }
+                perProduct.forEach(productRepository::addInventory);
+                return perProduct;
+            });
+            units.keySet().forEach(this::returned);
+            expired += units.values().stream().mapToInt(Integer::intValue).sum();
+        } while (batch.size() == SWEEP_BATCH);
+        if (expired > 0) {
+            logger.info("Returned {} units of expired reservations", expired);
+        }
+        return expired;
+    }
+
+    // Returns the units of leases whose node stopped heartbeating to their products
+    public int reclaimStaleLeases() {
+        Instant cutoff = Instant.now().minus(leaseTtl);
+        int reclaimed = 0;
+        for (InventoryLease lease : leaseRepository.findStale(cutoff, Limit.of(SWEEP_BATCH))) {
+            Boolean won = transactionTemplate.execute(status -> {
+                if (leaseRepository.reclaim(lease.getId(), cutoff, lease.getRemaining()) == 0) {
+                    return false;
+                }
+                productRepository.addInventory(lease.getProductId(), lease.getRemaining());
+                return true;
+            });
+            if (Boolean.TRUE.equals(won) && lease.getRemaining() > 0) {
+                logger.warn("Reclaimed {} units of product {} leased by node {}", lease.getRemaining(), lease.getProductId(), lease.getNodeId());
+                returned(lease.getProductId());
+                reclaimed += lease.getRemaining();
+            }
+        }
+        return reclaimed;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        reservationLog.stop();
+        counters.forEach(this::returnLease);
+    }
+
+    private SkuCounter counter(Long productId) {
+        SkuCounter counter = counters.get(productId);
+        if (counter != null && !counter.isDropped()) {
+            return counter;
+        }
+        return counters.compute(productId, (id, current) -> current == null || current.isDropped() ? new SkuCounter() : current);
+    }
+
+    // Leases more units when the counter runs short, false when the counter was dropped meanwhile
+    private boolean refillAndTake(Long productId, SkuCounter counter, int quantity) {
+        counter.lock().lock();
+        try {
+            if (counter.isDropped()) {
+                return false;
+            }
+            if (counter.tryTake(quantity)) {
+                return true;
+            }
+            if (!counter.isSoldOut()) {
+                counter.add(lease(productId, Math.max(leaseSize, quantity - counter.available())));
+                if (counter.tryTake(quantity)) {
+                    return true;
+                }
+                counter.soldOutFor(soldOutRecheck.toNanos());
+            }
+        } finally {
+            counter.lock().unlock();
+        }
+        insufficient.increment();
+        throw new InventoryConflictException("Not enough inventory");
+    }
+
+    // Moves up to wanted units from the product to this node's lease, returns the units moved
+    private int lease(Long productId, int wanted) {
+        Integer granted = transactionTemplate.execute(status -> {
+            while (true) {
+                int available = productRepository.findInventoryById(productId)
+                        .orElseThrow(() -> new ResourceException("Product Not Found"));
+                int grant = Math.min(wanted, available);
+                if (grant <= 0) {
+                    return 0;
+                }
+                if (productRepository.takeInventory(productId, grant) == 1) {
+                    Instant now = Instant.now();
+                    String leaseId = leaseId(productId);
+                    if (leaseRepository.grow(leaseId, grant, now) == 0) {
+                        leaseRepository.save(new InventoryLease(leaseId, nodeId, productId, grant, now));
+                    }
+                    return grant;
+                }
+            }
+        });
+        if (granted > 0) {
+            evictProduct(productId);
+        }
+        return granted;
+    }
+
+    private void heartbeat() {
+        List<String> leaseIds = counters.keySet().stream().map(this::leaseId).toList();
+        Instant now = Instant.now();
+        for (int from = 0; from < leaseIds.size(); from += HEARTBEAT_BATCH) {
+            List<String> chunk = leaseIds.subList(from, Math.min(leaseIds.size(), from + HEARTBEAT_BATCH));
+            transactionTemplate.executeWithoutResult(status -> leaseRepository.heartbeat(chunk, now));
+        }
+    }
+
+    private void returnIdleLeases() {
+        counters.forEach((productId, counter) -> {
+            if (counter.idleFor(leaseIdle.toNanos())) {
+                returnLease(productId, counter);
+            }
+        });
+    }
+
+    // Gives the units of a counter back to the product, reservations still being written keep their lease row alive
+    private void returnLease(Long productId, SkuCounter counter) {
+        counter.lock().lock();
+        try {
+            counters.remove(productId, counter);
+            int units = counter.drop();
+            String leaseId = leaseId(productId);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (units > 0 && leaseRepository.shrink(leaseId, units) == 1) {
+                    productRepository.addInventory(productId, units);
+                }
+                leaseRepository.deleteIfEmpty(leaseId);
+            });
+            if (units > 0) {
+                evictProduct(productId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Returning the lease of product {} failed, it is reclaimed once its heartbeat expires", productId, e);
+        } finally {
+            counter.lock().unlock();
+        }
+    }
+
+    // Units went back to the product, so it is worth asking for a lease again
+    private void returned(Long productId) {
+        SkuCounter counter = counters.get(productId);
+        if (counter != null) {
+            counter.clearSoldOut();
+        }
+        evictProduct(productId);
+    }
+
+    private void evictProduct(Long productId) {
+        Cache cache = cacheManager.getCache("productById");
+        if (cache != null) {
+            cache.evict(productId);
+        }
+    }
+
+    private InventoryReservation find(String reservationId) {
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResourceException("Reservation Not Found"));
+    }
+
+    private String leaseId(Long productId) {
+        return nodeId + ":" + productId;
+    }
+
+    private static ReservationDto toDto(InventoryReservation reservation) {
+        return new ReservationDto(reservation.getId(), reservation.getProductId(), reservation.getQuantity(),
+                reservation.getStatus(), reservation.getExpiresAt());
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.reservations")
+                .description("Reservation attempts by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
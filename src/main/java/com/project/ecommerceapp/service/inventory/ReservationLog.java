@@ -0,0 +1,157 @@
+package com.project.ecommerceapp.service.inventory;
+
+import com.project.ecommerceapp.model.InventoryReservation;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Group commit of reservations. Callers append and wait, a single writer thread takes everything queued (up to
+    maxBatch entries) and writes it in one transaction: one update per lease for the units that left it, and one
+    JDBC batch insert of the reservation rows. A reservation is only acknowledged once its row is durable, yet a
+    hot product costs one transaction per batch rather than one per buyer.
+    - A lease that no longer exists or holds too few units was reclaimed from this node, its entries fail with
+      LeaseLostException and its counter is dropped.
+    - When the transaction fails, the units go back to their counters and the entries fail.
+*/
+final class ReservationLog {
+    private static final String UPDATE_LEASE =
+            "update inventory_lease set remaining = remaining - ?, heartbeat_at = ? where id = ? and remaining >= ?";
+    private static final String INSERT_RESERVATION =
+            "insert into inventory_reservation (id, product_id, quantity, status, node_id, created_at, expires_at) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLog.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final DistributionSummary batchSize;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    ReservationLog(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int maxBatch, int capacity,
+                   DistributionSummary batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatch = maxBatch;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::run, "inventory-reservation-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /*
+        - Queues a reservation whose units were already taken from counter.
+        - Return a future completed once the row is written, or failed when it could not be.
+    */
+    CompletableFuture<Void> append(InventoryReservation reservation, String leaseId, SkuCounter counter) {
+        Entry entry = new Entry(reservation, leaseId, counter, new CompletableFuture<>());
+        if (!running || !queue.offer(entry)) {
+            counter.add(reservation.getQuantity());
+            entry.written.completeExceptionally(new IllegalStateException("Reservation log is full"));
+        }
+        return entry.written;
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    // Writes what is queued and stops the writer
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Reservation log writer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        Map<String, Integer> perLease = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            perLease.merge(entry.leaseId, entry.reservation.getQuantity(), Integer::sum);
+        }
+        Set<String> lost = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lost.clear();
+                Object now = Instant.now().atOffset(ZoneOffset.UTC);
+                perLease.forEach((leaseId, quantity) -> {
+                    if (jdbcTemplate.update(UPDATE_LEASE, quantity, now, leaseId, quantity) == 0) {
+                        lost.add(leaseId);
+                    }
+                });
+                List<Entry> kept = batch.stream().filter(entry -> !lost.contains(entry.leaseId)).toList();
+                jdbcTemplate.batchUpdate(INSERT_RESERVATION, kept, kept.size(), (ps, entry) -> {
+                    InventoryReservation reservation = entry.reservation;
+                    ps.setString(1, reservation.getId());
+                    ps.setLong(2, reservation.getProductId());
+                    ps.setInt(3, reservation.getQuantity());
+                    ps.setString(4, reservation.getStatus().name());
+                    ps.setString(5, reservation.getNodeId());
+                    ps.setObject(6, reservation.getCreatedAt().atOffset(ZoneOffset.UTC));
+                    ps.setObject(7, reservation.getExpiresAt().atOffset(ZoneOffset.UTC));
+                });
+            });
+        } catch (RuntimeException e) {
+            logger.error("Writing {} reservations failed", batch.size(), e);
+            for (Entry entry : batch) {
+                entry.counter.add(entry.reservation.getQuantity());
+                entry.written.completeExceptionally(new IllegalStateException("Reservation could not be recorded", e));
+            }
+            return;
+        }
+        batchSize.record(batch.size());
+        for (Entry entry : batch) {
+            if (lost.contains(entry.leaseId)) {
+                entry.counter.drop();
+                entry.written.completeExceptionally(new LeaseLostException());
+            } else {
+                entry.written.complete(null);
+            }
+        }
+        if (!lost.isEmpty()) {
+            logger.warn("Leases {} were reclaimed from this node, their reservations are retried", lost);
+        }
+    }
+
+    private record Entry(InventoryReservation reservation, String leaseId, SkuCounter counter,
+                         CompletableFuture<Void> written) {
+    }
+
+    static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super("Inventory lease was reclaimed", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.ecommerceapp.service.inventory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Leased units of one product available on this node. Reservations take units with a compare-and-set, so
+    buyers of the same product never wait on each other while units are left; refills and returns of the lease
+    hold the lock. A dropped counter no longer hands out units and is replaced by a fresh one on the next
+    reservation.
+*/
+final class SkuCounter {
+    private final AtomicInteger available = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean dropped;
+    // System.nanoTime() until which the product is known to be sold out
+    private volatile long soldOutUntil;
+    private volatile long lastUsed = System.nanoTime();
+
+    boolean tryTake(int quantity) {
+        lastUsed = System.nanoTime();
+        while (!dropped) {
+            int current = available.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(int quantity) {
+        available.addAndGet(quantity);
+    }
+
+    int available() {
+        return available.get();
+    }
+
+    // Stops handing out units and returns the ones left
+    int drop() {
+        dropped = true;
+        return available.getAndSet(0);
+    }
+
+    boolean isDropped() {
+        return dropped;
+    }
+
+    boolean isSoldOut() {
+        return System.nanoTime() - soldOutUntil < 0;
+    }
+
+    void soldOutFor(long nanos) {
+        soldOutUntil = System.nanoTime() + nanos;
+    }
+
+    void clearSoldOut() {
+        soldOutUntil = System.nanoTime();
+    }
+
+    boolean idleFor(long nanos) {
+        return System.nanoTime() - lastUsed > nanos;
+    }
+
+    ReentrantLock lock() {
+        return lock;
+    }
+}
@@ -0,0 +1,11 @@
+package com.project.ecommerceapp.service.product;
+
+import com.project.ecommerceapp.dto.BulkUpdateResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface ProductBulkUpdateService {
+    void update(InputStream json, Consumer<BulkUpdateResultDto> results) throws IOException;
+}
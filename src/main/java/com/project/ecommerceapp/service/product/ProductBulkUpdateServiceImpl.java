@@ -0,0 +1,305 @@
+package com.project.ecommerceapp.service.product;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.catalog.CatalogVersions;
+import com.project.ecommerceapp.dto.BulkUpdateResultDto;
+import com.project.ecommerceapp.dto.BulkUpdateResultDto.Status;
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.facet.FacetCounts;
+import com.project.ecommerceapp.request.BulkUpdateProductRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+    Applies price and inventory changes to many products without loading them, in chunks of
+    api.bulk-update.batch-size records, each chunk in its own transaction.
+    - The current category, brand and price of a chunk are read with one query, ids it does not return are not found.
+    - Changes are written with one JDBC batch per kind of change. Inventory deltas are conditional and go first,
+      so a record whose delta is rejected does not get its price changed either.
+    - An absolute inventory deletes the product's leases in the same transaction: the nodes' next reservation from
+      the old lease fails with LeaseLostException, their counter is dropped and they lease again from the new stock,
+      so no node sells units beyond it.
+    - Once a chunk has committed, its price changes are applied to the facet counts and the product caches are
+      cleared once, rather than evicted entry by entry.
+    - Results are handed to the caller chunk by chunk in request order, a failing chunk is reported record by record
+      and does not stop the update.
+*/
+@Service
+public class ProductBulkUpdateServiceImpl implements ProductBulkUpdateService {
+    private static final String SELECT_CURRENT = "select p.id, c.name, p.brand, p.price from product p "
+            + "left join category c on c.id = p.category_id where p.id in (:ids)";
+    private static final String UPDATE_PRICE = "update product set price = ?, change_version = ? where id = ?";
+    private static final String ADD_INVENTORY = "update product set inventory = inventory + ?, change_version = ? "
+            + "where id = ? and inventory + ? >= 0";
+    // the nodes' leases of the product are taken back first, so the stock only excludes units held by open reservations
+    private static final String DELETE_LEASES = "delete from inventory_lease where product_id = ?";
+    private static final String SET_STOCK = "update product set change_version = ?, inventory = "
+            + "(select case when ? > coalesce(sum(r.quantity), 0) then ? - coalesce(sum(r.quantity), 0) else 0 end "
+            + "from inventory_reservation r where r.product_id = product.id and r.status = 'RESERVED') "
+            + "where id = ?";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final FacetCounts facetCounts;
+    private final CatalogVersions catalogVersions;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private static final Logger logger = LoggerFactory.getLogger(ProductBulkUpdateServiceImpl.class);
+
+    public ProductBulkUpdateServiceImpl(NamedParameterJdbcTemplate namedJdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        CacheManager cacheManager,
+                                        FacetCounts facetCounts,
+                                        CatalogVersions catalogVersions,
+                                        ObjectMapper objectMapper,
+                                        @Value("${api.bulk-update.batch-size}") int batchSize) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.jdbcTemplate = namedJdbcTemplate.getJdbcTemplate();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.facetCounts = facetCounts;
+        this.catalogVersions = catalogVersions;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /*
+        - Reads update records from a JSON array or from newline delimited JSON objects and applies them.
+        - results : Receives one result per record, in request order.
+        - Throw ResourceException if the body is neither an array nor a sequence of objects.
+    */
+    @Override
+    public void update(InputStream json, Consumer<BulkUpdateResultDto> results) throws IOException {
+        Update run = new Update(results);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return;
+            }
+            boolean array = first == JsonToken.START_ARRAY;
+            if (!array && first != JsonToken.START_OBJECT) {
+                throw new ResourceException("Expected a JSON array or newline delimited JSON objects");
+            }
+            JsonToken token = array ? parser.nextToken() : first;
+            long row = 0;
+            try {
+                while (token == JsonToken.START_OBJECT) {
+                    row++;
+                    JsonNode node = parser.readValueAsTree();
+                    try {
+                        run.add(row, objectMapper.treeToValue(node, BulkUpdateProductRequest.class));
+                    } catch (JsonProcessingException e) {
+                        run.reject(row, null, "Invalid record: " + e.getOriginalMessage());
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                // the rows before are still applied, nothing after a syntax error can be trusted
+                run.reject(row, null, "Malformed JSON, update stopped: " + e.getOriginalMessage());
+            }
+        }
+        run.finish();
+    }
+
+    /*
+        State of one update call, records are buffered until a chunk is full.
+    */
+    private class Update {
+        private final Consumer<BulkUpdateResultDto> results;
+        private final List<BulkUpdateResultDto> chunkResults = new ArrayList<>(batchSize);
+        private final Map<Long, Record> chunk = new LinkedHashMap<>();
+        private long received;
+        private long updated;
+
+        Update(Consumer<BulkUpdateResultDto> results) {
+            this.results = results;
+        }
+
+        void add(long row, BulkUpdateProductRequest request) {
+            String error = validate(request);
+            if (error != null) {
+                reject(row, request.getId(), error);
+                return;
+            }
+            // a chunk reads every product once, a repeated id starts the next chunk
+            if (chunk.containsKey(request.getId())) {
+                flush();
+            }
+            received++;
+            BulkUpdateResultDto result = new BulkUpdateResultDto(row, request.getId(), Status.UPDATED, null);
+            chunkResults.add(result);
+            chunk.put(request.getId(), new Record(request, result));
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, Long id, String message) {
+            received++;
+            chunkResults.add(new BulkUpdateResultDto(row, id, Status.INVALID, message));
+        }
+
+        void finish() {
+            flush();
+            logger.info("Bulk update finished, received: {}, updated: {}, failed: {}", received, updated, received - updated);
+        }
+
+        private void flush() {
+            if (!chunk.isEmpty()) {
+                apply();
+            }
+            chunkResults.forEach(results);
+            chunkResults.clear();
+            chunk.clear();
+        }
+
+        private void apply() {
+            List<FacetMove> moves;
+            try {
+                moves = transactionTemplate.execute(status -> applyChunk(chunk.values()));
+            } catch (DataAccessException e) {
+                logger.error("Bulk update chunk failed at id: {}", chunk.keySet().iterator().next(), e);
+                String message = "Batch rejected by the database: " + e.getMostSpecificCause().getMessage();
+                chunk.values().forEach(record -> record.fail(Status.FAILED, message));
+                return;
+            }
+            updated += chunk.values().stream().filter(record -> record.result().getStatus() == Status.UPDATED).count();
+            moves.forEach(move -> facetCounts.move(move.from(), move.to()));
+            clearCache("productById");
+            clearCache("allProducts");
+        }
+    }
+
+    // runs inside the chunk's transaction, records failing a step are marked and skipped by the later ones
+    private List<FacetMove> applyChunk(Collection<Record> records) {
+        long version = catalogVersions.next();
+        Map<Long, FacetCounts.Cell> current = readCurrent(records);
+        List<Record> found = new ArrayList<>(records.size());
+        for (Record record : records) {
+            if (current.containsKey(record.request().getId())) {
+                found.add(record);
+            } else {
+                record.fail(Status.NOT_FOUND, "Product Not Found");
+            }
+        }
+
+        List<Record> deltas = found.stream().filter(record -> record.request().getInventoryDelta() != null).toList();
+        int[] added = batch(ADD_INVENTORY, deltas, record -> new Object[]{
+                record.request().getInventoryDelta(), version, record.request().getId(), record.request().getInventoryDelta()
+        }, Types.INTEGER, Types.BIGINT, Types.BIGINT, Types.INTEGER);
+        for (int i = 0; i < deltas.size(); i++) {
+            if (added[i] == 0) {
+                deltas.get(i).fail(Status.CONFLICT, "Not enough inventory left");
+            }
+        }
+
+        List<Record> stock = updatable(found, record -> record.request().getInventory() != null);
+        batch(DELETE_LEASES, stock, record -> new Object[]{record.request().getId()}, Types.BIGINT);
+        checkUpdated(stock, batch(SET_STOCK, stock, record -> new Object[]{
+                version, record.request().getInventory(), record.request().getInventory(), record.request().getId()
+        }, Types.BIGINT, Types.INTEGER, Types.INTEGER, Types.BIGINT));
+
+        List<Record> prices = updatable(found, record -> record.request().getPrice() != null);
+        checkUpdated(prices, batch(UPDATE_PRICE, prices, record -> new Object[]{
+                record.request().getPrice(), version, record.request().getId()
+        }, Types.DECIMAL, Types.BIGINT, Types.BIGINT));
+
+        List<FacetMove> moves = new ArrayList<>();
+        for (Record record : updatable(prices, r -> true)) {
+            FacetCounts.Cell from = current.get(record.request().getId());
+            FacetCounts.Cell to = facetCounts.cell(from.category(), from.brand(), record.request().getPrice());
+            if (!from.equals(to)) {
+                moves.add(new FacetMove(from, to));
+            }
+        }
+        return moves;
+    }
+
+    private Map<Long, FacetCounts.Cell> readCurrent(Collection<Record> records) {
+        List<Long> ids = records.stream().map(record -> record.request().getId()).toList();
+        Map<Long, FacetCounts.Cell> current = new HashMap<>();
+        namedJdbcTemplate.query(SELECT_CURRENT, Map.of("ids", ids), row -> {
+            current.put(row.getLong(1), facetCounts.cell(row.getString(2), row.getString(3), row.getBigDecimal(4)));
+        });
+        return current;
+    }
+
+    private int[] batch(String sql, List<Record> records, Function<Record, Object[]> params, int... types) {
+        if (records.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, records.stream().map(params).toList(), types);
+    }
+
+    // a product deleted after the chunk was read updates no row
+    private static void checkUpdated(List<Record> records, int[] counts) {
+        for (int i = 0; i < records.size(); i++) {
+            if (counts[i] == 0) {
+                records.get(i).fail(Status.NOT_FOUND, "Product Not Found");
+            }
+        }
+    }
+
+    private static List<Record> updatable(List<Record> records, Predicate<Record> filter) {
+        return records.stream().filter(record -> record.result().getStatus() == Status.UPDATED).filter(filter).toList();
+    }
+
+    private void clearCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static String validate(BulkUpdateProductRequest request) {
+        if (request == null || request.getId() == null) {
+            return "Id is required";
+        }
+        if (request.getPrice() == null && request.getInventory() == null && request.getInventoryDelta() == null) {
+            return "Nothing to update, set price, inventory or inventoryDelta";
+        }
+        if (request.getPrice() != null && request.getPrice().signum() < 0) {
+            return "Price must not be negative";
+        }
+        if (request.getInventory() != null && request.getInventory() < 0) {
+            return "Inventory must not be negative";
+        }
+        if (request.getInventory() != null && request.getInventoryDelta() != null) {
+            return "Set either inventory or inventoryDelta, not both";
+        }
+        return null;
+    }
+
+    private record Record(BulkUpdateProductRequest request, BulkUpdateResultDto result) {
+        void fail(Status status, String message) {
+            result.setStatus(status);
+            result.setMessage(message);
+        }
+    }
+
+    private record FacetMove(FacetCounts.Cell from, FacetCounts.Cell to) {
+    }
+}
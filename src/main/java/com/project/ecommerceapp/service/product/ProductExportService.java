@@ -0,0 +1,8 @@
+package com.project.ecommerceapp.service.product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+    long exportProducts(OutputStream out) throws IOException;
+}
@@ -0,0 +1,80 @@
+package com.project.ecommerceapp.service.product;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.mapper.ProductDtoAssembler;
+import com.project.ecommerceapp.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/*
+    This class streams the whole catalog as newline-delimited JSON.
+    Products are read as DTO projections in keyset chunks ordered by id and written chunk by chunk,
+    so memory stays flat regardless of catalog size.
+    Each chunk query is read to the end before the images of the chunk are queried: the SQL Server driver has no
+    multiple active result sets and would buffer the rest of an open cursor in memory to run the second query.
+*/
+@Service
+@RequiredArgsConstructor
+public class ProductExportServiceImpl implements ProductExportService {
+    private final ProductRepository productRepository;
+    private final ProductDtoAssembler productDtoAssembler;
+    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportServiceImpl.class);
+
+    @Value("${api.export.chunk-size:500}")
+    private int chunkSize;
+
+    /*
+        - Writes every product as one JSON line to the output stream.
+        - out : The target stream, it is flushed but not closed.
+        - Rows are read in chunks of chunkSize after the last exported id, the images of a chunk are loaded with one
+          query, then the chunk is written and flushed. The first chunk is a single row so the first byte goes out immediately.
+        - Return the number of exported products.
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out) throws IOException {
+        logger.info("Exporting products with chunk size: {}", chunkSize);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long after = 0;
+            int limit = 1;
+            while (true) {
+                List<ProductDto> chunk = productRepository.findDtoPage(after, Limit.of(limit));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                after = chunk.get(chunk.size() - 1).getId();
+                count += writeChunk(generator, chunk);
+                if (chunk.size() < limit) {
+                    break;
+                }
+                limit = chunkSize;
+            }
+        }
+        logger.info("Exported {} products", count);
+        return count;
+    }
+
+    private int writeChunk(JsonGenerator generator, List<ProductDto> chunk) throws IOException {
+        int written = chunk.size();
+        for (ProductDto product : productDtoAssembler.withImages(chunk)) {
+            generator.writeObject(product);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        return written;
+    }
+}
@@ -0,0 +1,12 @@
+package com.project.ecommerceapp.service.product;
+
+import com.project.ecommerceapp.dto.BulkImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+public interface ProductImportService {
+    BulkImportResultDto importJson(InputStream json) throws IOException;
+    BulkImportResultDto importCsv(Reader csv) throws IOException;
+}
@@ -0,0 +1,320 @@
+package com.project.ecommerceapp.service.product;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.catalog.CatalogVersions;
+import com.project.ecommerceapp.dto.BulkImportResultDto;
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.facet.FacetCounts;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.search.ProductSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.*;
+
+/*
+    Imports products in chunks of api.import.batch-size rows, each chunk in its own transaction.
+    - Category names of a chunk are resolved through the CategoryDictionary, which only queries for unknown names
+      and inserts the missing ones in one batch.
+    - Products are inserted with a single JDBC batch per chunk. The entities use IDENTITY ids, which stops
+      Hibernate from batching inserts, so this path bypasses the persistence context on purpose.
+    - Inserted rows are added to the search index and the facet counts once their chunk has committed.
+    - Invalid rows are reported and skipped, a failing chunk is reported row by row and does not stop the import.
+*/
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+    private static final String INSERT_PRODUCT =
+            "insert into product (name, brand, price, inventory, description, category_id, change_version) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final CategoryDictionary categoryDictionary;
+    private final ProductRepository productRepository;
+    private final ProductSearchService productSearchService;
+    private final FacetCounts facetCounts;
+    private final CatalogVersions catalogVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    public ProductImportServiceImpl(CategoryDictionary categoryDictionary,
+                                    ProductRepository productRepository,
+                                    ProductSearchService productSearchService,
+                                    FacetCounts facetCounts,
+                                    CatalogVersions catalogVersions,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${api.import.batch-size}") int batchSize) {
+        this.categoryDictionary = categoryDictionary;
+        this.productRepository = productRepository;
+        this.productSearchService = productSearchService;
+        this.facetCounts = facetCounts;
+        this.catalogVersions = catalogVersions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @CacheEvict(value = "allProducts", allEntries = true)
+    public BulkImportResultDto importJson(InputStream json) throws IOException {
+        Import run = new Import();
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResourceException("Expected a JSON array of products");
+            }
+            long row = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                row++;
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    run.add(row, objectMapper.treeToValue(node, AddProductRequest.class));
+                } catch (JsonProcessingException e) {
+                    run.reject(row, "Invalid product: " + e.getOriginalMessage());
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    @Override
+    @CacheEvict(value = "allProducts", allEntries = true)
+    public BulkImportResultDto importCsv(Reader csv) throws IOException {
+        Import run = new Import();
+        BufferedReader reader = csv instanceof BufferedReader buffered ? buffered : new BufferedReader(csv);
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return run.finish();
+        }
+        Map<String, Integer> header = new HashMap<>();
+        List<String> headerFields = parseCsvLine(headerLine);
+        for (int i = 0; i < headerFields.size(); i++) {
+            header.put(headerFields.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!header.containsKey("name") || !header.containsKey("category")) {
+            throw new ResourceException("CSV header must contain at least the name and category columns");
+        }
+
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                run.add(row, toRequest(header, parseCsvLine(line)));
+            } catch (IllegalArgumentException e) {
+                run.reject(row, e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /*
+        State of one import call, rows are buffered until a chunk is full.
+    */
+    private class Import {
+        private final BulkImportResultDto result = new BulkImportResultDto();
+        private final List<Row> chunk = new ArrayList<>(batchSize);
+
+        void add(long row, AddProductRequest request) {
+            result.setReceived(result.getReceived() + 1);
+            String error = validate(request);
+            if (error != null) {
+                addError(row, error);
+                return;
+            }
+            chunk.add(new Row(row, request));
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            result.setReceived(result.getReceived() + 1);
+            addError(row, message);
+        }
+
+        BulkImportResultDto finish() {
+            flush();
+            logger.info("Bulk import finished, received: {}, imported: {}, failed: {}", result.getReceived(), result.getImported(), result.getFailed());
+            return result;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Long maxIdBefore;
+            try {
+                // ids are IDENTITY values, so every row of this chunk gets an id above the current maximum
+                maxIdBefore = transactionTemplate.execute(status -> {
+                    Long maxId = productRepository.findMaxId();
+                    insertChunk(chunk);
+                    return maxId;
+                });
+            } catch (DataAccessException e) {
+                logger.error("Bulk import chunk failed at row: {}", chunk.get(0).row(), e);
+                String message = "Batch rejected by the database: " + e.getMostSpecificCause().getMessage();
+                chunk.forEach(row -> addError(row.row(), message));
+                chunk.clear();
+                return;
+            }
+            result.setImported(result.getImported() + chunk.size());
+            for (Row row : chunk) {
+                AddProductRequest request = row.request();
+                facetCounts.add(facetCounts.cell(request.getCategory().getName(), request.getBrand(), request.getPrice()));
+            }
+            chunk.clear();
+            productSearchService.indexProductsAfter(maxIdBefore);
+        }
+
+        private void addError(long row, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new BulkImportResultDto.RowError(row, message));
+            }
+        }
+    }
+
+    private void insertChunk(List<Row> rows) {
+        Map<String, Long> categoryIds = resolveCategories(rows);
+        // after the categories, new ones are inserted in their own transaction which takes a version too
+        long version = catalogVersions.next();
+        List<Object[]> params = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            AddProductRequest request = row.request();
+            params.add(new Object[]{
+                    request.getName(),
+                    request.getBrand(),
+                    request.getPrice(),
+                    request.getInventory(),
+                    request.getDescription(),
+                    categoryIds.get(request.getCategory().getName()),
+                    version
+            });
+        }
+        int[] types = {Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.BIGINT};
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, params, types);
+    }
+
+    private Map<String, Long> resolveCategories(List<Row> rows) {
+        Set<String> names = new HashSet<>();
+        rows.forEach(row -> names.add(row.request().getCategory().getName()));
+        return categoryDictionary.getOrCreateAll(names);
+    }
+
+    private static String validate(AddProductRequest request) {
+        if (request == null) {
+            return "Empty product";
+        }
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (request.getCategory() == null || request.getCategory().getName() == null
+                || request.getCategory().getName().isBlank()) {
+            return "Category is required";
+        }
+        if (request.getPrice() == null || request.getPrice().signum() < 0) {
+            return "Price is required and must not be negative";
+        }
+        if (request.getInventory() < 0) {
+            return "Inventory must not be negative";
+        }
+        return null;
+    }
+
+    private static AddProductRequest toRequest(Map<String, Integer> header, List<String> fields) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(field(header, fields, "name"));
+        request.setBrand(field(header, fields, "brand"));
+        request.setDescription(field(header, fields, "description"));
+        String category = field(header, fields, "category");
+        if (category != null) {
+            request.setCategory(new Category(category));
+        }
+        String price = field(header, fields, "price");
+        String inventory = field(header, fields, "inventory");
+        try {
+            request.setPrice(price != null ? new BigDecimal(price) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        try {
+            request.setInventory(inventory != null ? Integer.parseInt(inventory) : 0);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid inventory: " + inventory);
+        }
+        return request;
+    }
+
+    private static String field(Map<String, Integer> header, List<String> fields, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /*
+        - Splits one CSV record (RFC 4180 quoting, "" escapes a quote). Quoted fields may not span lines.
+    */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private record Row(long row, AddProductRequest request) {
+    }
+}
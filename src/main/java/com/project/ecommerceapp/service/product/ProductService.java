@@ -1,8 +1,11 @@
 package com.project.ecommerceapp.service.product;
 
+import com.project.ecommerceapp.dto.CursorPage;
 import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.QueryPage;
 import com.project.ecommerceapp.model.Product;
 import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.request.ProductQueryRequest;
 import com.project.ecommerceapp.request.UpdateProductRequest;
 
 import java.util.List;
@@ -10,15 +13,17 @@ import java.util.List;
 public interface ProductService {
     Product addProduct(AddProductRequest product);
     Product getProductById(Long id);
+    ProductDto getProductDtoById(Long id);
     void deleteProductById(Long id);
     Product updateProduct(UpdateProductRequest product, Long productId);
-    List<Product> getAllProduct();
-    List<Product> getProductsByCategory(String  category);
-    List<Product> getProductsByBrand(String brand);
-    List<Product> getProductsByCategoryAndBrand(String category, String brand);
-    List<Product> getProductsByName(String name);
-    List<Product> getProductsByBrandAndName(String brand, String name);
+    CursorPage<ProductDto> getAllProduct(Long after, Integer limit);
+    CursorPage<ProductDto> getProductsByCategory(String  category, Long after, Integer limit);
+    CursorPage<ProductDto> getProductsByBrand(String brand, Long after, Integer limit);
+    CursorPage<ProductDto> getProductsByCategoryAndBrand(String category, String brand, Long after, Integer limit);
+    CursorPage<ProductDto> getProductsByName(String name, Long after, Integer limit);
+    CursorPage<ProductDto> getProductsByBrandAndName(String brand, String name, Long after, Integer limit);
     Long countProductsByBrandAndName(String brand, String name);
+    QueryPage<ProductDto> queryProducts(ProductQueryRequest request);
 
     ProductDto getProductDto(Product product);
     List<ProductDto> getListProductDto(List<Product> products);
@@ -1,59 +1,101 @@
 package com.project.ecommerceapp.service.product;
+import com.project.ecommerceapp.catalog.CatalogVersions;
+import com.project.ecommerceapp.dto.CursorPage;
 import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.QueryPage;
 import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.facet.FacetCounts;
+import com.project.ecommerceapp.mapper.ProductDtoAssembler;
 import com.project.ecommerceapp.mapper.ProductMapper;
 import com.project.ecommerceapp.model.Category;
 import com.project.ecommerceapp.model.Product;
-import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ProductQuery;
 import com.project.ecommerceapp.repository.ProductRepository;
 import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.request.ProductQueryRequest;
 import com.project.ecommerceapp.request.UpdateProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.inventory.InventoryService;
+import com.project.ecommerceapp.service.search.ProductSearchService;
+import com.project.ecommerceapp.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
-import org.apache.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /*
     This class is a service implementation that provides logic methods for managing products.
-    Using ProductRepository class to interact with database and using CategoryRepository class for retrieve the category information.
+    Using ProductRepository class to interact with database and using CategoryDictionary class for resolving categories by name.
 */
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService{
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
-    private static final Logger logger = Logger.getLogger(ProductServiceImpl.class);
+    private final CategoryDictionary categoryDictionary;
+    private final ProductDtoAssembler productDtoAssembler;
+    private final ProductSearchService productSearchService;
+    private final FacetCounts facetCounts;
+    private final CatalogVersions catalogVersions;
+    private final InventoryService inventoryService;
+    private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
+
+    @Value("${api.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${api.page.max-size:100}")
+    private int maxPageSize;
 
     /*
         - Added new product
         - request : Object from AddProductRequest who contain the product details who will use.
         - Return new product / save new product.
     */
-//    @Caching(evict = {
-//            @CacheEvict(value = "allProducts", allEntries = true),
-//            @CacheEvict(value = "productById", key = "#result.id", condition = "#result != null")
-//    })
+    @CacheEvict(value = "allProducts", allEntries = true)
+    @Transactional
     @Override
     public Product addProduct(AddProductRequest request) {
-        // check the category in the database
-        // set the product if found the category
-        // set new category, if we can't found category
+        // resolve the category from the dictionary, it is created if it does not exist yet
         logger.info("Adding new product");
-        Category category = Optional.ofNullable(categoryRepository.findByName(request.getCategory().getName()))
-                .orElseGet(() -> {
-                    logger.info("Category not found, creating new category");
-                    Category newCategory = new Category(request.getCategory().getName());
-                    return categoryRepository.save(newCategory);
-                });
+        Category category = categoryDictionary.getOrCreate(request.getCategory().getName());
         request.setCategory(category);
         logger.info("Product added successfully");
-        return productRepository.save(createProduct(request, category));
+        Product product = createProduct(request, category);
+        product.setChangeVersion(catalogVersions.next());
+        product = productRepository.save(product);
+        indexAfterCommit(product);
+        FacetCounts.Cell cell = facetCell(product);
+        AfterCommit.run(() -> facetCounts.add(cell));
+        return product;
+    }
+    // the values are copied now, the entity may be detached by the time the transaction commits
+    private void indexAfterCommit(Product product) {
+        Long id = product.getId();
+        String name = product.getName();
+        String brand = product.getBrand();
+        String description = product.getDescription();
+        String category = product.getCategory() != null ? product.getCategory().getName() : null;
+        AfterCommit.run(() -> productSearchService.indexProduct(id, name, brand, description, category));
+    }
+
+    private FacetCounts.Cell facetCell(Product product) {
+        String category = product.getCategory() != null ? product.getCategory().getName() : null;
+        return facetCounts.cell(category, product.getBrand(), product.getPrice());
     }
+
     private Product createProduct (AddProductRequest request, Category category){
         return new Product(
                 request.getName(),
@@ -70,35 +112,59 @@ public class ProductServiceImpl implements ProductService{
         - id : Param id from the product selected to retrieve.
         - Return product with the id from the request and will throw exception message if the product id not found.
     */
-//    @Cacheable(value = "productById", key = "#id")
     @Override
     public Product getProductById(Long id) {
-        logger.info("Fetching product by id: " + id);
+        logger.info("Fetching product by id: {}", id);
         return productRepository.findById(id)
                 .orElseThrow(() -> {
-                    logger.error("Product not found with id: " + id);
+                    logger.warn("Product not found with id: {}", id);
                     throw new ResourceException("Product Not Found");
                 });
     }
 
+    /*
+        - Retrieves product by his id as a read-only ProductDto projection.
+        - id : Param id from the product selected to retrieve.
+        - Cached as DTO rather than entity so cached values never carry detached lazy collections.
+        - Read from the primary, a value cached from a lagging replica would be served until the next write.
+        - sync: concurrent misses for the same id share one read, stale entries are served while they are refreshed.
+    */
+    @Cacheable(value = "productById", key = "#id", sync = true)
+    @Transactional
+    @Override
+    public ProductDto getProductDtoById(Long id) {
+        logger.info("Fetching product by id: {}", id);
+        return productRepository.findDtoById(id)
+                .map(productDtoAssembler::withImages)
+                .orElseThrow(() -> {
+                    logger.warn("Product not found with id: {}", id);
+                    return new ResourceException("Product Not Found");
+                });
+    }
+
     /*
         - Deletes product by his id.
         - id : Param id from product selected.
         - Throw exception message if the product with selected id not found.
     */
-//    @Caching(evict = {
-//            @CacheEvict(value = "allProducts", allEntries = true),
-//            @CacheEvict(value = "productById", key = "#result.id", condition = "#result != null")
-//    })
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", key = "#id")
+    })
+    @Transactional
     @Override
     public void deleteProductById(Long id) {
-        logger.info("Delete product by id: " + id);
+        logger.info("Delete product by id: {}", id);
         productRepository.findById(id)
                 .ifPresentOrElse(product -> {
+                    FacetCounts.Cell cell = facetCell(product);
+                    catalogVersions.tombstone(CatalogVersions.PRODUCT, id);
                     productRepository.delete(product);
-                    logger.info("Product deleted successfully with id: " + id);
+                    AfterCommit.run(() -> productSearchService.removeProduct(id));
+                    AfterCommit.run(() -> facetCounts.remove(cell));
+                    logger.info("Product deleted successfully with id: {}", id);
                 }, () -> {
-                    logger.error("Product not found with id: " + id);
+                    logger.warn("Product not found with id: {}", id);
                     throw new ResourceException("Product Not Found");
                 });
     }
@@ -109,32 +175,40 @@ public class ProductServiceImpl implements ProductService{
         - productId : Param from product id selected for update.
         - Throw exception message if product with id selected not found.
     */
-//    @Caching(evict = {
-//            @CacheEvict(value = "allProducts", allEntries = true),
-//            @CacheEvict(value = "productById", key = "#result.id", condition = "#result != null")
-//    })
+    @Caching(evict = {
+            @CacheEvict(value = "allProducts", allEntries = true),
+            @CacheEvict(value = "productById", key = "#productId")
+    })
+    @Transactional
     @Override
     public Product updateProduct(UpdateProductRequest request, Long productId) {
-        logger.info("Update product with id: " + productId);
+        logger.info("Update product with id: {}", productId);
         return productRepository.findById(productId)
                 .map(product -> {
-                    logger.info("Product found with id: " + productId);
-                    return updateExistingProduct(product, request);
-                })
-                .map(updatedProduct -> {
-                    Product savedProduct = productRepository.save(updatedProduct);
+                    logger.info("Product found with id: {}", productId);
+                    FacetCounts.Cell before = facetCell(product);
+                    product.setChangeVersion(catalogVersions.next());
+                    Product savedProduct = productRepository.save(updateExistingProduct(product, request));
                     productRepository.flush();
-                    logger.info("Product updated successfully with id: " + savedProduct.getId());
+                    if (request.getInventory() != null) {
+                        // absolute stock, the units leased to nodes and held by reservations are accounted for
+                        inventoryService.setStock(productId, request.getInventory());
+                        savedProduct = productRepository.findById(productId).orElseThrow();
+                    }
+                    indexAfterCommit(savedProduct);
+                    FacetCounts.Cell after = facetCell(savedProduct);
+                    AfterCommit.run(() -> facetCounts.move(before, after));
+                    logger.info("Product updated successfully with id: {}", savedProduct.getId());
                     return savedProduct;
                 })
                 .orElseThrow(() -> {
-                    logger.error("Product not found with id: " + productId);
+                    logger.warn("Product not found with id: {}", productId);
                     return new ResourceException("Product Not Found");
                 });
     }
 
     private Product updateExistingProduct(Product product, UpdateProductRequest request) {
-        logger.info("Updating product details for id: " + product.getId());
+        logger.info("Updating product details for id: {}", product.getId());
 
         if (request.getName() != null) {
             product.setName(request.getName());
@@ -145,19 +219,16 @@ public class ProductServiceImpl implements ProductService{
         if (request.getPrice() != null) {
             product.setPrice(request.getPrice());
         }
-        if (request.getInventory() != null) {
-            product.setInventory(request.getInventory());
-        }
         if (request.getDescription() != null) {
             product.setDescription(request.getDescription());
         }
         if (request.getCategory() != null && request.getCategory().getName() != null) {
-            logger.info("Fetching category: " + request.getCategory().getName());
-            Category category = categoryRepository.findByName(request.getCategory().getName());
-            if (category == null) {
-                logger.error("Category not found: " + request.getCategory().getName());
-                throw new ResourceException("Category not found");
-            }
+            logger.info("Fetching category: {}", request.getCategory().getName());
+            Category category = categoryDictionary.find(request.getCategory().getName())
+                    .orElseThrow(() -> {
+                        logger.warn("Category not found: {}", request.getCategory().getName());
+                        return new ResourceException("Category not found");
+                    });
             product.setCategory(category);
         }
 
@@ -166,67 +237,187 @@ public class ProductServiceImpl implements ProductService{
 
 
     /*
-        - Retrieves all products.
-        - Return list of products.
+        - Retrieves one page of all products, ordered by id.
+        - after : Id of the last product from the previous page (exclusive), null for the first page.
+        - limit : Requested page size, clamped to the configured maximum.
+        - Return a page of products and the cursor for the next page.
+        - Cached per (after, limit) pair, every product write clears the whole cache. Read from the primary for the
+          same reason as getProductDtoById.
     */
-//    @Cacheable(value = "allProducts")
+    @Cacheable(value = "allProducts", keyGenerator = "customKeyGenerator", sync = true)
+    @Transactional
     @Override
-    public List<Product> getAllProduct() {
-        logger.info("Fetching all products");
-        return productRepository.findAll();
+    public CursorPage<ProductDto> getAllProduct(Long after, Integer limit) {
+        logger.info("Fetching all products after id: {}", after);
+        int pageSize = resolvePageSize(limit);
+        return toPage(productRepository.findDtoPage(cursorOf(after), Limit.of(pageSize + 1)), pageSize);
     }
 
     /*
-        - Retrieves all products by category.
+        - Retrieves one page of products by category.
         - category : Param for category name to filter by.
-        - Returns list of products with that category.
+        - after    : Id of the last product from the previous page (exclusive), null for the first page.
+        - limit    : Requested page size, clamped to the configured maximum.
+        - Returns a page of products with that category.
     */
+    @Transactional(readOnly = true)
     @Override
-    public List<Product> getProductsByCategory(String category) {
-        logger.info("Fetching products by category: " + category);
-        return productRepository.findByCategoryName(category);
+    public CursorPage<ProductDto> getProductsByCategory(String category, Long after, Integer limit) {
+        logger.info("Fetching products by category: {}", category);
+        int pageSize = resolvePageSize(limit);
+        return toPage(productRepository.findDtoPageByCategoryName(category, cursorOf(after), Limit.of(pageSize + 1)), pageSize);
     }
 
     /*
-        - Retrieves all products by brand name.
+        - Retrieves one page of products by brand name.
         - brand : Param for brand name to filter by.
-        - Returns list of products with that brand.
+        - after : Id of the last product from the previous page (exclusive), null for the first page.
+        - limit : Requested page size, clamped to the configured maximum.
+        - Returns a page of products with that brand.
     */
+    @Transactional(readOnly = true)
     @Override
-    public List<Product> getProductsByBrand(String brand) {
-        return productRepository.findByBrand(brand);
+    public CursorPage<ProductDto> getProductsByBrand(String brand, Long after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        return toPage(productRepository.findDtoPageByBrand(brand, cursorOf(after), Limit.of(pageSize + 1)), pageSize);
     }
 
     /*
-        - Retrieves all products by category and brand name.
+        - Retrieves one page of products by category and brand name.
         - category : Param for category name to filter by.
         - brand    : Param for brand name to filter by.
-        - Returns list of products with that category and brand.
+        - after    : Id of the last product from the previous page (exclusive), null for the first page.
+        - limit    : Requested page size, clamped to the configured maximum.
+        - Returns a page of products with that category and brand.
     */
+    @Transactional(readOnly = true)
     @Override
-    public List<Product> getProductsByCategoryAndBrand(String category, String brand) {
-        return productRepository.findByCategoryNameAndBrand(category, brand);
+    public CursorPage<ProductDto> getProductsByCategoryAndBrand(String category, String brand, Long after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        return toPage(productRepository.findDtoPageByCategoryNameAndBrand(category, brand, cursorOf(after), Limit.of(pageSize + 1)), pageSize);
     }
 
     /*
-        - Retrieves all products by his name.
-        - name : Param for product name to filter by.
-        - Returns list of products with that product name.
+        - Retrieves one page of products by his name.
+        - name  : Param for product name to filter by.
+        - after : Id of the last product from the previous page (exclusive), null for the first page.
+        - limit : Requested page size, clamped to the configured maximum.
+        - Returns a page of products with that product name.
     */
+    @Transactional(readOnly = true)
     @Override
-    public List<Product> getProductsByName(String name) {
-        return productRepository.findByName(name);
+    public CursorPage<ProductDto> getProductsByName(String name, Long after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        return toPage(productRepository.findDtoPageByName(name, cursorOf(after), Limit.of(pageSize + 1)), pageSize);
     }
 
     /*
-        - Retrieves all products by brand and name of product.
+        - Retrieves one page of products by brand and name of product.
         - brand    : Param for brand name to filter by.
         - name     : Param for product name to filter by.
-        - Returns list of products with that brand name and name of product.
+        - after    : Id of the last product from the previous page (exclusive), null for the first page.
+        - limit    : Requested page size, clamped to the configured maximum.
+        - Returns a page of products with that brand name and name of product.
+    */
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPage<ProductDto> getProductsByBrandAndName(String brand, String name, Long after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        return toPage(productRepository.findDtoPageByBrandAndName(brand, name, cursorOf(after), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /*
+        - Retrieves one page of products matching any combination of category, brand, name prefix, price range and
+          stock, in the requested order.
+        - request : Filters, sort (id, newest, price_asc, price_desc, name), cursor from the previous page and limit.
+        - Returns the page and the cursor for the next one, an unknown category gives an empty page.
+        - Throws ResourceException when the sort or the cursor is not valid.
     */
+    @Transactional(readOnly = true)
     @Override
-    public List<Product> getProductsByBrandAndName(String brand, String name) {
-        return productRepository.findByBrandAndName(brand, name);
+    public QueryPage<ProductDto> queryProducts(ProductQueryRequest request) {
+        logger.info("Querying products with: {}", request);
+        ProductQuery query = new ProductQuery();
+        query.setSort(sortOf(request.getSort()));
+        query.setLimit(resolvePageSize(request.getLimit()) + 1);
+        int pageSize = query.getLimit() - 1;
+        if (request.getCategory() != null) {
+            Optional<Category> category = categoryDictionary.find(request.getCategory());
+            if (category.isEmpty()) {
+                return new QueryPage<>(List.of(), null, pageSize);
+            }
+            query.setCategoryId(category.get().getId());
+        }
+        query.setBrand(request.getBrand());
+        query.setNamePrefix(request.getName());
+        query.setMinPrice(request.getMinPrice());
+        query.setMaxPrice(request.getMaxPrice());
+        query.setInStock(Boolean.TRUE.equals(request.getInStock()));
+        if (request.getAfter() != null) {
+            decodeCursor(request.getAfter(), query);
+        }
+
+        List<ProductDto> rows = productRepository.findDtos(query);
+        if (rows.size() <= pageSize) {
+            return new QueryPage<>(productDtoAssembler.withImages(rows), null, pageSize);
+        }
+        List<ProductDto> content = new ArrayList<>(rows.subList(0, pageSize));
+        return new QueryPage<>(productDtoAssembler.withImages(content), encodeCursor(content.get(pageSize - 1), query.getSort()), pageSize);
+    }
+
+    private ProductQuery.Sort sortOf(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return ProductQuery.Sort.ID;
+        }
+        try {
+            return ProductQuery.Sort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResourceException("Unknown sort: " + sort);
+        }
+    }
+
+    // The cursor is "id|value" of the last row in base64url, the value is left out for id sorts
+    private String encodeCursor(ProductDto last, ProductQuery.Sort sort) {
+        String cursor = String.valueOf(last.getId());
+        if (sort == ProductQuery.Sort.PRICE_ASC || sort == ProductQuery.Sort.PRICE_DESC) {
+            cursor += "|" + last.getPrice().toPlainString();
+        } else if (sort == ProductQuery.Sort.NAME) {
+            cursor += "|" + last.getName();
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void decodeCursor(String after, ProductQuery query) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8).split("\\|", 2);
+            query.setAfterId(Long.parseLong(parts[0]));
+            if (query.getSort().hasValue()) {
+                query.setAfterValue(query.getSort() == ProductQuery.Sort.NAME ? parts[1] : new BigDecimal(parts[1]));
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ResourceException("Invalid cursor: " + after);
+        }
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private Long cursorOf(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    // Queries fetch one row more than the page size, so the extra row tells us whether a next page exists.
+    // Images of the whole page are then loaded with one query.
+    private CursorPage<ProductDto> toPage(List<ProductDto> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(productDtoAssembler.withImages(rows), null, pageSize);
+        }
+        List<ProductDto> content = new ArrayList<>(rows.subList(0, pageSize));
+        return new CursorPage<>(productDtoAssembler.withImages(content), content.get(pageSize - 1).getId(), pageSize);
     }
 
     /*
@@ -235,6 +426,7 @@ public class ProductServiceImpl implements ProductService{
         - name     : Param for product name to filter by.
         - Returns the count of product belonging that specific order.
     */
+    @Transactional(readOnly = true)
     @Override
     public Long countProductsByBrandAndName(String brand, String name) {
         return productRepository.countByBrandAndName(brand, name);
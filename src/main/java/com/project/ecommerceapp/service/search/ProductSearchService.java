@@ -0,0 +1,13 @@
+package com.project.ecommerceapp.service.search;
+
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.SearchPage;
+
+public interface ProductSearchService {
+    SearchPage<ProductDto> search(String query, Integer offset, Integer limit);
+    void indexProduct(Long id, String name, String brand, String description, String category);
+    void removeProduct(Long id);
+    void reindexCategory(Long categoryId);
+    void indexProductsAfter(Long afterId);
+    long rebuild();
+}
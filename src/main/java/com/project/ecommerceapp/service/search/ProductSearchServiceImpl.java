@@ -0,0 +1,162 @@
+package com.project.ecommerceapp.service.search;
+
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.dto.SearchPage;
+import com.project.ecommerceapp.mapper.ProductDtoAssembler;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.search.ProductSearchIndex;
+import com.project.ecommerceapp.search.SearchHits;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+    This class serves product search from the in-process ProductSearchIndex.
+    The index answers with ranked ids only, the products of the page are then read by primary key with one query
+    and completed with one image query, so a search never scans the product table.
+    The index is built at startup and kept current by the product, category and import write paths, which all go
+    through this service once their transaction committed.
+*/
+@Service
+@RequiredArgsConstructor
+public class ProductSearchServiceImpl implements ProductSearchService, ApplicationRunner {
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductRepository productRepository;
+    private final ProductDtoAssembler productDtoAssembler;
+    private final TransactionTemplate transactionTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchServiceImpl.class);
+
+    @Value("${api.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${api.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.search.max-offset:10000}")
+    private int maxOffset;
+
+    @Value("${app.search.rebuild-batch-size:10000}")
+    private int rebuildBatchSize;
+
+    @Value("${api.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /*
+        - Searches products by name, brand, description and category.
+        - query  : Free text, partial words and single typos are accepted.
+        - offset : Number of ranked results to skip, clamped to app.search.max-offset.
+        - limit  : Requested page size, clamped to the configured maximum.
+        - Return a page of products, best match first.
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public SearchPage<ProductDto> search(String query, Integer offset, Integer limit) {
+        int pageSize = limit == null || limit < 1 ? defaultPageSize : Math.min(limit, maxPageSize);
+        int skip = offset == null || offset < 0 ? 0 : Math.min(offset, maxOffset);
+        SearchHits hits = productSearchIndex.search(query, skip, pageSize);
+        logger.info("Search for: {} matched {} products", query, hits.total());
+
+        List<ProductDto> content = new ArrayList<>();
+        if (!hits.ids().isEmpty()) {
+            Map<Long, ProductDto> byId = productRepository.findDtosByIdIn(hits.ids()).stream()
+                    .collect(Collectors.toMap(ProductDto::getId, Function.identity()));
+            // a product deleted since it was ranked is simply left out of the page
+            hits.ids().stream().map(byId::get).filter(Objects::nonNull).forEach(content::add);
+        }
+        Integer nextOffset = skip + pageSize < hits.total() ? skip + pageSize : null;
+        return new SearchPage<>(productDtoAssembler.withImages(content), hits.total(), skip, pageSize, nextOffset);
+    }
+
+    /*
+        - Adds a product or replaces its previous entry, with the values it was committed with.
+    */
+    @Override
+    public void indexProduct(Long id, String name, String brand, String description, String category) {
+        productSearchIndex.index(id, name, brand, description, category);
+    }
+
+    /*
+        - Removes a deleted product, it no longer matches any query.
+    */
+    @Override
+    public void removeProduct(Long id) {
+        productSearchIndex.remove(id);
+    }
+
+    /*
+        - Re-indexes every product of a category, used after the category was renamed.
+        - Called after the rename committed, while the finished transaction is still bound to the thread, so it reads
+          in a new one instead of joining it.
+    */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public void reindexCategory(Long categoryId) {
+        productSearchIndex.indexAll(productRepository.findDtosByCategoryId(categoryId));
+    }
+
+    /*
+        - Indexes every product with an id greater than afterId, used after rows were inserted without going through
+          the ProductService, such as the bulk import.
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public void indexProductsAfter(Long afterId) {
+        long after = afterId != null ? afterId : 0L;
+        List<ProductDto> page;
+        do {
+            page = productRepository.findDtoPage(after, Limit.of(rebuildBatchSize));
+            productSearchIndex.indexAll(page);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == rebuildBatchSize);
+    }
+
+    /*
+        - Rebuilds the index from the database, streaming the catalog through a JDBC cursor.
+        - Return the number of indexed products.
+    */
+    @Override
+    public long rebuild() {
+        logger.info("Building product search index");
+        long started = System.currentTimeMillis();
+        productSearchIndex.clear();
+        Long count = transactionTemplate.execute(status -> {
+            long indexed = 0;
+            List<ProductDto> batch = new ArrayList<>(rebuildBatchSize);
+            try (Stream<ProductDto> products = productRepository.streamAllDtoOrderById(fetchSize)) {
+                Iterator<ProductDto> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() == rebuildBatchSize) {
+                        productSearchIndex.indexAll(batch);
+                        indexed += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            productSearchIndex.indexAll(batch);
+            return indexed + batch.size();
+        });
+        logger.info("Product search index built with {} products in {} ms", count, System.currentTimeMillis() - started);
+        return count;
+    }
+}
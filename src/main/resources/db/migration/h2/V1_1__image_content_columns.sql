@@ -0,0 +1,4 @@
+-- H2 counterpart of sqlserver/V1_1__image_content_columns.sql.
+
+alter table image add column if not exists content_hash varchar(64);
+alter table image add column if not exists content_length bigint;
@@ -0,0 +1,13 @@
+-- H2 counterpart of sqlserver/V1_2__unique_category_name.sql. H2 has no filtered indexes, in MSSQLServer mode its
+-- unique index admits a single null name as SQL Server's plain one would.
+
+drop index if exists ux_category_name;
+
+update product
+set category_id = (select min(d.id) from category c join category d on d.name = c.name where c.id = product.category_id)
+where category_id in (select c.id from category c where exists (select 1 from category d where d.name = c.name and d.id < c.id));
+
+delete from category
+where exists (select 1 from category d where d.name = category.name and d.id < category.id);
+
+create unique index ux_category_name on category (name);
@@ -0,0 +1,25 @@
+-- H2 counterpart of sqlserver/V1_3__inventory_reservations.sql.
+
+create table if not exists inventory_reservation (
+    id varchar(36) not null,
+    product_id bigint,
+    quantity integer not null,
+    status enum ('COMMITTED','EXPIRED','RELEASED','RESERVED'),
+    node_id varchar(36),
+    created_at timestamp(6) with time zone,
+    expires_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create index if not exists ix_inventory_reservation_status_expires on inventory_reservation (status, expires_at);
+
+create table if not exists inventory_lease (
+    id varchar(64) not null,
+    node_id varchar(36),
+    product_id bigint,
+    remaining integer not null,
+    heartbeat_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create index if not exists ix_inventory_lease_heartbeat on inventory_lease (heartbeat_at);
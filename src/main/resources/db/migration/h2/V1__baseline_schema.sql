@@ -0,0 +1,30 @@
+-- H2 counterpart of sqlserver/V1__baseline_schema.sql, used by the test profile.
+
+create table category (
+    id bigint generated by default as identity,
+    name varchar(255),
+    primary key (id)
+);
+
+create table product (
+    id bigint generated by default as identity,
+    name varchar(255),
+    brand varchar(255),
+    price numeric(38,2),
+    inventory integer not null,
+    description varchar(255),
+    category_id bigint,
+    primary key (id),
+    constraint fk_product_category foreign key (category_id) references category
+);
+
+create table image (
+    id bigint generated by default as identity,
+    file_name varchar(255),
+    file_type varchar(255),
+    image blob,
+    download_url varchar(255),
+    product_id bigint,
+    primary key (id),
+    constraint fk_image_product foreign key (product_id) references product
+);
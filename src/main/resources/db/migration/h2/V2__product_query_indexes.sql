@@ -0,0 +1,10 @@
+-- H2 counterpart of sqlserver/V2__product_query_indexes.sql.
+
+create index ix_product_category_price on product (category_id, price);
+create index ix_product_category_brand_price on product (category_id, brand, price);
+create index ix_product_brand_price on product (brand, price);
+create index ix_product_brand_name on product (brand, name);
+create index ix_product_name on product (name);
+create index ix_product_price on product (price);
+
+create index ix_image_product on image (product_id);
@@ -0,0 +1,16 @@
+-- H2 counterpart of sqlserver/V3__image_variants.sql.
+
+create table image_variant (
+    id bigint generated by default as identity,
+    source_hash varchar(64) not null,
+    name varchar(32) not null,
+    content_hash varchar(64) not null,
+    content_length bigint not null,
+    content_type varchar(255),
+    width integer,
+    height integer,
+    primary key (id),
+    constraint ux_image_variant_source_name unique (source_hash, name)
+);
+
+create index ix_image_variant_content_hash on image_variant (content_hash);
@@ -0,0 +1,2 @@
+-- The download URL is derived from the image id when images are read, so uploads no longer update the row after insert.
+alter table image drop column download_url;
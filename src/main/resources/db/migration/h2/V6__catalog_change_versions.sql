@@ -0,0 +1,29 @@
+-- H2 counterpart of sqlserver/V6__catalog_change_versions.sql.
+
+alter table product add change_version bigint default 0 not null;
+alter table category add change_version bigint default 0 not null;
+
+update product set change_version = id;
+update category set change_version = id;
+
+create index ix_product_change_version on product (change_version);
+create index ix_category_change_version on category (change_version);
+
+create table catalog_tombstone (
+    entity varchar(16) not null,
+    entity_id bigint not null,
+    change_version bigint not null,
+    primary key (entity, entity_id)
+);
+
+create index ix_catalog_tombstone_change_version on catalog_tombstone (change_version);
+
+create table catalog_version (
+    id integer not null,
+    version bigint not null,
+    primary key (id)
+);
+
+insert into catalog_version (id, version)
+select 1, coalesce(max(change_version), 0)
+from (select change_version from product union all select change_version from category) versions;
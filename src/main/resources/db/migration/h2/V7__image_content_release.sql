@@ -0,0 +1,10 @@
+-- H2 counterpart of sqlserver/V7__image_content_release.sql.
+
+create table image_content_release (
+    content_hash varchar(64) not null,
+    released_at timestamp(6) with time zone not null,
+    primary key (content_hash)
+);
+
+create index ix_image_content_release_released_at on image_content_release (released_at);
+create index ix_image_content_hash on image (content_hash);
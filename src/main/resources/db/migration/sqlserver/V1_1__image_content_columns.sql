@@ -0,0 +1,8 @@
+-- Hash and length of image content kept in the content-addressed ImageStorage, null on rows whose bytes are still
+-- in the image column until ImageBlobMigration moves them.
+-- Databases that ran ddl-auto=update after the columns were added to the entity already have them.
+
+if col_length('image', 'content_hash') is null
+    alter table image add content_hash varchar(64);
+if col_length('image', 'content_length') is null
+    alter table image add content_length bigint;
@@ -0,0 +1,15 @@
+-- One row per category name, CategoryDictionary relies on the index to settle concurrent inserts of the same name.
+-- Duplicates created before it are merged into the row with the lowest id, their products are moved to that row.
+-- A plain unique index created by ddl-auto=update is replaced, the filtered one lets several categories have no name.
+
+if exists (select 1 from sys.indexes where name = 'ux_category_name' and object_id = object_id('category'))
+    drop index ux_category_name on category;
+
+update product
+set category_id = (select min(d.id) from category c join category d on d.name = c.name where c.id = product.category_id)
+where category_id in (select c.id from category c where exists (select 1 from category d where d.name = c.name and d.id < c.id));
+
+delete from category
+where exists (select 1 from category d where d.name = category.name and d.id < category.id);
+
+create unique nonclustered index ux_category_name on category (name) where name is not null;
@@ -0,0 +1,30 @@
+-- Inventory reservations and the leases nodes reserve them from, see InventoryServiceImpl.
+-- Databases that ran ddl-auto=update after the entities were added already have the tables.
+
+if object_id('inventory_reservation', 'U') is null
+    create table inventory_reservation (
+        id varchar(36) not null,
+        product_id bigint,
+        quantity int not null,
+        status varchar(16) check (status in ('RESERVED','COMMITTED','RELEASED','EXPIRED')),
+        node_id varchar(36),
+        created_at datetimeoffset(6),
+        expires_at datetimeoffset(6),
+        primary key (id)
+    );
+
+if not exists (select 1 from sys.indexes where name = 'ix_inventory_reservation_status_expires' and object_id = object_id('inventory_reservation'))
+    create index ix_inventory_reservation_status_expires on inventory_reservation (status, expires_at);
+
+if object_id('inventory_lease', 'U') is null
+    create table inventory_lease (
+        id varchar(64) not null,
+        node_id varchar(36),
+        product_id bigint,
+        remaining int not null,
+        heartbeat_at datetimeoffset(6),
+        primary key (id)
+    );
+
+if not exists (select 1 from sys.indexes where name = 'ix_inventory_lease_heartbeat' and object_id = object_id('inventory_lease'))
+    create index ix_inventory_lease_heartbeat on inventory_lease (heartbeat_at);
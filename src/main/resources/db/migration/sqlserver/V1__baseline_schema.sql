@@ -0,0 +1,32 @@
+-- Schema as created by hibernate ddl-auto=update before migrations were introduced.
+-- Databases that already have it are baselined at this version (spring.flyway.baseline-on-migrate) and skip it,
+-- everything added to the entities since then is in the later migrations.
+
+create table category (
+    id bigint identity not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table product (
+    id bigint identity not null,
+    name varchar(255),
+    brand varchar(255),
+    price numeric(38,2),
+    inventory int not null,
+    description varchar(255),
+    category_id bigint,
+    primary key (id),
+    constraint fk_product_category foreign key (category_id) references category
+);
+
+create table image (
+    id bigint identity not null,
+    file_name varchar(255),
+    file_type varchar(255),
+    image varbinary(max),
+    download_url varchar(255),
+    product_id bigint,
+    primary key (id),
+    constraint fk_image_product foreign key (product_id) references product
+);
@@ -0,0 +1,12 @@
+-- Composite indexes for the product query endpoint, every nonclustered index also carries the clustered key (id),
+-- so equality filters followed by a price or name order are served in index order.
+-- Image lookups by product, which the foreign key alone does not index on SQL Server.
+
+create index ix_product_category_price on product (category_id, price);
+create index ix_product_category_brand_price on product (category_id, brand, price);
+create index ix_product_brand_price on product (brand, price);
+create index ix_product_brand_name on product (brand, name);
+create index ix_product_name on product (name);
+create index ix_product_price on product (price);
+
+create index ix_image_product on image (product_id);
@@ -0,0 +1,18 @@
+-- Resized variants of stored image content, generated in the background after an upload.
+-- Keyed by the hash of the source content rather than the image row, so identical uploads share their variants
+-- and generating a variant twice finds the existing row.
+
+create table image_variant (
+    id bigint identity not null,
+    source_hash varchar(64) not null,
+    name varchar(32) not null,
+    content_hash varchar(64) not null,
+    content_length bigint not null,
+    content_type varchar(255),
+    width int,
+    height int,
+    primary key (id),
+    constraint ux_image_variant_source_name unique (source_hash, name)
+);
+
+create index ix_image_variant_content_hash on image_variant (content_hash);
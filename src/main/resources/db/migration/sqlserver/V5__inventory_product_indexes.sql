@@ -0,0 +1,4 @@
+-- Units a product has out in leases and open reservations, summed by the bulk update when it sets absolute stock.
+
+create index ix_inventory_lease_product on inventory_lease (product_id);
+create index ix_inventory_reservation_product_status on inventory_reservation (product_id, status);
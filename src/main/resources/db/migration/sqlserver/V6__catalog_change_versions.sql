@@ -0,0 +1,34 @@
+-- Change versions for catalog sync. Every transaction writing the catalog takes the next value of
+-- catalog_version.version and stamps it on the rows it writes, deletes leave a tombstone with that version.
+-- The single counter row stays locked until the writing transaction commits, so versions commit in order and a
+-- client that has seen version n has seen everything below it.
+-- Existing rows get their id as version, which keeps the first sync pageable.
+
+alter table product add change_version bigint not null constraint df_product_change_version default 0;
+alter table category add change_version bigint not null constraint df_category_change_version default 0;
+go
+
+update product set change_version = id;
+update category set change_version = id;
+
+create index ix_product_change_version on product (change_version);
+create index ix_category_change_version on category (change_version);
+
+create table catalog_tombstone (
+    entity varchar(16) not null,
+    entity_id bigint not null,
+    change_version bigint not null,
+    primary key (entity, entity_id)
+);
+
+create index ix_catalog_tombstone_change_version on catalog_tombstone (change_version);
+
+create table catalog_version (
+    id int not null,
+    version bigint not null,
+    primary key (id)
+);
+
+insert into catalog_version (id, version)
+select 1, coalesce(max(change_version), 0)
+from (select change_version from product union all select change_version from category) versions;
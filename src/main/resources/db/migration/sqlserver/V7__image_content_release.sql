@@ -0,0 +1,12 @@
+-- Image content no longer referenced by the row that used it, deleted by the content sweep once it has stayed unused
+-- for the grace period. An upload of the same bytes may be about to reference it again meanwhile.
+-- Content hash lookups on image decide whether stored content is still in use.
+
+create table image_content_release (
+    content_hash varchar(64) not null,
+    released_at datetimeoffset(6) not null,
+    primary key (content_hash)
+);
+
+create index ix_image_content_release_released_at on image_content_release (released_at);
+create index ix_image_content_hash on image (content_hash);
@@ -0,0 +1,112 @@
+package com.project.ecommerceapp.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.datasource.BoundedDataSource;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdmissionFilterTest {
+
+    @Test
+    void limit_shouldShedWritesBeforeReads() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 10, 10, Duration.ofSeconds(1), 0.5);
+        AdmissionFilter filter = filter(limit, null, null);
+        for (int i = 0; i < 7; i++) {
+            assertThat(limit.tryAcquire(1)).isTrue();
+        }
+
+        MockHttpServletResponse write = send(filter, new MockHttpServletRequest("POST", "/api/v1/product/"));
+        MockHttpServletResponse read = send(filter, new MockHttpServletRequest("GET", "/api/v1/product/id/1"));
+
+        assertThat(write.getStatus()).isEqualTo(503);
+        assertThat(write.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(write.getContentAsString()).contains("Server busy");
+        assertThat(read.getStatus()).isEqualTo(200);
+        assertThat(limit.getInFlight()).isEqualTo(7);
+        assertThat(filter.getShed(AdmissionFilter.Priority.WRITE, AdmissionFilter.Reason.LIMIT)).isEqualTo(1);
+    }
+
+    @Test
+    void limit_shouldBackOffOnSlowReadsAndGrowOnFastOnes() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 10, 200, Duration.ofMillis(100), 0.5);
+        long admitted = System.nanoTime();
+        Thread.sleep(150);
+
+        // slow requests admitted together back the limit off once
+        limit.tryAcquire(1);
+        limit.tryAcquire(1);
+        limit.release(admitted, true);
+        limit.release(admitted, true);
+        assertThat(limit.getLimit()).isEqualTo(50);
+
+        for (int round = 0; round < 10; round++) {
+            int admittedNow = 0;
+            while (limit.tryAcquire(1)) {
+                admittedNow++;
+            }
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < admittedNow; i++) {
+                limit.release(startedAt, true);
+            }
+        }
+        assertThat(limit.getLimit()).isGreaterThan(50);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void rateLimit_shouldAnswer429OnceTheBucketIsSpent() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 10, 10, Duration.ofSeconds(1), 0.5);
+        AdmissionFilter filter = filter(limit, new ClientRateLimiter(0.5, 2, 100), null);
+
+        assertThat(send(filter, fromClient("10.0.0.1")).getStatus()).isEqualTo(200);
+        assertThat(send(filter, fromClient("10.0.0.1")).getStatus()).isEqualTo(200);
+        MockHttpServletResponse limited = send(filter, fromClient("10.0.0.1"));
+        MockHttpServletResponse other = send(filter, fromClient("10.0.0.2"));
+
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(Integer.parseInt(limited.getHeader("Retry-After"))).isBetween(1, 2);
+        assertThat(other.getStatus()).isEqualTo(200);
+        assertThat(filter.getShed(AdmissionFilter.Priority.READ, AdmissionFilter.Reason.RATE)).isEqualTo(1);
+    }
+
+    @Test
+    void poolWait_shouldShedUploadsButNotReads() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 10, 10, Duration.ofSeconds(1), 0.5);
+        BoundedDataSource dataSource = mock(BoundedDataSource.class);
+        when(dataSource.getEstimatedWait()).thenReturn(Duration.ofSeconds(3));
+        AdmissionFilter filter = filter(limit, null, dataSource);
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/api/v1/images/");
+        upload.setContentType("multipart/form-data; boundary=x");
+
+        assertThat(send(filter, upload).getStatus()).isEqualTo(503);
+        assertThat(send(filter, new MockHttpServletRequest("GET", "/api/v1/product/")).getStatus()).isEqualTo(200);
+        assertThat(filter.getShed(AdmissionFilter.Priority.UPLOAD, AdmissionFilter.Reason.POOL)).isEqualTo(1);
+    }
+
+    private static AdmissionFilter filter(AdaptiveConcurrencyLimit limit, ClientRateLimiter rateLimiter, BoundedDataSource dataSource) {
+        return new AdmissionFilter(limit, rateLimiter, dataSource, Duration.ofSeconds(1), 0.7, 0.3,
+                Duration.ofSeconds(1), new ObjectMapper());
+    }
+
+    private static MockHttpServletRequest fromClient(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/product/");
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static MockHttpServletResponse send(AdmissionFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,306 @@
+package com.project.ecommerceapp.cache;
+
+import com.project.ecommerceapp.dto.CacheStatsDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Two cache managers play two nodes. A shared ConcurrentMapCacheManager stands in for Redis as L2
+    and an in-process bus stands in for Redis pub/sub.
+*/
+public class TwoLevelCacheTest {
+
+    private ConcurrentMapCacheManager sharedL2;
+    private InProcessInvalidationBus bus;
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+    private final ExecutorService callers = Executors.newFixedThreadPool(5);
+
+    @BeforeEach
+    void setUp() {
+        sharedL2 = new ConcurrentMapCacheManager();
+        bus = new InProcessInvalidationBus();
+        nodeA = new TwoLevelCacheManager(sharedL2, bus, 100, Duration.ofMinutes(5));
+        nodeB = new TwoLevelCacheManager(sharedL2, bus, 100, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    void get_shouldFallBackToL2AndPopulateL1() {
+        nodeA.getCache("productById").put(1L, "product-1");
+
+        Cache cacheB = nodeB.getCache("productById");
+        assertThat(cacheB.get(1L, String.class)).isEqualTo("product-1");
+        assertThat(cacheB.get(1L, String.class)).isEqualTo("product-1");
+
+        CacheStatsDto stats = statsOf(nodeB, "productById");
+        assertThat(stats.getL2Hits()).isEqualTo(1);
+        assertThat(stats.getL1Hits()).isEqualTo(1);
+        assertThat(stats.getL1Size()).isEqualTo(1);
+    }
+
+    @Test
+    void evict_shouldDropL1EntryOnEveryNode() {
+        Cache cacheA = nodeA.getCache("productById");
+        Cache cacheB = nodeB.getCache("productById");
+        cacheA.put(1L, "product-1");
+        assertThat(cacheB.get(1L, String.class)).isEqualTo("product-1");
+        long invalidationsBefore = statsOf(nodeB, "productById").getRemoteInvalidations();
+
+        cacheA.evict(1L);
+
+        assertThat(cacheB.get(1L)).isNull();
+        assertThat(statsOf(nodeB, "productById").getRemoteInvalidations()).isEqualTo(invalidationsBefore + 1);
+    }
+
+    @Test
+    void put_shouldNotInvalidateOwnL1() {
+        Cache cacheA = nodeA.getCache("productById");
+        cacheA.put(1L, "product-1");
+
+        sharedL2.getCache("productById").clear();
+
+        assertThat(cacheA.get(1L, String.class)).isEqualTo("product-1");
+        assertThat(statsOf(nodeA, "productById").getRemoteInvalidations()).isZero();
+    }
+
+    @Test
+    void clear_shouldClearL1OnEveryNode() {
+        Cache cacheA = nodeA.getCache("allProducts");
+        Cache cacheB = nodeB.getCache("allProducts");
+        cacheA.put("page_1", "a");
+        cacheA.put("page_2", "b");
+        cacheB.get("page_1");
+        cacheB.get("page_2");
+
+        cacheA.clear();
+
+        assertThat(cacheB.get("page_1")).isNull();
+        assertThat(cacheB.get("page_2")).isNull();
+    }
+
+    @Test
+    void getWithLoader_shouldLoadOnceAndStoreInBothLevels() {
+        Cache cacheA = nodeA.getCache("productById");
+        int[] loads = {0};
+
+        String first = cacheA.get(7L, () -> "loaded-" + (++loads[0]));
+        String second = cacheA.get(7L, () -> "loaded-" + (++loads[0]));
+
+        assertThat(first).isEqualTo("loaded-1");
+        assertThat(second).isEqualTo("loaded-1");
+        assertThat(sharedL2.getCache("productById").get("7").get()).isEqualTo("loaded-1");
+    }
+
+    @Test
+    void getWithLoader_shouldShareOneLoadBetweenConcurrentMisses() throws Exception {
+        Cache cache = nodeA.getCache("productById");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> cache.get(3L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "loaded";
+        }), callers);
+        loading.await(5, TimeUnit.SECONDS);
+        List<CompletableFuture<String>> followers = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> cache.get(3L, () -> "loaded-" + loads.incrementAndGet()), callers))
+                .toList();
+        awaitStats(() -> statsOf(nodeA, "productById").getCoalesced() == 4);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        for (CompletableFuture<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(statsOf(nodeA, "productById").getLoads()).isEqualTo(1);
+    }
+
+    @Test
+    void getWithLoader_shouldLoadItselfWhenTheLoadInFlightTakesTooLong() throws Exception {
+        TwoLevelCacheManager node = new TwoLevelCacheManager(null, CacheInvalidationBus.NONE, 10, Duration.ofMinutes(5),
+                Duration.ZERO, Duration.ofMillis(50), 1);
+        Cache cache = node.getCache("productById");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> cache.get(3L, () -> {
+            loading.countDown();
+            release.await();
+            return "slow";
+        }), callers);
+        loading.await(5, TimeUnit.SECONDS);
+
+        assertThat(cache.get(3L, () -> "own")).isEqualTo("own");
+        assertThat(statsOf(node, "productById").getCoalesceTimeouts()).isEqualTo(1);
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getWithLoader_shouldServeStaleEntryWhileOneRefreshRuns() throws Exception {
+        TwoLevelCacheManager node = new TwoLevelCacheManager(null, CacheInvalidationBus.NONE, 10, Duration.ofMinutes(5),
+                Duration.ofMillis(1), Duration.ofSeconds(5), 1);
+        Cache cache = node.getCache("productById");
+        cache.get(5L, () -> "v1");
+        Thread.sleep(5);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger refreshes = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(cache.get(5L, () -> {
+                refreshes.incrementAndGet();
+                release.await();
+                return "v2";
+            })).isEqualTo("v1");
+        }
+        release.countDown();
+
+        awaitStats(() -> statsOf(node, "productById").getRefreshes() == 1);
+        assertThat(cache.get(5L, String.class)).isEqualTo("v2");
+        assertThat(refreshes.get()).isEqualTo(1);
+        assertThat(statsOf(node, "productById").getStaleHits()).isEqualTo(3);
+        node.shutdown();
+    }
+
+    @Test
+    void getWithLoader_shouldNotStoreALoadThatOverlappedAnEviction() throws Exception {
+        Cache cache = nodeA.getCache("productById");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> before = CompletableFuture.supplyAsync(() -> cache.get(9L, () -> {
+            loading.countDown();
+            release.await();
+            return "before-write";
+        }), callers);
+        loading.await(5, TimeUnit.SECONDS);
+
+        cache.evict(9L);
+        release.countDown();
+
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before-write");
+        assertThat(cache.get(9L, () -> "after-write")).isEqualTo("after-write");
+    }
+
+    @Test
+    void l1_shouldEvictBySize() {
+        TwoLevelCacheManager small = new TwoLevelCacheManager(null, CacheInvalidationBus.NONE, 10, Duration.ofMinutes(5));
+        Cache cache = small.getCache("productById");
+        for (long id = 0; id < 100; id++) {
+            cache.put(id, "product-" + id);
+        }
+
+        CacheStatsDto stats = statsOf(small, "productById");
+        assertThat(stats.getL1Size()).isLessThanOrEqualTo(10);
+        assertThat(stats.getL1Evictions()).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void l2Failure_shouldDegradeToL1Only() {
+        ConcurrentMapCacheManager failingL2 = new ConcurrentMapCacheManager() {
+            @Override
+            public Cache getCache(String name) {
+                Cache delegate = super.getCache(name);
+                return new org.springframework.cache.support.AbstractValueAdaptingCache(true) {
+                    @Override
+                    public String getName() {
+                        return delegate.getName();
+                    }
+
+                    @Override
+                    public Object getNativeCache() {
+                        return delegate;
+                    }
+
+                    @Override
+                    protected Object lookup(Object key) {
+                        throw new IllegalStateException("redis down");
+                    }
+
+                    @Override
+                    public <T> T get(Object key, java.util.concurrent.Callable<T> valueLoader) {
+                        throw new IllegalStateException("redis down");
+                    }
+
+                    @Override
+                    public void put(Object key, Object value) {
+                        throw new IllegalStateException("redis down");
+                    }
+
+                    @Override
+                    public void evict(Object key) {
+                        throw new IllegalStateException("redis down");
+                    }
+
+                    @Override
+                    public void clear() {
+                        throw new IllegalStateException("redis down");
+                    }
+                };
+            }
+        };
+        TwoLevelCacheManager node = new TwoLevelCacheManager(failingL2, CacheInvalidationBus.NONE, 10, Duration.ofMinutes(5));
+        Cache cache = node.getCache("productById");
+
+        cache.put(1L, "product-1");
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("product-1");
+        assertThat(statsOf(node, "productById").getL2Errors()).isEqualTo(1);
+    }
+
+    private static void awaitStats(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static CacheStatsDto statsOf(TwoLevelCacheManager manager, String name) {
+        return manager.getStats().stream()
+                .filter(stats -> stats.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static class InProcessInvalidationBus implements CacheInvalidationBus {
+        private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(CacheInvalidation invalidation) {
+            listeners.forEach(listener -> listener.accept(invalidation));
+        }
+
+        @Override
+        public void subscribe(Consumer<CacheInvalidation> listener) {
+            listeners.add(listener);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.project.ecommerceapp.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkloadCaptureFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> lines = new ArrayList<>();
+    private final WorkloadCaptureFilter filter = new WorkloadCaptureFilter(objectMapper, lines::add);
+
+    @Test
+    void filter_shouldRecordOneLinePerRequestWithTheHandlerPattern() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/product/id/42");
+        request.setQueryString("fields=name");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/product/id/{productId}");
+            ((MockHttpServletResponse) res).setStatus(404);
+        });
+
+        assertThat(lines).hasSize(1);
+        CapturedRequest captured = objectMapper.readValue(lines.get(0), CapturedRequest.class);
+        assertThat(captured.method()).isEqualTo("GET");
+        assertThat(captured.path()).isEqualTo("/api/v1/product/id/42");
+        assertThat(captured.query()).isEqualTo("fields=name");
+        assertThat(captured.endpoint()).isEqualTo("/api/v1/product/id/{productId}");
+        assertThat(captured.status()).isEqualTo(404);
+        assertThat(captured.bytes()).isEqualTo(-1);
+        assertThat(captured.micros()).isNotNegative();
+    }
+
+    @Test
+    void filter_shouldRecordRequestsThatReachedNoHandler() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/product/");
+        request.setContent(new byte[512]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> ((MockHttpServletResponse) res).setStatus(503));
+
+        CapturedRequest captured = objectMapper.readValue(lines.get(0), CapturedRequest.class);
+        assertThat(captured.endpoint()).isEqualTo("/api/v1/product/");
+        assertThat(captured.bytes()).isEqualTo(512);
+        assertThat(captured.status()).isEqualTo(503);
+    }
+}
@@ -0,0 +1,40 @@
+package com.project.ecommerceapp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Goes through Tomcat, so that the rate limit sees the client address the load balancer forwards, not the
+    load balancer's own. The test client connects from the loopback address, which Tomcat trusts as a proxy.
+*/
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.admission.rate-limit.per-second=0.001", "app.admission.rate-limit.burst=1"})
+@ActiveProfiles("test")
+public class AdmissionRateLimitTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void rateLimit_shouldKeepABucketPerForwardedClient() {
+        assertThat(statusFor("203.0.113.10")).isEqualTo(200);
+        assertThat(statusFor("203.0.113.11")).isEqualTo(200);
+        assertThat(statusFor("203.0.113.10")).isEqualTo(429);
+        assertThat(statusFor("203.0.113.11, 10.0.0.5")).isEqualTo(429);
+    }
+
+    private int statusFor(String forwardedFor) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", forwardedFor);
+        return restTemplate.exchange("/api/v1/category/", HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                .getStatusCode().value();
+    }
+}
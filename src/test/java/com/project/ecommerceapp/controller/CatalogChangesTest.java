@@ -0,0 +1,194 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.repository.*;
+import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.request.UpdateProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.category.CategoryService;
+import com.project.ecommerceapp.service.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class CatalogChangesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private InventoryLeaseRepository leaseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long start;
+    private Long phoneId;
+    private Long tabletId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            reservationRepository.deleteAllInBatch();
+            leaseRepository.deleteAllInBatch();
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            jdbcTemplate.update("delete from catalog_tombstone");
+        });
+        categoryDictionary.reload();
+        start = version();
+        phoneId = productService.addProduct(product("Galaxy S24", "Phones")).getId();
+        tabletId = productService.addProduct(product("Galaxy Tab", "Tablets")).getId();
+    }
+
+    @Test
+    void changes_shouldReturnWhatChangedAfterAVersion() throws Exception {
+        long synced = version();
+        mockMvc.perform(get("/api/v1/catalog/changes").param("since", String.valueOf(start)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.version").value(synced))
+                .andExpect(jsonPath("$.data.more").value(false))
+                .andExpect(jsonPath("$.data.products.length()").value(2))
+                .andExpect(jsonPath("$.data.categories.length()").value(2));
+
+        UpdateProductRequest update = new UpdateProductRequest();
+        update.setPrice(new BigDecimal("5"));
+        productService.updateProduct(update, phoneId);
+        productService.deleteProductById(tabletId);
+        Long phones = categoryDictionary.find("Phones").orElseThrow().getId();
+        categoryService.updateCategory(new Category("Mobiles"), phones);
+
+        mockMvc.perform(get("/api/v1/catalog/changes").param("since", String.valueOf(synced)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.version").value(version()))
+                .andExpect(jsonPath("$.data.products.length()").value(1))
+                .andExpect(jsonPath("$.data.products[0].price").value(5))
+                .andExpect(jsonPath("$.data.products[0].category").value("Mobiles"))
+                .andExpect(jsonPath("$.data.categories[0].name").value("Mobiles"))
+                .andExpect(jsonPath("$.data.deletedProducts[0]").value(tabletId))
+                .andExpect(jsonPath("$.data.deletedCategories").isEmpty());
+
+        long afterRename = version();
+        Long tablets = categoryDictionary.find("Tablets").orElseThrow().getId();
+        categoryService.deleteCategoryById(tablets);
+        mockMvc.perform(get("/api/v1/catalog/changes").param("since", String.valueOf(afterRename)))
+                .andExpect(jsonPath("$.data.deletedCategories[0]").value(tablets))
+                .andExpect(jsonPath("$.data.products").isEmpty());
+    }
+
+    @Test
+    void changes_shouldPageOnVersionBoundaries() throws Exception {
+        // the first version is the Phones category, created in its own transaction before the product
+        mockMvc.perform(get("/api/v1/catalog/changes").param("since", String.valueOf(start)).param("limit", "1"))
+                .andExpect(jsonPath("$.data.version").value(start + 1))
+                .andExpect(jsonPath("$.data.more").value(true))
+                .andExpect(jsonPath("$.data.categories[0].name").value("Phones"))
+                .andExpect(jsonPath("$.data.products").isEmpty());
+        mockMvc.perform(get("/api/v1/catalog/changes").param("since", String.valueOf(start + 1)).param("limit", "1"))
+                .andExpect(jsonPath("$.data.version").value(start + 2))
+                .andExpect(jsonPath("$.data.products[0].name").value("Galaxy S24"));
+        mockMvc.perform(get("/api/v1/catalog/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void changes_shouldNotConsumeVersionsOfRolledBackWrites() {
+        long before = version();
+        UpdateProductRequest update = new UpdateProductRequest();
+        update.setPrice(new BigDecimal("1"));
+        update.setCategory(new Category("Unknown"));
+
+        assertThatThrownBy(() -> productService.updateProduct(update, phoneId)).isInstanceOf(ResourceException.class);
+
+        assertThat(version()).isEqualTo(before);
+        assertThat(productRepository.findById(phoneId).orElseThrow().getPrice()).isEqualByComparingTo("799");
+    }
+
+    @Test
+    void stream_shouldCatchUpThenPushCommittedChanges() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/catalog/changes/stream").param("since", String.valueOf(start)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        try {
+            awaitContent(result, ":live");
+            assertThat(result.getResponse().getContentAsString()).contains("event:changes", "Galaxy Tab");
+
+            UpdateProductRequest update = new UpdateProductRequest();
+            update.setName("Galaxy S24 Ultra");
+            productService.updateProduct(update, phoneId);
+
+            awaitContent(result, "Galaxy S24 Ultra");
+            assertThat(result.getResponse().getContentAsString()).contains("id:" + version());
+        } finally {
+            result.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    private void awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!result.getResponse().getContentAsString().contains(expected)) {
+            assertThat(System.currentTimeMillis()).as("waiting for %s", expected).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private long version() {
+        return jdbcTemplate.queryForObject("select version from catalog_version where id = 1", Long.class);
+    }
+
+    private static AddProductRequest product(String name, String category) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(name);
+        request.setBrand("Samsung");
+        request.setPrice(new BigDecimal("799"));
+        request.setInventory(1);
+        request.setDescription(name);
+        request.setCategory(new Category(category));
+        return request;
+    }
+}
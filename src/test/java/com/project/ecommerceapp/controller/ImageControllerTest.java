@@ -0,0 +1,358 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Image;
+import com.project.ecommerceapp.model.ImageVariant;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ImageVariantRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.service.image.ImageServiceImpl;
+import com.project.ecommerceapp.service.image.ImageVariantService;
+import com.project.ecommerceapp.service.image.storage.ImageStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ImageControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageVariantRepository imageVariantRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageServiceImpl imageService;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = transactionTemplate.execute(status -> {
+            imageRepository.deleteAllInBatch();
+            imageVariantRepository.deleteAllInBatch();
+            jdbcTemplate.update("delete from image_content_release");
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            Category category = categoryRepository.save(new Category("Cameras"));
+            return productRepository.save(new Product("Camera", "Acme", BigDecimal.TEN, 1, "A camera", category)).getId();
+        });
+    }
+
+    @Test
+    void upload_shouldStoreMetadataOnlyAndDeduplicateContent() throws Exception {
+        byte[] bytes = "fake png bytes".getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "a.png", "image/png", bytes))
+                        .file(new MockMultipartFile("files", "b.png", "image/png", bytes))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isOk());
+
+        List<Image> images = imageRepository.findByProductId(productId);
+        assertThat(images).hasSize(2);
+        assertThat(images).allSatisfy(image -> {
+            assertThat(image.getImage()).isNull();
+            assertThat(image.getContentLength()).isEqualTo(bytes.length);
+        });
+        assertThat(images.get(0).getContentHash()).isEqualTo(images.get(1).getContentHash());
+    }
+
+    @Test
+    void upload_shouldStoreValidFilesAndReportRejectedOnes() throws Exception {
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "good.png", "image/png", "good".getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("files", "empty.png", "image/png", new byte[0]))
+                        .file(new MockMultipartFile("files", "notes.txt", "text/plain", "notes".getBytes(StandardCharsets.UTF_8)))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Upload Partially Failed"))
+                .andExpect(jsonPath("$.data.received").value(3))
+                .andExpect(jsonPath("$.data.images.length()").value(1))
+                .andExpect(jsonPath("$.data.failed").value(2))
+                .andExpect(jsonPath("$.data.errors[0].file").value(2))
+                .andExpect(jsonPath("$.data.errors[0].message").value("Empty file"))
+                .andExpect(jsonPath("$.data.errors[1].fileName").value("notes.txt"));
+
+        List<Image> images = imageRepository.findByProductId(productId);
+        assertThat(images).extracting(Image::getFileName).containsExactly("good.png");
+        mockMvc.perform(get("/api/v1/product/id/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.images[0].downloadUrl")
+                        .value("/api/v1/images/download/" + images.get(0).getId() + "?v=" + images.get(0).getContentHash()));
+    }
+
+    @Test
+    void upload_shouldReturnIdsInFileOrder() throws Exception {
+        String response = mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "1.png", "image/png", "one".getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("files", "2.png", "image/png", "two".getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("files", "3.png", "image/png", "one".getBytes(StandardCharsets.UTF_8)))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Upload Successfull"))
+                .andExpect(jsonPath("$.data.images[*].fileName").value(contains("1.png", "2.png", "3.png")))
+                .andReturn().getResponse().getContentAsString();
+
+        for (Image image : imageRepository.findByProductId(productId)) {
+            assertThat(response).contains("{\"id\":" + image.getId() + ",\"fileName\":\"" + image.getFileName() + "\"");
+        }
+    }
+
+    @Test
+    void upload_shouldRejectUnknownProductAndAllInvalidFiles() throws Exception {
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "a.png", "image/png", "a".getBytes(StandardCharsets.UTF_8)))
+                        .param("productId", String.valueOf(productId + 1000)))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "a.txt", "text/plain", "a".getBytes(StandardCharsets.UTF_8)))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data.failed").value(1));
+        assertThat(imageRepository.findByProductId(productId)).isEmpty();
+    }
+
+    @Test
+    void download_shouldStreamStoredContent() throws Exception {
+        byte[] bytes = "another fake png".getBytes(StandardCharsets.UTF_8);
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "c.png", "image/png", bytes))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isOk());
+        Long imageId = imageRepository.findByProductId(productId).get(0).getId();
+
+        mockMvc.perform(get("/api/v1/images/download/" + imageId))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", bytes.length))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(bytes));
+    }
+
+    @Test
+    void download_shouldAnswerIfNoneMatchWith304() throws Exception {
+        Image image = uploadImage("cached bytes");
+        String etag = "\"" + image.getContentHash() + "\"";
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(header().string("Cache-Control", "public, no-cache"));
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void download_shouldServeSingleRangeAsPartialContent() throws Exception {
+        Image image = uploadImage("0123456789");
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()).header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(header().longValue("Content-Length", 4))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()).header("Range", "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    void download_shouldRejectUnsatisfiableRange() throws Exception {
+        Image image = uploadImage("short");
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()).header("Range", "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */5"));
+    }
+
+    @Test
+    void download_shouldIgnoreRangeWhenIfRangeDoesNotMatch() throws Exception {
+        Image image = uploadImage("0123456789");
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId())
+                        .header("Range", "bytes=2-5")
+                        .header("If-Range", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void download_shouldCacheVersionedUrlForever() throws Exception {
+        Image image = uploadImage("versioned");
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()).param("v", image.getContentHash()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"));
+    }
+
+    @Test
+    void download_shouldServeGeneratedVariantBySize() throws Exception {
+        Image image = uploadImage(png(1200, 800), "photo.png");
+        await().atMost(10, TimeUnit.SECONDS)
+                .until(() -> imageVariantRepository.findBySourceHash(image.getContentHash()).size() == 3);
+
+        byte[] thumb = mockMvc.perform(get("/api/v1/images/download/" + image.getId())
+                        .param("size", "thumb")
+                        .param("v", image.getContentHash()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string("Content-Disposition", "Attachment; filename=\"photo-thumb.jpg\""))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumb));
+        assertThat(decoded.getWidth()).isEqualTo(160);
+        assertThat(decoded.getHeight()).isEqualTo(107);
+    }
+
+    @Test
+    void download_shouldFallBackToOriginalUntilVariantExists() throws Exception {
+        Image image = uploadImage("not really a png");
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId())
+                        .param("size", "thumb")
+                        .param("v", image.getContentHash()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string("Cache-Control", "public, no-cache"))
+                .andExpect(content().string("not really a png"));
+
+        mockMvc.perform(get("/api/v1/images/download/" + image.getId()).param("size", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void generate_shouldKeepOneRowPerVariant() throws Exception {
+        Image image = uploadImage(png(300, 300), "square.png");
+
+        List<ImageVariant> first = imageVariantService.generate(image.getContentHash());
+        List<ImageVariant> second = imageVariantService.generate(image.getContentHash());
+
+        assertThat(second).extracting(ImageVariant::getId)
+                .containsExactlyInAnyOrderElementsOf(first.stream().map(ImageVariant::getId).toList());
+        assertThat(imageVariantRepository.findBySourceHash(image.getContentHash()))
+                .extracting(ImageVariant::getName)
+                .containsExactlyInAnyOrder("thumb", "small", "medium");
+    }
+
+    @Test
+    void delete_shouldKeepContentUntilTheSweepFindsItUnusedAfterTheGracePeriod() throws Exception {
+        Image image = uploadImage(png(310, 200), "gone.png");
+        await().atMost(10, TimeUnit.SECONDS)
+                .until(() -> imageVariantRepository.findBySourceHash(image.getContentHash()).size() == 3);
+        List<String> variantHashes = imageVariantRepository.findBySourceHash(image.getContentHash()).stream()
+                .map(ImageVariant::getContentHash).toList();
+
+        mockMvc.perform(delete("/api/v1/images/" + image.getId())).andExpect(status().isOk());
+
+        assertThat(imageStorage.exists(image.getContentHash())).isTrue();
+        assertThat(imageService.sweepReleasedContent(Instant.now().minus(Duration.ofMinutes(10)))).isZero();
+        assertThat(imageStorage.exists(image.getContentHash())).isTrue();
+
+        assertThat(imageService.sweepReleasedContent(Instant.now().plusSeconds(60))).isEqualTo(1);
+        assertThat(imageStorage.exists(image.getContentHash())).isFalse();
+        assertThat(imageVariantRepository.findBySourceHash(image.getContentHash())).isEmpty();
+        // the variants' bytes are released in turn
+        assertThat(imageService.sweepReleasedContent(Instant.now().plusSeconds(60))).isPositive();
+        assertThat(variantHashes).noneMatch(imageStorage::exists);
+    }
+
+    @Test
+    void sweep_shouldKeepReleasedContentUploadedAgain() throws Exception {
+        Image image = uploadImage("uploaded twice");
+        mockMvc.perform(delete("/api/v1/images/" + image.getId())).andExpect(status().isOk());
+
+        Image again = uploadImage("uploaded twice");
+
+        assertThat(imageService.sweepReleasedContent(Instant.now().plusSeconds(60))).isZero();
+        assertThat(imageStorage.exists(again.getContentHash())).isTrue();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from image_content_release", Integer.class)).isZero();
+        mockMvc.perform(get("/api/v1/images/download/" + again.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("uploaded twice"));
+    }
+
+    private Image uploadImage(String content) throws Exception {
+        return uploadImage(content.getBytes(StandardCharsets.UTF_8), "image.png");
+    }
+
+    private Image uploadImage(byte[] content, String fileName) throws Exception {
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", fileName, "image/png", content))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isOk());
+        return imageRepository.findByProductId(productId).get(0);
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width, height / 2);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
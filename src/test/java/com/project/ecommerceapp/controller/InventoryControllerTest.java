@@ -0,0 +1,264 @@
+package com.project.ecommerceapp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.exceptions.InventoryConflictException;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.InventoryLease;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.model.ReservationStatus;
+import com.project.ecommerceapp.repository.*;
+import com.project.ecommerceapp.service.inventory.InventoryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class InventoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryServiceImpl inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private InventoryLeaseRepository leaseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            reservationRepository.deleteAllInBatch();
+            leaseRepository.deleteAllInBatch();
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+        });
+    }
+
+    @Test
+    void reserve_shouldNeverOversellUnderContention() throws Exception {
+        Long productId = product(1000);
+        int threads = 50;
+        int attemptsPerThread = 40;
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> buyers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread buyer = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        inventoryService.reserve(productId, 1);
+                        reserved.incrementAndGet();
+                    } catch (InventoryConflictException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            buyer.start();
+            buyers.add(buyer);
+        }
+        start.countDown();
+        for (Thread buyer : buyers) {
+            buyer.join();
+        }
+
+        assertThat(reserved.get()).isEqualTo(1000);
+        assertThat(rejected.get()).isEqualTo(1000);
+        assertThat(reservedUnits(productId)).isEqualTo(1000);
+        assertThat(inventory(productId) + leased(productId)).isZero();
+    }
+
+    @Test
+    void reservation_shouldCommitOnceAndRefuseRelease() throws Exception {
+        Long productId = product(10);
+        String id = reserve(productId, 3);
+
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/commit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("COMMITTED"));
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/commit"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/release"))
+                .andExpect(status().isConflict());
+
+        assertThat(inventory(productId) + leased(productId)).isEqualTo(7);
+    }
+
+    @Test
+    void release_shouldReturnUnitsToTheProduct() throws Exception {
+        Long productId = product(10);
+        String id = reserve(productId, 4);
+
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/release"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("RELEASED"));
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/release"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/commit"))
+                .andExpect(status().isConflict());
+
+        assertThat(inventory(productId) + leased(productId)).isEqualTo(10);
+        mockMvc.perform(get("/api/v1/inventory/reservations/" + id))
+                .andExpect(jsonPath("$.data.status").value("RELEASED"));
+    }
+
+    @Test
+    void expiredReservation_shouldBeReturnedBySweep() throws Exception {
+        Long productId = product(5);
+        String id = reserve(productId, 5);
+        jdbcTemplate.update("update inventory_reservation set expires_at = ? where id = ?",
+                Instant.now().minusSeconds(1).atOffset(ZoneOffset.UTC), id);
+
+        mockMvc.perform(post("/api/v1/inventory/reservations/" + id + "/commit"))
+                .andExpect(status().isConflict());
+        assertThat(inventoryService.expireReservations()).isEqualTo(5);
+
+        assertThat(reservationRepository.findById(id).orElseThrow().getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(inventory(productId)).isEqualTo(5);
+        reserve(productId, 5);
+    }
+
+    @Test
+    void staleLeaseOfAnotherNode_shouldBeReclaimed() {
+        Long productId = product(2);
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.save(
+                new InventoryLease("gone:" + productId, "gone", productId, 8, Instant.now().minusSeconds(3600))));
+
+        assertThat(inventoryService.reclaimStaleLeases()).isEqualTo(8);
+
+        assertThat(inventory(productId)).isEqualTo(10);
+        assertThat(leaseRepository.findById("gone:" + productId)).isEmpty();
+    }
+
+    @Test
+    void productUpdate_shouldTakeBackLeasesAndKeepReservationsWithinTheNewStock() throws Exception {
+        Long productId = product(10);
+        reserve(productId, 1);
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.save(
+                new InventoryLease("other:" + productId, "other", productId, 4, Instant.now())));
+        assertThat(leased(productId)).isEqualTo(13);
+
+        mockMvc.perform(patch("/api/v1/product/id/" + productId + "/update").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"inventory\": 3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.inventory").value(2));
+
+        assertThat(leased(productId)).isZero();
+        int reserved = 0;
+        try {
+            for (int i = 0; i < 10; i++) {
+                inventoryService.reserve(productId, 1);
+                reserved++;
+            }
+        } catch (InventoryConflictException e) {
+            // sold out
+        }
+        assertThat(reserved).isEqualTo(2);
+        assertThat(reservedUnits(productId)).isEqualTo(3);
+        assertThat(inventory(productId) + leased(productId)).isZero();
+    }
+
+    @Test
+    void reserve_shouldReportBadRequestsMissingProductsAndShortage() throws Exception {
+        Long productId = product(1);
+
+        mockMvc.perform(post("/api/v1/inventory/reservations").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\": " + productId + ", \"quantity\": 0}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/inventory/reservations").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\": " + (productId + 1000) + ", \"quantity\": 1}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/v1/inventory/reservations").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\": " + productId + ", \"quantity\": 2}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/inventory/reservations/missing/commit"))
+                .andExpect(status().isNotFound());
+    }
+
+    private Long product(int inventory) {
+        return transactionTemplate.execute(status -> {
+            Category category = categoryRepository.save(new Category("Phones"));
+            return productRepository.save(new Product("Phone", "Acme", BigDecimal.TEN, inventory, "A phone", category)).getId();
+        });
+    }
+
+    private String reserve(Long productId, int quantity) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/inventory/reservations").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\": " + productId + ", \"quantity\": " + quantity + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("RESERVED"))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode json = objectMapper.readTree(body);
+        return json.path("data").path("id").asText();
+    }
+
+    private int inventory(Long productId) {
+        return productRepository.findInventoryById(productId).orElseThrow();
+    }
+
+    private int leased(Long productId) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(remaining), 0) from inventory_lease where product_id = ?",
+                Integer.class, productId);
+    }
+
+    private int reservedUnits(Long productId) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(quantity), 0) from inventory_reservation where product_id = ?",
+                Integer.class, productId);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+public class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = transactionTemplate.execute(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            Category category = categoryRepository.save(new Category("Audio"));
+            return productRepository.save(new Product("Speaker", "Acme", BigDecimal.TEN, 1, "A speaker", category)).getId();
+        });
+    }
+
+    @Test
+    void prometheus_shouldExposeRequestHistogramsPerHandler() throws Exception {
+        mockMvc.perform(get("/api/v1/product/brand").param("brand", "Acme")).andExpect(status().isOk());
+
+        String scrape = scrape();
+
+        assertThat(scrape).contains("http_server_requests_seconds_bucket{");
+        assertThat(scrape).containsPattern("http_server_requests_seconds_count\\{[^}]*handler=\"ProductController.getProductsByBrand\"[^}]*status=\"200\"");
+        assertThat(scrape).containsPattern("hibernate_request_statements_count\\{[^}]*handler=\"ProductController.getProductsByBrand\"");
+        assertThat(scrape).containsPattern("hibernate_request_statements_bucket\\{[^}]*handler=\"ProductController.getProductsByBrand\",le=\"2.0\"[^}]*} [1-9]");
+    }
+
+    @Test
+    void prometheus_shouldExposeRepositoryAndPoolMetrics() throws Exception {
+        mockMvc.perform(get("/api/v1/product/id/" + productId)).andExpect(status().isOk());
+
+        String scrape = scrape();
+
+        assertThat(scrape).containsPattern("spring_data_repository_invocations_seconds_bucket\\{[^}]*repository=\"ProductRepository\"");
+        assertThat(scrape).contains("hikaricp_connections_acquire_seconds_bucket{");
+        assertThat(scrape).contains("hikaricp_connections_usage_seconds_bucket{");
+        assertThat(scrape).contains("datasource_admission_limit{");
+        assertThat(scrape).contains("datasource_admission_rejected_total{");
+    }
+
+    @Test
+    void prometheus_shouldExposeLoggingPipelineMetrics() throws Exception {
+        String scrape = scrape();
+
+        assertThat(scrape).containsPattern("logging_async_queue_depth\\{[^}]*appender=\"ASYNC\"");
+        assertThat(scrape).containsPattern("logging_async_queue_capacity\\{[^}]*} 8192");
+        assertThat(scrape).contains("logging_async_dropped_total{");
+        assertThat(scrape).contains("logging_sampled_out_total{");
+    }
+
+    @Test
+    void prometheus_shouldCountImageBytesInAndOut() throws Exception {
+        byte[] bytes = "metered png bytes".getBytes(StandardCharsets.UTF_8);
+        mockMvc.perform(multipart("/api/v1/images/")
+                        .file(new MockMultipartFile("files", "m.png", "image/png", bytes))
+                        .param("productId", String.valueOf(productId)))
+                .andExpect(status().isOk());
+        Long imageId = imageRepository.findByProductId(productId).get(0).getId();
+        mockMvc.perform(get("/api/v1/images/download/" + imageId)).andExpect(status().isOk());
+
+        String scrape = scrape();
+
+        assertThat(scrape).containsPattern("image_bytes_sum\\{[^}]*direction=\"in\"[^}]*} [1-9]");
+        assertThat(scrape).containsPattern("image_bytes_sum\\{[^}]*direction=\"out\"[^}]*} [1-9]");
+    }
+
+    private String scrape() throws Exception {
+        return mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.project.ecommerceapp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.exceptions.InventoryConflictException;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.InventoryLease;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.*;
+import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.facet.ProductFacetService;
+import com.project.ecommerceapp.service.inventory.InventoryService;
+import com.project.ecommerceapp.service.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductBulkUpdateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private InventoryLeaseRepository leaseRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long phoneId;
+    private Long tabletId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            reservationRepository.deleteAllInBatch();
+            leaseRepository.deleteAllInBatch();
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+        });
+        categoryDictionary.reload();
+        productFacetService.recount();
+        phoneId = productService.addProduct(request("Galaxy S24", "Samsung", "Phones", "799", 10)).getId();
+        tabletId = productService.addProduct(request("Galaxy Tab", "Samsung", "Tablets", "45", 2)).getId();
+    }
+
+    @Test
+    void updateProducts_shouldReportEveryRecordAndKeepReadsConsistent() throws Exception {
+        mockMvc.perform(get("/api/v1/product/id/" + phoneId)).andExpect(jsonPath("$.data.price").value(799));
+        // 3 units of the tablet are out in another node's lease
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.save(
+                new InventoryLease("node:" + tabletId, "node", tabletId, 3, Instant.now())));
+
+        List<JsonNode> results = update(MediaType.parseMediaType("application/x-ndjson"), String.join("\n",
+                "{\"id\": " + phoneId + ", \"price\": 5}",
+                "{\"id\": " + tabletId + ", \"inventory\": 20}",
+                "{\"id\": " + phoneId + ", \"inventoryDelta\": -50}",
+                "{\"id\": " + (tabletId + 1000) + ", \"price\": 1}",
+                "{\"id\": " + tabletId + ", \"inventory\": 5, \"inventoryDelta\": 1}",
+                "{\"id\": \"abc\"}"));
+
+        assertThat(results).extracting(result -> result.get("status").asText())
+                .containsExactly("UPDATED", "UPDATED", "CONFLICT", "NOT_FOUND", "INVALID", "INVALID");
+        assertThat(results).extracting(result -> result.get("row").asLong()).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        Product phone = productRepository.findById(phoneId).orElseThrow();
+        assertThat(phone.getPrice()).isEqualByComparingTo("5");
+        assertThat(phone.getInventory()).isEqualTo(10);
+        assertThat(productRepository.findById(tabletId).orElseThrow().getInventory()).isEqualTo(20);
+        assertThat(leaseRepository.findAll()).isEmpty();
+
+        mockMvc.perform(get("/api/v1/product/id/" + phoneId)).andExpect(jsonPath("$.data.price").value(5));
+        mockMvc.perform(get("/api/v1/product/facets"))
+                .andExpect(jsonPath("$.data.priceBands['0-10']").value(1))
+                .andExpect(jsonPath("$.data.priceBands['500-1000']").doesNotExist());
+        assertThat(productFacetService.recount()).isZero();
+    }
+
+    @Test
+    void updateProducts_shouldNotLetLeasedUnitsBeSoldBeyondTheNewStock() throws Exception {
+        // the tablet's 2 units are leased by this node, 1 of them is reserved
+        inventoryService.reserve(tabletId, 1);
+        assertThat(productRepository.findById(tabletId).orElseThrow().getInventory()).isZero();
+
+        update(MediaType.APPLICATION_JSON, "[{\"id\": " + tabletId + ", \"inventory\": 1}]");
+
+        assertThat(productRepository.findById(tabletId).orElseThrow().getInventory()).isZero();
+        assertThatThrownBy(() -> inventoryService.reserve(tabletId, 1)).isInstanceOf(InventoryConflictException.class);
+
+        update(MediaType.APPLICATION_JSON, "[{\"id\": " + tabletId + ", \"inventory\": 3}]");
+
+        assertThat(productRepository.findById(tabletId).orElseThrow().getInventory()).isEqualTo(2);
+        // the failed reservation marked the product sold out on this node until app.inventory.sold-out-recheck
+        Thread.sleep(300);
+        inventoryService.reserve(tabletId, 2);
+        assertThat(productRepository.findById(tabletId).orElseThrow().getInventory()).isZero();
+    }
+
+    @Test
+    void updateProducts_shouldApplyRowsBeforeMalformedJson() throws Exception {
+        List<JsonNode> results = update(MediaType.APPLICATION_JSON,
+                "[{\"id\": " + tabletId + ", \"inventoryDelta\": 4}, {\"id\": " + phoneId + ", \"price\": ");
+
+        assertThat(results).extracting(result -> result.get("status").asText()).containsExactly("UPDATED", "INVALID");
+        assertThat(productRepository.findById(tabletId).orElseThrow().getInventory()).isEqualTo(6);
+        assertThat(productRepository.findById(phoneId).orElseThrow().getPrice()).isEqualByComparingTo("799");
+
+        mockMvc.perform(patch("/api/v1/product/bulk").contentType(MediaType.APPLICATION_JSON).content("\"products\""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Expected a JSON array or newline delimited JSON objects"));
+    }
+
+    private List<JsonNode> update(MediaType contentType, String body) throws Exception {
+        String content = mockMvc.perform(patch("/api/v1/product/bulk").contentType(contentType).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static AddProductRequest request(String name, String brand, String category, String price, int inventory) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setPrice(new BigDecimal(price));
+        request.setInventory(inventory);
+        request.setDescription(name);
+        request.setCategory(new Category(category));
+        return request;
+    }
+}
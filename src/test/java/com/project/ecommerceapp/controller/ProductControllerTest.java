@@ -1,21 +1,38 @@
 package com.project.ecommerceapp.controller;
 
+import com.project.ecommerceapp.cache.ResponseCache;
+import com.project.ecommerceapp.cache.SingleFlight;
+import com.project.ecommerceapp.dto.CursorPage;
 import com.project.ecommerceapp.dto.ProductDto;
-import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.service.facet.ProductFacetService;
+import com.project.ecommerceapp.service.product.ProductBulkUpdateService;
+import com.project.ecommerceapp.service.product.ProductExportService;
+import com.project.ecommerceapp.service.product.ProductImportService;
+import com.project.ecommerceapp.service.search.ProductSearchService;
 import com.project.ecommerceapp.service.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductController.class)
@@ -27,10 +44,40 @@ public class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductExportService productExportService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductBulkUpdateService productBulkUpdateService;
+
+    @MockBean
+    private ProductSearchService productSearchService;
+
+    @MockBean
+    private ProductFacetService productFacetService;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    @MockBean
+    private SingleFlight productQueries;
+
+    // the cache and the coalescing are covered by ResponseCacheTest and TwoLevelCacheTest, here every call goes
+    // straight to the service
+    @BeforeEach
+    void setUp() {
+        Mockito.when(responseCache.serve(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        Mockito.when(productQueries.execute(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
     @Test
     void getProducts_shouldReturnEmptyList_whenNoProducts() throws Exception {
-        Mockito.when(productService.getAllProduct()).thenReturn(Collections.emptyList());
-        Mockito.when(productService.getListProductDto(any())).thenReturn(Collections.emptyList());
+        Mockito.when(productService.getAllProduct(null, null)).thenReturn(new CursorPage<>(Collections.emptyList(), null, 20));
 
         mockMvc.perform(get("/api/v1/product/"))
                 .andExpect(status().isOk())
@@ -40,17 +87,48 @@ public class ProductControllerTest {
 
     @Test
     void getProducts_shouldReturnProductList_whenProductsExist() throws Exception {
-        Product product = new Product();
         ProductDto productDto = new ProductDto();
-        List<Product> products = List.of(product);
         List<ProductDto> productDtos = List.of(productDto);
 
-        Mockito.when(productService.getAllProduct()).thenReturn(products);
-        Mockito.when(productService.getListProductDto(products)).thenReturn(productDtos);
+        Mockito.when(productService.getAllProduct(null, null)).thenReturn(new CursorPage<>(productDtos, null, 20));
 
         mockMvc.perform(get("/api/v1/product/"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("Product:"))
-                .andExpect(jsonPath("$.data").isArray());
+                .andExpect(jsonPath("$.data.content").isArray())
+                .andExpect(jsonPath("$.data.nextCursor").isEmpty());
+    }
+
+    @Test
+    void getProducts_shouldPassCursorAndReturnNextCursor() throws Exception {
+        ProductDto productDto = new ProductDto();
+        productDto.setId(42L);
+
+        Mockito.when(productService.getAllProduct(10L, 1)).thenReturn(new CursorPage<>(List.of(productDto), 42L, 1));
+
+        mockMvc.perform(get("/api/v1/product/").param("after", "10").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.nextCursor").value(42))
+                .andExpect(jsonPath("$.data.limit").value(1));
+    }
+
+    @Test
+    void exportProducts_shouldStreamNdjson() throws Exception {
+        Mockito.when(productExportService.exportProducts(any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/v1/product/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // the export's own timeout, instead of the default one of every other async response
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
     }
 }
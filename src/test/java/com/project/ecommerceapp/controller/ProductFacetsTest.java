@@ -0,0 +1,149 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.request.UpdateProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.category.CategoryService;
+import com.project.ecommerceapp.service.facet.ProductFacetService;
+import com.project.ecommerceapp.service.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Counts are recounted from the database before each test, then every write below goes through the regular
+    write paths and must be reflected without another recount.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductFacetsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Product galaxy;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+        });
+        categoryDictionary.reload();
+        productFacetService.recount();
+        galaxy = productService.addProduct(request("Galaxy S24", "Samsung", "Phones", "799"));
+        productService.addProduct(request("iPhone 15", "Apple", "Phones", "999"));
+        productService.addProduct(request("Galaxy Tab", "Samsung", "Tablets", "45"));
+    }
+
+    @Test
+    void facets_shouldCountAddedProductsPerFilter() throws Exception {
+        mockMvc.perform(get("/api/v1/product/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.categories.Phones").value(2))
+                .andExpect(jsonPath("$.data.brands.Samsung").value(2))
+                .andExpect(jsonPath("$.data.priceBands['10-50']").value(1))
+                .andExpect(jsonPath("$.data.priceBands['500-1000']").value(2));
+
+        mockMvc.perform(get("/api/v1/product/facets").param("brand", "Samsung").param("priceBand", "500-1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(1))
+                .andExpect(jsonPath("$.data.categories.Phones").value(1))
+                .andExpect(jsonPath("$.data.categories.Tablets").doesNotExist())
+                .andExpect(jsonPath("$.data.brands.Apple").value(1));
+    }
+
+    @Test
+    void facets_shouldFollowUpdatesDeletesImportsAndRenames() throws Exception {
+        UpdateProductRequest update = new UpdateProductRequest();
+        update.setPrice(new BigDecimal("5"));
+        productService.updateProduct(update, galaxy.getId());
+        productService.deleteProductById(productRepository.findAll().stream()
+                .filter(product -> product.getBrand().equals("Apple")).findFirst().orElseThrow().getId());
+        mockMvc.perform(post("/api/v1/product/bulk").contentType("text/csv")
+                        .content("name,brand,price,inventory,description,category\nPixel 8,Google,699,3,A phone,Phones\n"))
+                .andExpect(status().isOk());
+        categoryService.updateCategory(new Category("Slates"), categoryDictionary.find("Tablets").orElseThrow().getId());
+
+        mockMvc.perform(get("/api/v1/product/facets").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.categories.Phones").value(2))
+                .andExpect(jsonPath("$.data.categories.Slates").value(1))
+                .andExpect(jsonPath("$.data.brands.Apple").doesNotExist())
+                .andExpect(jsonPath("$.data.priceBands['0-10']").value(1))
+                .andExpect(jsonPath("$.data.priceBands['500-1000']").value(1));
+        assertThat(productFacetService.recount()).isZero();
+    }
+
+    @Test
+    void recount_shouldCorrectRowsChangedOutsideTheApplication() throws Exception {
+        jdbcTemplate.update("update product set brand = 'Acme' where brand = 'Apple'");
+
+        assertThat(productFacetService.recount()).isEqualTo(2);
+        mockMvc.perform(get("/api/v1/product/facets"))
+                .andExpect(jsonPath("$.data.brands.Acme").value(1))
+                .andExpect(jsonPath("$.data.brands.Apple").doesNotExist());
+    }
+
+    private static AddProductRequest request(String name, String brand, String category, String price) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setPrice(new BigDecimal(price));
+        request.setInventory(1);
+        request.setDescription(name);
+        request.setCategory(new Category(category));
+        return request;
+    }
+}
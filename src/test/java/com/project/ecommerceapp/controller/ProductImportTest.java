@@ -0,0 +1,130 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    A batch size of 2 makes every import below span several chunks.
+*/
+@SpringBootTest(properties = "api.import.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            categoryRepository.save(new Category("Phones"));
+        });
+        categoryDictionary.reload();
+    }
+
+    @Test
+    void importJson_shouldInsertValidRowsAndReportInvalidOnes() throws Exception {
+        String body = """
+                [
+                  {"name": "Phone A", "brand": "Acme", "price": 100, "inventory": 5, "category": {"name": "Phones"}},
+                  {"name": "Laptop A", "brand": "Acme", "price": 900, "inventory": 2, "category": {"name": "Laptops"}},
+                  {"name": "", "brand": "Acme", "price": 10, "category": {"name": "Phones"}},
+                  {"name": "Laptop B", "brand": "Acme", "price": "abc", "category": {"name": "Laptops"}},
+                  {"name": "Tablet A", "brand": "Acme", "price": 300, "category": {"name": "Tablets"}}
+                ]
+                """;
+
+        mockMvc.perform(post("/api/v1/product/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.received").value(5))
+                .andExpect(jsonPath("$.data.imported").value(3))
+                .andExpect(jsonPath("$.data.failed").value(2))
+                .andExpect(jsonPath("$.data.errors[0].row").value(3))
+                .andExpect(jsonPath("$.data.errors[1].row").value(4));
+
+        assertThat(categoryRepository.findAll()).extracting(Category::getName)
+                .containsExactlyInAnyOrder("Phones", "Laptops", "Tablets");
+        List<Product> products = transactionTemplate.execute(status -> {
+            List<Product> all = productRepository.findAll();
+            all.forEach(product -> product.getCategory().getName());
+            return all;
+        });
+        assertThat(products).hasSize(3);
+        assertThat(products).filteredOn(product -> product.getName().equals("Laptop A"))
+                .singleElement()
+                .satisfies(product -> {
+                    assertThat(product.getCategory().getName()).isEqualTo("Laptops");
+                    assertThat(product.getPrice()).isEqualByComparingTo(BigDecimal.valueOf(900));
+                    assertThat(product.getInventory()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void importJson_shouldRejectNonArrayBody() throws Exception {
+        mockMvc.perform(post("/api/v1/product/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"x\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importCsv_shouldParseQuotedFieldsAndReportInvalidRows() throws Exception {
+        String body = """
+                name,brand,price,inventory,description,category
+                Phone B,Acme,199.99,3,"Dual SIM, 128 GB",Phones
+                Phone C,Acme,not-a-price,1,,Phones
+                "Phone ""D""\",Acme,250,0,,Wearables
+                """;
+
+        mockMvc.perform(post("/api/v1/product/bulk").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.received").value(3))
+                .andExpect(jsonPath("$.data.imported").value(2))
+                .andExpect(jsonPath("$.data.errors[0].row").value(2))
+                .andExpect(jsonPath("$.data.errors[0].message").value("Invalid price: not-a-price"));
+
+        assertThat(productRepository.findAll()).extracting(Product::getName, Product::getDescription)
+                .containsExactlyInAnyOrder(
+                        tuple("Phone B", "Dual SIM, 128 GB"),
+                        tuple("Phone \"D\"", null));
+        assertThat(categoryRepository.findByName("Wearables")).isNotNull();
+    }
+}
@@ -0,0 +1,140 @@
+package com.project.ecommerceapp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductQueryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            Category phones = categoryRepository.save(new Category("Phones"));
+            Category tablets = categoryRepository.save(new Category("Tablets"));
+            productRepository.save(new Product("Galaxy S24", "Samsung", new BigDecimal("799"), 5, "Phone", phones));
+            productRepository.save(new Product("Galaxy A15", "Samsung", new BigDecimal("199"), 0, "Phone", phones));
+            productRepository.save(new Product("Galaxy Tab", "Samsung", new BigDecimal("449"), 3, "Tablet", tablets));
+            productRepository.save(new Product("iPhone 15", "Apple", new BigDecimal("999"), 2, "Phone", phones));
+            productRepository.save(new Product("iPad", "Apple", new BigDecimal("449"), 1, "Tablet", tablets));
+            productRepository.save(new Product("Pixel 8", "Google", new BigDecimal("699"), 4, "Phone", phones));
+        });
+        categoryDictionary.reload();
+    }
+
+    @Test
+    void query_shouldCombineFilters() throws Exception {
+        mockMvc.perform(get("/api/v1/product/query")
+                        .param("category", "Phones")
+                        .param("brand", "Samsung")
+                        .param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(1))
+                .andExpect(jsonPath("$.data.content[0].name").value("Galaxy S24"))
+                .andExpect(jsonPath("$.data.content[0].category").value("Phones"))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/product/query")
+                        .param("name", "Galaxy")
+                        .param("minPrice", "200")
+                        .param("maxPrice", "800")
+                        .param("sort", "price_desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].name").value("Galaxy S24"))
+                .andExpect(jsonPath("$.data.content[1].name").value("Galaxy Tab"))
+                .andExpect(jsonPath("$.data.content.length()").value(2));
+
+        mockMvc.perform(get("/api/v1/product/query").param("category", "Laptops"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(0));
+    }
+
+    @Test
+    void query_shouldPageThroughTiesInSortOrder() throws Exception {
+        assertThat(names(all("price_asc", 2)))
+                .containsExactly("Galaxy A15", "Galaxy Tab", "iPad", "Pixel 8", "Galaxy S24", "iPhone 15");
+        assertThat(names(all("name", 4)))
+                .containsExactly("Galaxy A15", "Galaxy S24", "Galaxy Tab", "Pixel 8", "iPad", "iPhone 15");
+        assertThat(names(all("newest", 5)))
+                .containsExactly("Pixel 8", "iPad", "iPhone 15", "Galaxy Tab", "Galaxy A15", "Galaxy S24");
+    }
+
+    @Test
+    void query_shouldRejectUnknownSortAndBrokenCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/product/query").param("sort", "rating"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/product/query").param("sort", "price_asc").param("after", "bm90LWEtY3Vyc29y"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Follows nextCursor until the last page and returns the items of all pages
+    private List<JsonNode> all(String sort, int limit) throws Exception {
+        List<JsonNode> items = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/v1/product/query").param("sort", sort).param("limit", String.valueOf(limit));
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).get("data");
+            page.get("content").forEach(items::add);
+            cursor = page.path("nextCursor").isTextual() ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return items;
+    }
+
+    private List<String> names(List<JsonNode> items) {
+        return items.stream().map(item -> item.get("name").asText()).toList();
+    }
+}
@@ -0,0 +1,160 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Image;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.service.product.ProductExportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Read endpoints are backed by projections plus one batched image query,
+    so the number of SQL statements per request must not grow with the page size.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductReadStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long firstProductId;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> seedCatalog());
+    }
+
+    private void seedCatalog() {
+        imageRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        categoryRepository.deleteAllInBatch();
+
+        Category category = categoryRepository.save(new Category("Phones"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            products.add(new Product("Phone " + i, "Acme", BigDecimal.valueOf(100 + i), 5, "Phone number " + i, category));
+        }
+        products = productRepository.saveAll(products);
+        firstProductId = products.get(0).getId();
+
+        List<Image> images = new ArrayList<>();
+        for (Product product : products) {
+            for (int i = 0; i < 2; i++) {
+                Image image = new Image();
+                image.setFileName(product.getName() + "-" + i + ".png");
+                image.setFileType("image/png");
+                image.setProduct(product);
+                images.add(image);
+            }
+        }
+        imageRepository.saveAll(images);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void getProducts_shouldRunTwoStatementsWhateverThePageSize(int limit) throws Exception {
+        long statements = countStatements(get("/api/v1/product/").param("limit", String.valueOf(limit)));
+
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void getProductsByBrand_shouldRunTwoStatementsWhateverThePageSize(int limit) throws Exception {
+        long statements = countStatements(get("/api/v1/product/brand").param("brand", "Acme").param("limit", String.valueOf(limit)));
+
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    void getProductById_shouldRunTwoStatements() throws Exception {
+        long statements = countStatements(get("/api/v1/product/id/" + firstProductId));
+
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    void getProducts_shouldReturnImagesAndCategory() throws Exception {
+        mockMvc.perform(get("/api/v1/product/").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(2))
+                .andExpect(jsonPath("$.data.content[0].category").value("Phones"))
+                .andExpect(jsonPath("$.data.content[0].images.length()").value(2))
+                .andExpect(jsonPath("$.data.nextCursor").value(firstProductId + 1));
+    }
+
+    // a single row first, then the rest in one chunk: each chunk query ends before the images of the chunk are read
+    @Test
+    void exportProducts_shouldReadEveryChunkBeforeItsImages() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = productExportService.exportProducts(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(exported).isEqualTo(60);
+        assertThat(lines).hasSize(60);
+        assertThat(lines[0]).contains("\"id\":" + firstProductId).contains("Phone 0-1.png");
+        assertThat(lines[59]).contains("\"id\":" + (firstProductId + 59)).contains("Phone 59-0.png");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
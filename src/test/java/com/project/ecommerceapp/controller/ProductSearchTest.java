@@ -0,0 +1,145 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.request.UpdateProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.category.CategoryService;
+import com.project.ecommerceapp.service.product.ProductService;
+import com.project.ecommerceapp.service.search.ProductSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    The index is rebuilt from the database before each test, then every write below goes through the
+    regular write paths and must be visible to search without another rebuild.
+*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProductSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Product galaxy;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+        });
+        categoryDictionary.reload();
+        productSearchService.rebuild();
+        galaxy = productService.addProduct(request("Galaxy S24", "Samsung", "Phones"));
+        productService.addProduct(request("Galaxy Tab", "Samsung", "Tablets"));
+    }
+
+    @Test
+    void search_shouldFindAddedProductsByPrefixAndTypo() throws Exception {
+        mockMvc.perform(get("/api/v1/product/search").param("q", "galax s2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(1))
+                .andExpect(jsonPath("$.data.content[0].name").value("Galaxy S24"))
+                .andExpect(jsonPath("$.data.content[0].category").value("Phones"));
+
+        mockMvc.perform(get("/api/v1/product/search").param("q", "samsnug").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(2))
+                .andExpect(jsonPath("$.data.content", hasSize(1)))
+                .andExpect(jsonPath("$.data.nextOffset").value(1));
+    }
+
+    @Test
+    void search_shouldFollowUpdatesAndDeletes() throws Exception {
+        UpdateProductRequest update = new UpdateProductRequest();
+        update.setName("Pixel 8");
+        productService.updateProduct(update, galaxy.getId());
+
+        mockMvc.perform(get("/api/v1/product/search").param("q", "pixel"))
+                .andExpect(jsonPath("$.data.total").value(1));
+        mockMvc.perform(get("/api/v1/product/search").param("q", "galaxy"))
+                .andExpect(jsonPath("$.data.total").value(1));
+
+        productService.deleteProductById(galaxy.getId());
+
+        mockMvc.perform(get("/api/v1/product/search").param("q", "pixel"))
+                .andExpect(jsonPath("$.data.total").value(0))
+                .andExpect(jsonPath("$.data.content", hasSize(0)));
+    }
+
+    @Test
+    void search_shouldFollowCategoryRenames() throws Exception {
+        Long tablets = categoryDictionary.find("Tablets").orElseThrow().getId();
+
+        categoryService.updateCategory(new Category("Slates"), tablets);
+
+        mockMvc.perform(get("/api/v1/product/search").param("q", "slates"))
+                .andExpect(jsonPath("$.data.content[0].name").value("Galaxy Tab"));
+    }
+
+    @Test
+    void search_shouldFindBulkImportedProducts() throws Exception {
+        mockMvc.perform(post("/api/v1/product/bulk").contentType("text/csv").content("""
+                        name,brand,price,category
+                        Walkman,Sony,99,Audio
+                        """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/product/search").param("q", "walkmn"))
+                .andExpect(jsonPath("$.data.content[0].brand").value("Sony"));
+    }
+
+    private static AddProductRequest request(String name, String brand, String category) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setPrice(BigDecimal.TEN);
+        request.setCategory(new Category(category));
+        return request;
+    }
+}
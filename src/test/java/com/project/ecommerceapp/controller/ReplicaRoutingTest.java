@@ -0,0 +1,156 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.datasource.ReadYourWrites;
+import com.project.ecommerceapp.dto.ProductDto;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.request.ProductQueryRequest;
+import com.project.ecommerceapp.request.UpdateProductRequest;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import com.project.ecommerceapp.service.product.ProductService;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    The application runs against two in-memory databases, a primary and a replica with the same schema. The same
+    product is stored in both under a different name, so every response tells which database served it.
+*/
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.urls=jdbc:h2:mem:routing-replica;MODE=MSSQLServer;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ReplicaRoutingTest {
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MSSQLServer;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final JdbcTemplate replica = new JdbcTemplate(replicaDataSource());
+
+    private Product product;
+
+    // the replica has to have the schema before the application reads from it at startup
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(replicaDataSource()).locations("classpath:db/migration/h2").load().migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        product = transactionTemplate.execute(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            Category phones = categoryRepository.save(new Category("Phones"));
+            return productRepository.save(new Product("Galaxy S24", "Samsung", new BigDecimal("799"), 5, "Phone", phones));
+        });
+        categoryDictionary.reload();
+        replica.update("delete from product");
+        replica.update("delete from category");
+        replica.update("insert into category (id, name) values (?, ?)", product.getCategory().getId(), "Phones");
+        replica.update("insert into product (id, name, brand, price, inventory, description, category_id) values (?, ?, ?, ?, ?, ?, ?)",
+                product.getId(), "Galaxy S24 (replica)", "Samsung", new BigDecimal("799"), 5, "Phone", product.getCategory().getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.stop();
+    }
+
+    @Test
+    void readOnlyRequests_shouldBeServedByTheReplica() throws Exception {
+        mockMvc.perform(get("/api/v1/product/query").param("brand", "Samsung"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].name").value("Galaxy S24 (replica)"));
+        mockMvc.perform(get("/api/v1/product/brand").param("brand", "Samsung"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].name").value("Galaxy S24 (replica)"));
+    }
+
+    @Test
+    void writes_shouldOnlyReachThePrimary() throws Exception {
+        mockMvc.perform(patch("/api/v1/product/id/" + product.getId() + "/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 749}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Galaxy S24"))
+                .andExpect(jsonPath("$.data.price").value(749));
+
+        // a read-write transaction, the repository's own read-only one would be sent to the replica
+        BigDecimal primaryPrice = transactionTemplate.execute(status -> productRepository.findById(product.getId()).orElseThrow().getPrice());
+        assertThat(primaryPrice).isEqualByComparingTo("749");
+        assertThat(replica.queryForObject("select price from product where id = ?", BigDecimal.class, product.getId()))
+                .isEqualByComparingTo("799");
+    }
+
+    @Test
+    void requestThatWrote_shouldReadItsOwnWrites() {
+        ReadYourWrites.start();
+        ProductQueryRequest query = new ProductQueryRequest();
+        query.setBrand("Samsung");
+        assertThat(names(query)).containsExactly("Galaxy S24 (replica)");
+
+        UpdateProductRequest update = new UpdateProductRequest();
+        update.setName("Galaxy S24 Ultra");
+        productService.updateProduct(update, product.getId());
+
+        assertThat(names(query)).containsExactly("Galaxy S24 Ultra");
+        ReadYourWrites.stop();
+        assertThat(names(query)).containsExactly("Galaxy S24 (replica)");
+    }
+
+    private List<String> names(ProductQueryRequest query) {
+        return productService.queryProducts(query).getContent().stream().map(ProductDto::getName).toList();
+    }
+
+    private static JdbcDataSource replicaDataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(REPLICA_URL);
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,163 @@
+package com.project.ecommerceapp.controller;
+
+import com.project.ecommerceapp.cache.ResponseCache;
+import com.project.ecommerceapp.dto.ResponseCacheStatsDto;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Image;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ResponseCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Product product = transactionTemplate.execute(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            Category category = categoryRepository.save(new Category("Watches"));
+            Product saved = productRepository.save(new Product("Watch", "Acme", BigDecimal.TEN, 3, "A watch", category));
+            // enough images for the body to be worth compressing
+            for (int i = 0; i < 12; i++) {
+                Image image = new Image();
+                image.setFileName("watch-" + i + "-" + "front-side-detail-".repeat(10) + ".jpg");
+                image.setFileType("image/jpeg");
+                image.setContentHash(String.format("%064d", i));
+                image.setContentLength(1000L);
+                image.setProduct(saved);
+                imageRepository.save(image);
+            }
+            return saved;
+        });
+        productId = product.getId();
+        categoryId = product.getCategory().getId();
+    }
+
+    @Test
+    void getProductById_shouldServeRepeatedReadsWithoutTouchingTheDatabase() throws Exception {
+        mockMvc.perform(get("/api/v1/product/id/" + productId)).andExpect(status().isOk());
+        ResponseCacheStatsDto before = responseCache.getStats();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/product/id/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Watch"));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        ResponseCacheStatsDto after = responseCache.getStats();
+        assertThat(after.getHits()).isEqualTo(before.getHits() + 1);
+        assertThat(after.getSerializationBytesSaved()).isGreaterThan(before.getSerializationBytesSaved() + 2000);
+        assertThat(after.getBytes()).isPositive().isLessThanOrEqualTo(after.getMaximumBytes());
+    }
+
+    @Test
+    void getProductById_shouldServePrecompressedBodyWhenGzipIsAccepted() throws Exception {
+        byte[] plain = mockMvc.perform(get("/api/v1/product/id/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] gzipped = mockMvc.perform(get("/api/v1/product/id/" + productId).header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gzipped.length).isLessThan(plain.length / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain);
+        }
+        mockMvc.perform(get("/api/v1/product/id/" + productId).header("Accept-Encoding", "gzip;q=0, *"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    void productAndCategoryWrites_shouldInvalidateCachedResponses() throws Exception {
+        mockMvc.perform(get("/api/v1/product/id/" + productId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/product/")).andExpect(jsonPath("$.data.content[0].name").value("Watch"));
+
+        mockMvc.perform(patch("/api/v1/product/id/" + productId + "/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Smart Watch\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/product/id/" + productId)).andExpect(jsonPath("$.data.name").value("Smart Watch"));
+        mockMvc.perform(get("/api/v1/product/")).andExpect(jsonPath("$.data.content[0].name").value("Smart Watch"));
+
+        mockMvc.perform(put("/api/v1/category/" + categoryId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Wearables\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/product/id/" + productId)).andExpect(jsonPath("$.data.category").value("Wearables"));
+        mockMvc.perform(get("/api/v1/product/")).andExpect(jsonPath("$.data.content[0].category").value("Wearables"));
+    }
+
+    @Test
+    void getProductById_shouldNotCacheMissingProducts() throws Exception {
+        long entries = responseCache.getStats().getEntries();
+
+        mockMvc.perform(get("/api/v1/product/id/" + (productId + 1000))).andExpect(status().isNotFound());
+
+        assertThat(responseCache.getStats().getEntries()).isEqualTo(entries);
+    }
+}
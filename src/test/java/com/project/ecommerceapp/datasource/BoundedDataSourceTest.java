@@ -0,0 +1,91 @@
+package com.project.ecommerceapp.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BoundedDataSourceTest {
+
+    private DataSource pool;
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new BoundedDataSource(pool, 2);
+    }
+
+    @Test
+    void getConnection_shouldRejectCallersBeyondTheLimit() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(dataSource.getInUse()).isEqualTo(2);
+        assertThat(dataSource.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void close_shouldReleaseThePermitOnce() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        first.close();
+        first.close();
+
+        assertThat(dataSource.getInUse()).isEqualTo(1);
+        second.close();
+        assertThat(dataSource.getInUse()).isZero();
+    }
+
+    @Test
+    void close_shouldCloseTheUnderlyingConnection() throws SQLException {
+        Connection target = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(target);
+
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        verify(target).setAutoCommit(false);
+        verify(target).close();
+    }
+
+    @Test
+    void getEstimatedWait_shouldGrowWithTheCallersWaiting() throws Exception {
+        BoundedDataSource bounded = new BoundedDataSource(pool, 1, 3);
+        Connection held = bounded.getConnection();
+        Thread.sleep(20);
+        held.close();
+        assertThat(bounded.getEstimatedWait()).isZero();
+
+        bounded.getConnection();
+        bounded.getConnection();
+        Duration oneWaiting = bounded.getEstimatedWait();
+        bounded.getConnection();
+
+        assertThat(oneWaiting).isPositive();
+        assertThat(bounded.getEstimatedWait()).isGreaterThan(oneWaiting);
+    }
+
+    @Test
+    void getConnection_shouldReleaseThePermitWhenThePoolTimesOut() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool timeout");
+        assertThat(dataSource.getInUse()).isZero();
+        assertThat(dataSource.getRejected()).isZero();
+    }
+}
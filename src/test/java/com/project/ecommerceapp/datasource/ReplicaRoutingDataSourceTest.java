@@ -0,0 +1,132 @@
+package com.project.ecommerceapp.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Two in-memory databases stand in for the primary and the replica, each holding its own name in a table,
+    so every read tells which one served it.
+*/
+public class ReplicaRoutingDataSourceTest {
+
+    private FailingDataSource replica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("routing-test-primary");
+        replica = new FailingDataSource(database("routing-test-replica"));
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofHours(1));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ReadYourWrites.stop();
+        routing.close();
+    }
+
+    @Test
+    void readOnlyTransactions_shouldGoToTheReplica() {
+        assertThat(readOnlyServer()).isEqualTo("replica");
+        assertThat(readWriteServer()).isEqualTo("primary");
+        assertThat(server()).isEqualTo("primary");
+        assertThat(routing.getReplicaConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void readOnlyJoinedToReadWrite_shouldStayOnThePrimary() {
+        String server = readWrite.execute(status -> readOnlyServer());
+
+        assertThat(server).isEqualTo("primary");
+    }
+
+    @Test
+    void requestThatWrote_shouldReadFromThePrimaryUntilItEnds() {
+        ReadYourWrites.start();
+        assertThat(readOnlyServer()).isEqualTo("replica");
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update server set name = name"));
+
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        ReadYourWrites.stop();
+        assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+
+    @Test
+    void failingReplica_shouldFailOverToThePrimaryUntilItIsHealthyAgain() {
+        replica.failing = true;
+
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        assertThat(routing.getFailovers()).isEqualTo(1);
+        assertThat(routing.getHealthyReplicas()).isZero();
+
+        replica.failing = false;
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        routing.checkReplicas();
+
+        assertThat(routing.getHealthyReplicas()).isEqualTo(1);
+        assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+
+    private String readOnlyServer() {
+        return readOnly.execute(status -> server());
+    }
+
+    private String readWriteServer() {
+        return readWrite.execute(status -> server());
+    }
+
+    private String server() {
+        return jdbcTemplate.queryForObject("select name from server", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists server (name varchar(16))");
+        jdbcTemplate.update("delete from server");
+        jdbcTemplate.update("insert into server (name) values (?)", name.substring(name.lastIndexOf('-') + 1));
+        return dataSource;
+    }
+
+    private static class FailingDataSource extends DelegatingDataSource {
+        private volatile boolean failing;
+
+        FailingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("replica down");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.ecommerceapp.facet;
+
+import com.project.ecommerceapp.dto.FacetsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FacetCountsTest {
+
+    private FacetCounts facetCounts;
+
+    @BeforeEach
+    void setUp() {
+        facetCounts = new FacetCounts(List.of(new BigDecimal("100"), new BigDecimal("10")));
+        add("Phones", "Samsung", "50");
+        add("Phones", "Samsung", "500");
+        add("Phones", "Apple", "999");
+        add("Tablets", "Samsung", "5");
+        add("Tablets", "Lenovo", null);
+    }
+
+    @Test
+    void count_withoutFilters_shouldCountEveryFacet() {
+        FacetsDto facets = facetCounts.count(null, null, null);
+
+        assertThat(facets.getTotal()).isEqualTo(5);
+        assertThat(facets.getCategories()).containsExactly(Map.entry("Phones", 3L), Map.entry("Tablets", 2L));
+        assertThat(facets.getBrands()).containsExactly(Map.entry("Samsung", 3L), Map.entry("Apple", 1L), Map.entry("Lenovo", 1L));
+        assertThat(facets.getPriceBands()).containsExactly(Map.entry("0-10", 1L), Map.entry("10-100", 1L), Map.entry("100+", 2L));
+    }
+
+    @Test
+    void count_shouldApplyEveryFilterExceptTheFacetsOwn() {
+        FacetsDto facets = facetCounts.count(List.of("Phones"), List.of("Samsung"), null);
+
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getCategories()).containsExactly(Map.entry("Phones", 2L), Map.entry("Tablets", 1L));
+        assertThat(facets.getBrands()).containsExactly(Map.entry("Samsung", 2L), Map.entry("Apple", 1L));
+        assertThat(facets.getPriceBands()).containsExactly(Map.entry("10-100", 1L), Map.entry("100+", 1L));
+
+        assertThat(facetCounts.count(null, null, List.of("100+", "0-10")).getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void writes_shouldMoveAndDropCells() {
+        FacetCounts.Cell before = facetCounts.cell("Phones", "Apple", new BigDecimal("999"));
+        facetCounts.move(before, facetCounts.cell("Phones", "Apple", new BigDecimal("99")));
+        facetCounts.remove(facetCounts.cell("Tablets", "Lenovo", null));
+        facetCounts.renameCategory("Tablets", "Slates");
+
+        FacetsDto facets = facetCounts.count(null, List.of("Apple"), null);
+        assertThat(facets.getPriceBands()).containsExactly(Map.entry("10-100", 1L));
+        assertThat(facetCounts.count(null, null, null).getCategories()).containsExactly(Map.entry("Phones", 3L), Map.entry("Slates", 1L));
+        assertThat(facetCounts.size()).isEqualTo(4);
+    }
+
+    @Test
+    void replace_shouldReportCorrectedCells() {
+        FacetCounts.Cell phone = facetCounts.cell("Phones", "Samsung", new BigDecimal("50"));
+
+        int corrected = facetCounts.replace(Map.of(phone, 2L));
+
+        assertThat(corrected).isEqualTo(5);
+        assertThat(facetCounts.count(null, null, null).getTotal()).isEqualTo(2);
+    }
+
+    private void add(String category, String brand, String price) {
+        facetCounts.add(facetCounts.cell(category, brand, price != null ? new BigDecimal(price) : null));
+    }
+}
@@ -0,0 +1,148 @@
+package com.project.ecommerceapp.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.util.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class LoggingPipelineTest {
+
+    private LoggerContext context;
+    private CountDownLatch release;
+    private BlockingAppender delegate;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        release = new CountDownLatch(1);
+        delegate = new BlockingAppender(release);
+        delegate.setContext(context);
+        delegate.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        context.stop();
+    }
+
+    @Test
+    void fullRingBuffer_shouldDropWhenAppendTimeoutIsZero() {
+        MeteredAsyncAppender appender = asyncAppender("0");
+        Logger logger = logger(appender);
+
+        for (int i = 0; i < 20; i++) {
+            logger.info("event {}", i);
+        }
+
+        assertThat(appender.getQueueDepth()).isEqualTo(4);
+        assertThat(appender.getDropped()).isEqualTo(16);
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delegate.received.get() == 4);
+    }
+
+    @Test
+    void fullRingBuffer_shouldBlockWhenAppendTimeoutIsNegative() {
+        MeteredAsyncAppender appender = asyncAppender("-1");
+        Logger logger = logger(appender);
+        new Thread(() -> {
+            sleep(200);
+            release.countDown();
+        }).start();
+
+        for (int i = 0; i < 20; i++) {
+            logger.info("event {}", i);
+        }
+
+        assertThat(appender.getDropped()).isZero();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> delegate.received.get() == 20);
+    }
+
+    @Test
+    void samplingFilter_shouldOnlyThinInfoEventsOfConfiguredLoggers() {
+        InfoSamplingTurboFilter filter = new InfoSamplingTurboFilter();
+        filter.addLoggerPrefix("com.example.hot");
+        filter.setRate(4);
+        filter.start();
+        context.addTurboFilter(filter);
+        ListAppender<ILoggingEvent> list = new ListAppender<>();
+        list.setContext(context);
+        list.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(list);
+
+        Logger hot = context.getLogger("com.example.hot.ProductController");
+        Logger quiet = context.getLogger("com.example.other.ImportService");
+        for (int i = 0; i < 4000; i++) {
+            hot.info("request {}", i);
+            hot.warn("warning {}", i);
+            quiet.info("import {}", i);
+        }
+
+        long hotInfo = list.list.stream().filter(e -> e.getLoggerName().startsWith("com.example.hot") && e.getLevel().toString().equals("INFO")).count();
+        long hotWarn = list.list.stream().filter(e -> e.getLoggerName().startsWith("com.example.hot") && e.getLevel().toString().equals("WARN")).count();
+        long quietInfo = list.list.stream().filter(e -> e.getLoggerName().startsWith("com.example.other")).count();
+        assertThat(hotInfo).isBetween(800L, 1200L);
+        assertThat(filter.getSampledOut()).isEqualTo(4000 - hotInfo);
+        assertThat(hotWarn).isEqualTo(4000);
+        assertThat(quietInfo).isEqualTo(4000);
+        assertThat(hot.isInfoEnabled()).isTrue();
+    }
+
+    private MeteredAsyncAppender asyncAppender(String appendTimeout) {
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC");
+        appender.setRingBufferSize(4);
+        appender.setAppendTimeout(Duration.valueOf(appendTimeout));
+        appender.setAddDefaultStatusListener(false);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(MeteredAsyncAppender appender) {
+        Logger logger = context.getLogger("com.example.Test");
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+        private final CountDownLatch release;
+        private final AtomicInteger received = new AtomicInteger();
+
+        BlockingAppender(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.project.ecommerceapp.repository;
+
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.service.category.CategoryDictionary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Loads a catalog large enough for the optimizer to prefer an index over a scan, refreshes the statistics and
+    checks the plan chosen for each filter combination ProductQuery renders. The catalog is loaded once for the
+    class and removed afterwards, so later test contexts sharing the database start empty.
+*/
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ActiveProfiles("test")
+public class ProductQueryPlanTest {
+    private static final int PRODUCTS = 30_000;
+    private static final int CATEGORIES = 20;
+    private static final int BRANDS = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long categoryId;
+
+    @BeforeAll
+    void setUp() {
+        clear();
+        List<Long> categoryIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < CATEGORIES; i++) {
+                ids.add(categoryRepository.save(new Category("Category " + i)).getId());
+            }
+            return ids;
+        });
+        List<Object[]> rows = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            rows.add(new Object[]{"Product " + i, "Brand " + i % BRANDS, BigDecimal.valueOf(1 + (i * 7919L) % 2000),
+                    i % 10, "Description " + i, categoryIds.get(i % CATEGORIES)});
+        }
+        jdbcTemplate.batchUpdate("insert into product (name, brand, price, inventory, description, category_id) values (?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("analyze");
+        categoryId = categoryIds.get(3);
+    }
+
+    @AfterAll
+    void tearDown() {
+        clear();
+    }
+
+    @Test
+    void categoryWithPriceRange_shouldSeekCategoryPriceIndex() {
+        ProductQuery query = query(ProductQuery.Sort.PRICE_ASC);
+        query.setCategoryId(categoryId);
+        query.setMinPrice(new BigDecimal("100"));
+        query.setMaxPrice(new BigDecimal("200"));
+
+        assertThat(plan(query)).contains("IX_PRODUCT_CATEGORY_PRICE");
+    }
+
+    @Test
+    void categoryAndBrand_shouldSeekCategoryBrandPriceIndex() {
+        ProductQuery query = query(ProductQuery.Sort.PRICE_DESC);
+        query.setCategoryId(categoryId);
+        query.setBrand("Brand 3");
+
+        assertThat(plan(query)).contains("IX_PRODUCT_CATEGORY_BRAND_PRICE");
+    }
+
+    @Test
+    void brandSortedByPrice_shouldSeekBrandPriceIndex() {
+        ProductQuery query = query(ProductQuery.Sort.PRICE_ASC);
+        query.setBrand("Brand 7");
+        query.setAfterId(10L);
+        query.setAfterValue(new BigDecimal("500"));
+
+        assertThat(plan(query)).contains("IX_PRODUCT_BRAND_PRICE");
+    }
+
+    @Test
+    void brandAndNamePrefix_shouldSeekBrandNameIndex() {
+        ProductQuery query = query(ProductQuery.Sort.NAME);
+        query.setBrand("Brand 7");
+        query.setNamePrefix("Product 12");
+
+        assertThat(plan(query)).contains("IX_PRODUCT_BRAND_NAME");
+    }
+
+    @Test
+    void namePrefix_shouldSeekNameIndex() {
+        ProductQuery query = query(ProductQuery.Sort.ID);
+        query.setNamePrefix("Product 123");
+
+        assertThat(plan(query)).contains("IX_PRODUCT_NAME");
+    }
+
+    @Test
+    void priceRange_shouldSeekPriceIndex() {
+        ProductQuery query = query(ProductQuery.Sort.PRICE_ASC);
+        query.setMinPrice(new BigDecimal("10"));
+        query.setMaxPrice(new BigDecimal("20"));
+        query.setInStock(true);
+
+        assertThat(plan(query)).contains("IX_PRODUCT_PRICE");
+    }
+
+    private ProductQuery query(ProductQuery.Sort sort) {
+        ProductQuery query = new ProductQuery();
+        query.setSort(sort);
+        query.setLimit(21);
+        return query;
+    }
+
+    private String plan(ProductQuery query) {
+        String plan = namedParameterJdbcTemplate.queryForObject("explain " + query.sql(), query.parameters(), String.class);
+        assertThat(plan).doesNotContain("tableScan");
+        return plan;
+    }
+
+    private void clear() {
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+        });
+        categoryDictionary.reload();
+    }
+}
@@ -0,0 +1,106 @@
+package com.project.ecommerceapp.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Migrates databases created by hibernate ddl-auto=update, as production was before migrations, and compares their
+    schema with the one a new database gets from the migrations alone.
+*/
+public class SchemaMigrationTest {
+
+    // what ddl-auto=update created for the entities of the first release
+    private static final String[] LEGACY_SCHEMA = {
+            "create table category (id bigint generated by default as identity, name varchar(255), primary key (id))",
+            "create table product (id bigint generated by default as identity, brand varchar(255), description varchar(255),"
+                    + " inventory integer not null, name varchar(255), price numeric(38,2), category_id bigint, primary key (id))",
+            "create table image (id bigint generated by default as identity, download_url varchar(255), file_name varchar(255),"
+                    + " file_type varchar(255), image blob, product_id bigint, primary key (id))",
+            "alter table product add constraint FK1mtsbur82frn64de7balymq9s foreign key (category_id) references category",
+            "alter table image add constraint FKgpextbyee3uk9u6o2381m7ft1 foreign key (product_id) references product"
+    };
+
+    @Test
+    void migrate_shouldBringALegacyDatabaseToTheCurrentSchema() {
+        DataSource legacy = dataSource();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(legacy);
+        for (String statement : LEGACY_SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+        jdbcTemplate.update("insert into category (id, name) values (1, 'Phones'), (2, 'Laptops'), (3, 'Phones'), (4, null)");
+        jdbcTemplate.update("insert into product (id, name, inventory, category_id) values (1, 'a', 1, 1), (2, 'b', 1, 2), (3, 'c', 1, 3), (4, 'd', 1, 4)");
+        jdbcTemplate.update("insert into image (id, file_name, image, product_id) values (1, 'a.png', X'01', 1)");
+
+        migrate(legacy);
+
+        assertThat(jdbcTemplate.queryForList("select id from category order by id", Long.class)).containsExactly(1L, 2L, 4L);
+        assertThat(jdbcTemplate.queryForList("select category_id from product order by id", Long.class)).containsExactly(1L, 2L, 1L, 4L);
+        assertThat(jdbcTemplate.queryForObject("select content_hash from image where id = 1", String.class)).isNull();
+        assertThat(schema(legacy))
+                .contains("category.ux_category_name UNIQUE INDEX", "inventory_lease.ix_inventory_lease_product INDEX")
+                .isEqualTo(schema(migratedFromScratch()));
+    }
+
+    @Test
+    void migrate_shouldAcceptALegacyDatabaseUpdatedByLaterEntities() {
+        DataSource legacy = dataSource();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(legacy);
+        for (String statement : LEGACY_SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+        // columns, tables and the unique index ddl-auto=update added while it still owned the schema
+        jdbcTemplate.execute("alter table image add column content_hash varchar(64)");
+        jdbcTemplate.execute("alter table image add column content_length bigint");
+        jdbcTemplate.execute("create unique index ux_category_name on category (name)");
+        jdbcTemplate.execute("create table inventory_lease (id varchar(64) not null, heartbeat_at timestamp(6) with time zone,"
+                + " node_id varchar(36), product_id bigint, remaining integer not null, primary key (id))");
+        jdbcTemplate.update("insert into inventory_lease (id, product_id, remaining) values ('node:1', 1, 5)");
+
+        migrate(legacy);
+
+        assertThat(jdbcTemplate.queryForObject("select remaining from inventory_lease", Integer.class)).isEqualTo(5);
+        assertThat(schema(legacy)).isEqualTo(schema(migratedFromScratch()));
+    }
+
+    private DataSource migratedFromScratch() {
+        DataSource dataSource = dataSource();
+        migrate(dataSource);
+        return dataSource;
+    }
+
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private static DataSource dataSource() {
+        return new DriverManagerDataSource("jdbc:h2:mem:migration-" + UUID.randomUUID() + ";MODE=MSSQLServer;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    // columns with their type and nullability, and the named indexes, of the application's tables
+    private static List<String> schema(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> schema = jdbcTemplate.queryForList(
+                "select lower(table_name) || '.' || lower(column_name) || ' ' || data_type || ' ' || is_nullable"
+                        + " from information_schema.columns where table_schema = 'PUBLIC' and lower(table_name) <> 'flyway_schema_history'"
+                        + " order by table_name, column_name", String.class);
+        schema.addAll(jdbcTemplate.queryForList(
+                "select lower(table_name) || '.' || lower(index_name) || ' ' || index_type_name"
+                        + " from information_schema.indexes where table_schema = 'PUBLIC' and (lower(index_name) like 'ix\\_%' escape '\\'"
+                        + " or lower(index_name) like 'ux\\_%' escape '\\') order by table_name, index_name", String.class));
+        return schema;
+    }
+}
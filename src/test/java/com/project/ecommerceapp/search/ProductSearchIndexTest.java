@@ -0,0 +1,98 @@
+package com.project.ecommerceapp.search;
+
+import com.project.ecommerceapp.dto.ProductDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.indexAll(List.of(
+                product(1L, "Galaxy S24", "Samsung", "Android phone with a great camera", "Phones"),
+                product(2L, "iPhone 15", "Apple", "Phone by Apple", "Phones"),
+                product(3L, "Camera Strap", "Peak Design", "Fits every camera", "Accessories"),
+                product(4L, "Café Grinder", "Baratza", "Burr grinder", "Kitchen")));
+    }
+
+    @Test
+    void search_shouldMatchPrefixes() {
+        assertThat(index.search("gal", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("sams gal", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void search_shouldTolerateOneTypo() {
+        assertThat(index.search("samsnug", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("camrea", 0, 10).ids()).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.search("grindr", 0, 10).ids()).containsExactly(4L);
+        assertThat(index.search("appple", 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void search_shouldIgnoreCaseAndAccents() {
+        assertThat(index.search("CAFE", 0, 10).ids()).containsExactly(4L);
+    }
+
+    @Test
+    void search_shouldRankNameMatchesAboveDescriptionMatches() {
+        assertThat(index.search("camera", 0, 10).ids()).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void search_shouldRequireEveryToken() {
+        assertThat(index.search("apple camera", 0, 10).ids()).isEmpty();
+        assertThat(index.search("phone apple", 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void search_shouldPaginateAndReportTotal() {
+        SearchHits first = index.search("phones", 0, 1);
+        SearchHits second = index.search("phones", 1, 1);
+
+        assertThat(first.total()).isEqualTo(2);
+        assertThat(first.ids()).hasSize(1);
+        assertThat(second.ids()).hasSize(1).doesNotContainAnyElementsOf(first.ids());
+        assertThat(index.search("phones", 2, 1).ids()).isEmpty();
+    }
+
+    @Test
+    void index_shouldReplacePreviousTerms() {
+        index.index(product(1L, "Pixel 8", "Google", "Android phone", "Phones"));
+
+        assertThat(index.search("galaxy", 0, 10).ids()).isEmpty();
+        assertThat(index.search("pixel", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void remove_shouldDropProductAndUnusedTerms() {
+        index.remove(4L);
+
+        assertThat(index.search("grinder", 0, 10).ids()).isEmpty();
+        assertThat(index.search("grindr", 0, 10).ids()).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void withinOneEdit_shouldAcceptSingleEditsOnly() {
+        assertThat(ProductSearchIndex.withinOneEdit("phone", "phone")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("phone", "phones")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("phone", "phine")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("phone", "hpone")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("phone", "hopne")).isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("phone", "ph")).isFalse();
+    }
+
+    private static ProductDto product(Long id, String name, String brand, String description, String category) {
+        return new ProductDto(id, name, brand, BigDecimal.TEN, 1, description, category);
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.ecommerceapp.service.category;
+
+import com.project.ecommerceapp.exceptions.ResourceException;
+import com.project.ecommerceapp.model.Category;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.CategoryRepository;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.repository.ProductRepository;
+import com.project.ecommerceapp.request.AddProductRequest;
+import com.project.ecommerceapp.service.product.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CategoryDictionaryTest {
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.deleteAllInBatch();
+            productRepository.deleteAllInBatch();
+            categoryRepository.deleteAllInBatch();
+            categoryRepository.save(new Category("Phones"));
+        });
+        categoryDictionary.reload();
+    }
+
+    @Test
+    void addProduct_shouldNotReadCategoryWhenKnown() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        AddProductRequest request = new AddProductRequest();
+        request.setName("Phone A");
+        request.setBrand("Acme");
+        request.setPrice(BigDecimal.TEN);
+        request.setCategory(new Category("Phones"));
+
+        statistics.clear();
+        Product product = productService.addProduct(request);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(product.getCategory().getName()).isEqualTo("Phones");
+    }
+
+    @Test
+    void getOrCreate_shouldCreateOneCategoryUnderConcurrency() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> ids = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                ids.add(executor.submit(() -> {
+                    start.await();
+                    return categoryDictionary.getOrCreate("Laptops").getId();
+                }));
+            }
+            start.countDown();
+
+            Set<Long> distinct = ConcurrentHashMap.newKeySet();
+            for (Future<Long> id : ids) {
+                distinct.add(id.get(10, TimeUnit.SECONDS));
+            }
+            assertThat(distinct).hasSize(1);
+            assertThat(categoryRepository.findAll()).filteredOn(category -> category.getName().equals("Laptops")).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void addCategory_shouldRejectDuplicateName() {
+        assertThatThrownBy(() -> categoryService.addCategory(new Category("Phones")))
+                .isInstanceOf(ResourceException.class);
+    }
+
+    @Test
+    void renameAndDelete_shouldKeepDictionaryCoherent() {
+        Category phones = categoryDictionary.find("Phones").orElseThrow();
+
+        categoryService.updateCategory(new Category("Mobiles"), phones.getId());
+        assertThat(categoryDictionary.find("Mobiles")).map(Category::getId).contains(phones.getId());
+        assertThat(categoryDictionary.find("Phones")).isEmpty();
+
+        categoryService.deleteCategoryById(phones.getId());
+        assertThat(categoryDictionary.find("Mobiles")).isEmpty();
+    }
+
+    @Test
+    void getOrCreateAll_shouldResolveKnownAndCreateMissing() {
+        Long phonesId = categoryDictionary.find("Phones").orElseThrow().getId();
+
+        var ids = categoryDictionary.getOrCreateAll(List.of("Phones", "Tablets", "Watches"));
+
+        assertThat(ids).containsEntry("Phones", phonesId).containsKeys("Tablets", "Watches");
+        assertThat(categoryRepository.findByName("Watches").getId()).isEqualTo(ids.get("Watches"));
+    }
+}
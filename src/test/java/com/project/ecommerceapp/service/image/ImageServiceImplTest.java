@@ -0,0 +1,115 @@
+package com.project.ecommerceapp.service.image;
+
+import com.project.ecommerceapp.catalog.CatalogVersions;
+import com.project.ecommerceapp.dto.ImageUploadResultDto;
+import com.project.ecommerceapp.metrics.ImageMetrics;
+import com.project.ecommerceapp.model.Product;
+import com.project.ecommerceapp.repository.ImageRepository;
+import com.project.ecommerceapp.service.image.storage.ImageStorage;
+import com.project.ecommerceapp.service.image.storage.StoredImage;
+import com.project.ecommerceapp.service.product.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// the upload paths the controller tests cannot provoke against a working database
+public class ImageServiceImplTest {
+
+    private final ImageRepository imageRepository = mock(ImageRepository.class);
+    private final ImageStorage imageStorage = mock(ImageStorage.class);
+    private final CatalogVersions catalogVersions = mock(CatalogVersions.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final NamedParameterJdbcTemplate namedJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+
+    private ImageServiceImpl imageService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Product product = new Product();
+        product.setId(1L);
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProductById(1L)).thenReturn(product);
+        when(namedJdbcTemplate.getJdbcTemplate()).thenReturn(jdbcTemplate);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(imageStorage.store(any(InputStream.class))).thenAnswer(invocation ->
+                new StoredImage("hash-" + new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8), 1));
+        imageService = new ImageServiceImpl(imageRepository, productService, imageStorage, mock(ImageMetrics.class),
+                mock(ImageVariantService.class), catalogVersions, namedJdbcTemplate, transactionManager, 1, 1, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageService.shutdown();
+    }
+
+    @Test
+    void saveImages_shouldReleaseTheStoredContentWhenTheInsertFailsOutsideTheDatabase() {
+        doThrow(new IllegalStateException("catalog unavailable")).when(catalogVersions).touchProduct(1L);
+
+        ImageUploadResultDto result = imageService.saveImages(1L, List.of(file("a"), file("b")));
+
+        assertThat(result.getImages()).isEmpty();
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(ImageUploadResultDto.FileError::getMessage)
+                .containsOnly("Not saved: catalog unavailable");
+        verify(jdbcTemplate).update(startsWith("update image_content_release"), any(), eq("hash-a"));
+        verify(jdbcTemplate).update(startsWith("update image_content_release"), any(), eq("hash-b"));
+    }
+
+    @Test
+    void saveImages_shouldStoreEveryFileWhenTheUploadQueueIsFull() throws Exception {
+        when(namedJdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class)))
+                .thenAnswer(invocation -> {
+                    SqlParameterSource[] rows = invocation.getArgument(1);
+                    KeyHolder keys = invocation.getArgument(2);
+                    for (int i = 0; i < rows.length; i++) {
+                        keys.getKeyList().add(Map.of("ID", 100L + i));
+                    }
+                    return new int[rows.length];
+                });
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            files.add(file(String.valueOf(i)));
+        }
+
+        // one thread and one queued file, the rest is stored by the calling thread
+        ImageUploadResultDto result = imageService.saveImages(1L, files);
+
+        verify(imageStorage, times(20)).store(any(InputStream.class));
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getImages()).hasSize(20);
+        assertThat(result.getImages().get(19).getId()).isEqualTo(119L);
+        assertThat(result.getImages().get(19).getDownloadUrl()).isEqualTo("/api/v1/images/download/119?v=hash-19");
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("files", content + ".png", "image/png", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.ecommerceapp.service.image.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalFileSystemImageStorageTest {
+
+    @TempDir
+    private Path root;
+
+    private LocalFileSystemImageStorage storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new LocalFileSystemImageStorage(root);
+    }
+
+    @Test
+    void store_shouldKeyContentBySha256() throws Exception {
+        StoredImage stored = storage.store(stream("hello"));
+
+        assertThat(stored.contentHash()).isEqualTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+        assertThat(stored.size()).isEqualTo(5);
+        assertThat(storage.exists(stored.contentHash())).isTrue();
+    }
+
+    @Test
+    void store_shouldDeduplicateIdenticalContent() throws Exception {
+        StoredImage first = storage.store(stream("same bytes"));
+        StoredImage second = storage.store(stream("same bytes"));
+
+        assertThat(second.contentHash()).isEqualTo(first.contentHash());
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void transferTo_shouldWriteRequestedRange() throws Exception {
+        StoredImage stored = storage.store(stream("0123456789"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = storage.transferTo(stored.contentHash(), 2, 5, Channels.newChannel(out));
+
+        assertThat(written).isEqualTo(5);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("23456");
+    }
+
+    @Test
+    void delete_shouldRemoveContent() throws Exception {
+        StoredImage stored = storage.store(stream("bye"));
+
+        storage.delete(stored.contentHash());
+
+        assertThat(storage.exists(stored.contentHash())).isFalse();
+        assertThat(storage.localPath(stored.contentHash())).isEmpty();
+    }
+
+    @Test
+    void deleteIfStoredBefore_shouldKeepContentStoredAgainOrStillInUse() throws Exception {
+        StoredImage stored = storage.store(stream("released"));
+        Path path = storage.localPath(stored.contentHash()).orElseThrow();
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(10));
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        // an upload of the same bytes is about to reference them
+        storage.store(stream("released"));
+        assertThat(storage.deleteIfStoredBefore(stored.contentHash(), cutoff, () -> true)).isFalse();
+
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        assertThat(storage.deleteIfStoredBefore(stored.contentHash(), cutoff, () -> false)).isFalse();
+        assertThat(storage.exists(stored.contentHash())).isTrue();
+
+        assertThat(storage.deleteIfStoredBefore(stored.contentHash(), cutoff, () -> true)).isTrue();
+        assertThat(storage.exists(stored.contentHash())).isFalse();
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isZero();
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}